@@ -0,0 +1,48 @@
+package com.example.backend.api;
+
+import com.example.backend.api.dto.ChatMessageResponse;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.service.ChatHistory;
+import com.example.backend.service.RoomDirectory;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/rooms/{roomId}/chat")
+public class ChatController {
+
+	private static final int MAX_CHAT_PAGE_SIZE = 100;
+
+	private final ChatHistory chatHistory;
+	private final RoomDirectory roomDirectory;
+	private final RoomRepository roomRepository;
+
+	public ChatController(ChatHistory chatHistory, RoomDirectory roomDirectory, RoomRepository roomRepository) {
+		this.chatHistory = chatHistory;
+		this.roomDirectory = roomDirectory;
+		this.roomRepository = roomRepository;
+	}
+
+	// Newest first; pass the last message's createdAt and id as before/beforeId for the next page.
+	@GetMapping
+	public List<ChatMessageResponse> listMessages(@PathVariable Long roomId,
+			@RequestParam(name = "before", required = false)
+			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+			@RequestParam(name = "beforeId", required = false) Long beforeId,
+			@RequestParam(name = "size", defaultValue = "50") int size) {
+		boolean known = roomDirectory.isLoaded() ? roomDirectory.mode(roomId) != null : roomRepository.existsById(roomId);
+		if (!known) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+		}
+		int pageSize = Math.max(1, Math.min(size, MAX_CHAT_PAGE_SIZE));
+		return chatHistory.page(roomId, before, beforeId, pageSize);
+	}
+}
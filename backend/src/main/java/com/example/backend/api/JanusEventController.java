@@ -0,0 +1,38 @@
+package com.example.backend.api;
+
+import com.example.backend.janus.JanusEventBridge;
+import java.util.Map;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+/**
+ * STOMP side of {@link JanusEventBridge}: a client subscribes to {@code /user/queue/janus} and then asks for its
+ * Janus session's events instead of long polling {@code /janus/{sessionId}} itself. The socket's handshake carries
+ * the HTTP session, which must be the one that created the Janus session.
+ */
+@Controller
+public class JanusEventController {
+
+	private final JanusEventBridge janusEventBridge;
+
+	public JanusEventController(JanusEventBridge janusEventBridge) {
+		this.janusEventBridge = janusEventBridge;
+	}
+
+	@MessageMapping("/janus/{sessionId}/events")
+	public void attach(@DestinationVariable long sessionId, SimpMessageHeaderAccessor headerAccessor) {
+		Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+		Object httpSessionId = attributes == null
+				? null
+				: attributes.get(HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME);
+		janusEventBridge.attach(sessionId, headerAccessor.getSessionId(), (String) httpSessionId);
+	}
+
+	@MessageMapping("/janus/{sessionId}/events/stop")
+	public void detach(@DestinationVariable long sessionId, SimpMessageHeaderAccessor headerAccessor) {
+		janusEventBridge.detach(sessionId, headerAccessor.getSessionId());
+	}
+}
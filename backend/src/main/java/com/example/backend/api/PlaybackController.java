@@ -2,12 +2,13 @@ package com.example.backend.api;
 
 import com.example.backend.api.dto.PlaybackResponse;
 import com.example.backend.api.dto.PlaybackUpdateRequest;
-import com.example.backend.domain.PlaybackState;
-import com.example.backend.domain.Room;
-import com.example.backend.domain.Track;
-import com.example.backend.repository.PlaybackStateRepository;
+import com.example.backend.domain.RoomMode;
 import com.example.backend.repository.RoomRepository;
-import com.example.backend.repository.TrackRepository;
+import com.example.backend.service.PlaybackClock;
+import com.example.backend.service.PlaybackStateBuffer;
+import com.example.backend.service.RoomDirectory;
+import com.example.backend.service.TrackCache;
+import java.time.LocalDateTime;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -21,46 +22,65 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/rooms/{roomId}/playback")
 public class PlaybackController {
 
-	private final PlaybackStateRepository playbackStateRepository;
+	private final PlaybackStateBuffer playbackStateBuffer;
 	private final RoomRepository roomRepository;
-	private final TrackRepository trackRepository;
+	private final TrackCache trackCache;
+	private final RoomDirectory roomDirectory;
+	private final PlaybackClock playbackClock;
 
-	public PlaybackController(PlaybackStateRepository playbackStateRepository, RoomRepository roomRepository,
-			TrackRepository trackRepository) {
-		this.playbackStateRepository = playbackStateRepository;
+	public PlaybackController(PlaybackStateBuffer playbackStateBuffer, RoomRepository roomRepository,
+			TrackCache trackCache, RoomDirectory roomDirectory, PlaybackClock playbackClock) {
+		this.playbackStateBuffer = playbackStateBuffer;
 		this.roomRepository = roomRepository;
-		this.trackRepository = trackRepository;
+		this.trackCache = trackCache;
+		this.roomDirectory = roomDirectory;
+		this.playbackClock = playbackClock;
 	}
 
 	@GetMapping
 	public PlaybackResponse getPlayback(@PathVariable Long roomId) {
-		PlaybackState state = playbackStateRepository.findById(roomId)
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Playback not found"));
-		return new PlaybackResponse(
-				state.getRoomId(),
-				state.getTrack() == null ? null : state.getTrack().getId(),
-				state.getTrack() == null ? null : state.getTrack().getTitle(),
-				state.getPositionMs(),
-				state.isPlaying(),
-				state.getUpdatedAt());
+		PlaybackResponse live = playbackClock.current(roomId);
+		if (live != null) {
+			return live;
+		}
+		PlaybackResponse state = playbackStateBuffer.get(roomId);
+		if (state == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Playback not found");
+		}
+		return state;
 	}
 
 	@PatchMapping
 	public PlaybackResponse updatePlayback(@PathVariable Long roomId, @RequestBody PlaybackUpdateRequest request) {
-		Room room = roomRepository.findById(roomId)
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found"));
-		Track track = request.getTrackId() == null ? null : trackRepository.findById(request.getTrackId())
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found"));
-		PlaybackState state = playbackStateRepository.findById(roomId)
-				.orElseGet(() -> new PlaybackState(room, track, request.getPositionMs(), request.isPlaying()));
-		state.update(track, request.getPositionMs(), request.isPlaying());
-		PlaybackState saved = playbackStateRepository.save(state);
-		return new PlaybackResponse(
-				saved.getRoomId(),
-				saved.getTrack() == null ? null : saved.getTrack().getId(),
-				saved.getTrack() == null ? null : saved.getTrack().getTitle(),
-				saved.getPositionMs(),
-				saved.isPlaying(),
-				saved.getUpdatedAt());
+		RoomMode mode = roomDirectory.mode(roomId);
+		if (mode == RoomMode.KARAOKE) {
+			return updateKaraokePlayback(roomId, request);
+		}
+		if (mode == null && (roomDirectory.isLoaded() || !roomRepository.existsById(roomId))) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+		}
+		Long trackId = request.getTrackId();
+		String trackTitle = null;
+		if (trackId != null) {
+			PlaybackResponse previous = playbackStateBuffer.get(roomId);
+			trackTitle = previous != null && trackId.equals(previous.getTrackId())
+					? previous.getTrackTitle()
+					: trackCache.get(trackId)
+							.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found"))
+							.getTitle();
+		}
+		PlaybackResponse state = new PlaybackResponse(roomId, trackId, trackTitle, request.getPositionMs(),
+				request.isPlaying(), LocalDateTime.now());
+		playbackStateBuffer.put(state);
+		return state;
+	}
+
+	// Karaoke rooms run on the in-memory clock; only transitions are handed to the write-behind buffer.
+	private PlaybackResponse updateKaraokePlayback(Long roomId, PlaybackUpdateRequest request) {
+		return playbackClock.update(roomId, request.getTrackId(), request.getPositionMs(), request.isPlaying(),
+				trackId -> trackCache.get(trackId)
+						.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found"))
+						.getTitle(),
+				playbackStateBuffer::put);
 	}
 }
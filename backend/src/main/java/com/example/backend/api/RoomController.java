@@ -1,7 +1,11 @@
 package com.example.backend.api;
 
 import com.example.backend.api.dto.QueueAddRequest;
+import com.example.backend.api.dto.QueueBatchAddRequest;
+import com.example.backend.api.dto.QueueBatchResponse;
 import com.example.backend.api.dto.QueueItemResponse;
+import com.example.backend.api.dto.QueueReorderRequest;
+import com.example.backend.api.dto.QueueStatusBatchRequest;
 import com.example.backend.api.dto.QueueUpdateRequest;
 import com.example.backend.api.dto.RoomCreateRequest;
 import com.example.backend.api.dto.RoomDetailResponse;
@@ -9,28 +13,38 @@ import com.example.backend.api.dto.RoomJoinRequest;
 import com.example.backend.api.dto.RoomLeaveRequest;
 import com.example.backend.api.dto.RoomMemberResponse;
 import com.example.backend.api.dto.RoomSummaryResponse;
+import com.example.backend.api.dto.TrackResponse;
 import com.example.backend.domain.AppUser;
-import com.example.backend.domain.QueueItem;
 import com.example.backend.domain.QueueStatus;
 import com.example.backend.domain.Room;
 import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
 import com.example.backend.domain.RoomRole;
-import com.example.backend.domain.Track;
+import com.example.backend.domain.RoomVisibility;
 import com.example.backend.repository.AppUserRepository;
 import com.example.backend.repository.QueueItemRepository;
+import com.example.backend.repository.QueueRow;
+import com.example.backend.repository.RoomDetailRow;
 import com.example.backend.repository.RoomMemberRepository;
 import com.example.backend.repository.RoomRepository;
-import com.example.backend.repository.TrackRepository;
+import com.example.backend.service.QueueOrdering;
+import com.example.backend.service.RoomDirectory;
+import com.example.backend.service.TrackCache;
+import com.example.backend.service.TrackSuggester;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -38,33 +52,44 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/rooms")
 public class RoomController {
 
+	private static final int MAX_ROOM_PAGE_SIZE = 100;
+	private static final String QUEUE_VERSION_HEADER = "X-Queue-Version";
+
 	private final RoomRepository roomRepository;
 	private final RoomMemberRepository roomMemberRepository;
 	private final AppUserRepository appUserRepository;
-	private final TrackRepository trackRepository;
 	private final QueueItemRepository queueItemRepository;
+	private final RoomDirectory roomDirectory;
+	private final TrackSuggester trackSuggester;
+	private final TrackCache trackCache;
+	private final QueueOrdering queueOrdering;
 
 	public RoomController(RoomRepository roomRepository, RoomMemberRepository roomMemberRepository,
-			AppUserRepository appUserRepository, TrackRepository trackRepository, QueueItemRepository queueItemRepository) {
+			AppUserRepository appUserRepository, QueueItemRepository queueItemRepository,
+			RoomDirectory roomDirectory, TrackSuggester trackSuggester, TrackCache trackCache,
+			QueueOrdering queueOrdering) {
 		this.roomRepository = roomRepository;
 		this.roomMemberRepository = roomMemberRepository;
 		this.appUserRepository = appUserRepository;
-		this.trackRepository = trackRepository;
 		this.queueItemRepository = queueItemRepository;
+		this.roomDirectory = roomDirectory;
+		this.trackSuggester = trackSuggester;
+		this.trackCache = trackCache;
+		this.queueOrdering = queueOrdering;
 	}
 
 	@GetMapping
-	public List<RoomSummaryResponse> listRooms() {
-		return roomRepository.findAll().stream()
-				.map(room -> new RoomSummaryResponse(
-						room.getId(),
-						room.getTitle(),
-						room.getMode(),
-						room.getVisibility(),
-						room.getHost().getNickname(),
-						roomMemberRepository.countByRoomId(room.getId()),
-						room.getCreatedAt()))
-				.collect(Collectors.toList());
+	public List<RoomSummaryResponse> listRooms(@RequestParam(name = "mode", required = false) RoomMode mode,
+			@RequestParam(name = "visibility", required = false) RoomVisibility visibility,
+			@RequestParam(name = "cursor", required = false) Long cursor,
+			@RequestParam(name = "size", defaultValue = "50") int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_ROOM_PAGE_SIZE));
+		if (!roomDirectory.isLoaded()) {
+			return cursor == null
+					? roomRepository.findSummaries(mode, visibility, PageRequest.of(0, pageSize))
+					: roomRepository.findSummariesBefore(mode, visibility, cursor, PageRequest.of(0, pageSize));
+		}
+		return roomDirectory.list(mode, visibility, cursor, pageSize);
 	}
 
 	@PostMapping
@@ -73,38 +98,50 @@ public class RoomController {
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Host not found"));
 		Room room = new Room(request.getTitle(), request.getMode(), request.getVisibility(), request.getPasswordHash(), host);
 		Room saved = roomRepository.save(room);
-		RoomMember hostMember = new RoomMember(saved, host, RoomRole.HOST, false, "host device");
-		roomMemberRepository.save(hostMember);
+		RoomMember hostMember = roomMemberRepository.save(new RoomMember(saved, host, RoomRole.HOST, false, "host device"));
+		roomDirectory.register(saved, host.getNickname());
+		roomDirectory.addMember(saved.getId(), new RoomMemberResponse(
+				hostMember.getId(),
+				host.getId(),
+				host.getNickname(),
+				hostMember.getRole(),
+				hostMember.isMuted(),
+				hostMember.getDeviceInfo(),
+				hostMember.getJoinedAt()));
 		return new RoomSummaryResponse(
 				saved.getId(),
 				saved.getTitle(),
 				saved.getMode(),
 				saved.getVisibility(),
-				saved.getHost().getNickname(),
-				roomMemberRepository.countByRoomId(saved.getId()),
+				host.getNickname(),
+				1,
 				saved.getCreatedAt());
 	}
 
 	@GetMapping("/{roomId}")
 	public RoomDetailResponse getRoom(@PathVariable Long roomId) {
-		Room room = roomRepository.findById(roomId)
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found"));
-		List<RoomMemberResponse> members = roomMemberRepository.findByRoomId(roomId).stream()
-				.map(member -> new RoomMemberResponse(
-						member.getId(),
-						member.getUser().getId(),
-						member.getUser().getNickname(),
-						member.getRole(),
-						member.isMuted(),
-						member.getDeviceInfo(),
-						member.getJoinedAt()))
+		List<RoomDetailRow> rows = roomRepository.findDetailRows(roomId);
+		if (rows.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+		}
+		List<RoomMemberResponse> members = rows.stream()
+				.filter(row -> row.getMemberId() != null)
+				.map(row -> new RoomMemberResponse(
+						row.getMemberId(),
+						row.getUserId(),
+						row.getNickname(),
+						row.getRole(),
+						row.getMuted(),
+						row.getDeviceInfo(),
+						row.getJoinedAt()))
 				.collect(Collectors.toList());
+		RoomDetailRow room = rows.get(0);
 		return new RoomDetailResponse(
 				room.getId(),
 				room.getTitle(),
 				room.getMode(),
 				room.getVisibility(),
-				room.getHost().getNickname(),
+				room.getHostNickname(),
 				room.getCreatedAt(),
 				members);
 	}
@@ -121,7 +158,7 @@ public class RoomController {
 		RoomRole role = Objects.requireNonNullElse(request.getRole(), RoomRole.PERFORMER);
 		RoomMember member = new RoomMember(room, user, role, request.isMuted(), request.getDeviceInfo());
 		RoomMember saved = roomMemberRepository.save(member);
-		return new RoomMemberResponse(
+		RoomMemberResponse response = new RoomMemberResponse(
 				saved.getId(),
 				user.getId(),
 				user.getNickname(),
@@ -129,6 +166,8 @@ public class RoomController {
 				saved.isMuted(),
 				saved.getDeviceInfo(),
 				saved.getJoinedAt());
+		roomDirectory.addMember(roomId, response);
+		return response;
 	}
 
 	@PostMapping("/{roomId}/leave")
@@ -137,81 +176,78 @@ public class RoomController {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
 		}
 		roomMemberRepository.deleteByRoomIdAndUserId(roomId, request.getUserId());
+		roomDirectory.removeMember(roomId, request.getUserId());
 	}
 
 	@GetMapping("/{roomId}/members")
 	public List<RoomMemberResponse> listMembers(@PathVariable Long roomId) {
-		return roomMemberRepository.findByRoomId(roomId).stream()
-				.map(member -> new RoomMemberResponse(
-						member.getId(),
-						member.getUser().getId(),
-						member.getUser().getNickname(),
-						member.getRole(),
-						member.isMuted(),
-						member.getDeviceInfo(),
-						member.getJoinedAt()))
-				.collect(Collectors.toList());
+		if (!roomDirectory.isLoaded()) {
+			return roomMemberRepository.findResponsesByRoomId(roomId);
+		}
+		return roomDirectory.members(roomId);
 	}
 
 	@GetMapping("/{roomId}/queue")
-	public List<QueueItemResponse> listQueue(@PathVariable Long roomId) {
-		return queueItemRepository.findByRoomIdOrderBySortOrderAsc(roomId).stream()
-				.map(item -> new QueueItemResponse(
-						item.getId(),
-						item.getTrack().getId(),
-						item.getTrack().getTitle(),
-						item.getTrack().getArtist(),
-						item.getRequestedBy().getId(),
-						item.getStatus(),
-						item.getSortOrder(),
-						item.getCreatedAt()))
+	public ResponseEntity<List<QueueItemResponse>> listQueue(@PathVariable Long roomId) {
+		// Read before the rows: diffs after this version may already be applied, and applying them again is harmless
+		Long version = roomRepository.findQueueVersion(roomId);
+		if (version == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+		}
+		List<QueueRow> rows = queueItemRepository.findRowsByRoomId(roomId);
+		Map<Long, TrackResponse> tracks = trackCache.getAll(rows.stream().map(QueueRow::getTrackId).toList());
+		List<QueueItemResponse> queue = rows.stream()
+				.map(row -> {
+					TrackResponse track = tracks.get(row.getTrackId());
+					return new QueueItemResponse(
+							row.getId(),
+							row.getTrackId(),
+							track == null ? null : track.getTitle(),
+							track == null ? null : track.getArtist(),
+							row.getRequestedBy(),
+							row.getStatus(),
+							row.getSortOrder(),
+							row.getCreatedAt());
+				})
 				.collect(Collectors.toList());
+		return ResponseEntity.ok().header(QUEUE_VERSION_HEADER, Long.toString(version)).body(queue);
 	}
 
 	@PostMapping("/{roomId}/queue")
 	public QueueItemResponse addQueue(@PathVariable Long roomId, @RequestBody QueueAddRequest request) {
 		Room room = roomRepository.findById(roomId)
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found"));
-		Track track = trackRepository.findById(request.getTrackId())
+		TrackResponse track = trackCache.get(request.getTrackId())
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found"));
 		AppUser requester = appUserRepository.findById(request.getRequestedBy())
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 		QueueStatus status = request.getStatus() == null ? QueueStatus.PENDING : request.getStatus();
-		int sortOrder = request.getSortOrder() == null
-				? queueItemRepository.findByRoomIdOrderBySortOrderAsc(roomId).size() + 1
-				: request.getSortOrder();
-		QueueItem saved = queueItemRepository.save(new QueueItem(room, track, requester, status, sortOrder));
-		return new QueueItemResponse(
-				saved.getId(),
-				saved.getTrack().getId(),
-				saved.getTrack().getTitle(),
-				saved.getTrack().getArtist(),
-				saved.getRequestedBy().getId(),
-				saved.getStatus(),
-				saved.getSortOrder(),
-				saved.getCreatedAt());
+		QueueItemResponse added = queueOrdering.add(room, track, requester, status, request.getSortOrder());
+		trackSuggester.queued(added.getTrackId());
+		return added;
+	}
+
+	@PostMapping("/{roomId}/queue/batch")
+	public QueueBatchResponse addQueueBatch(@PathVariable Long roomId, @RequestBody QueueBatchAddRequest request) {
+		QueueBatchResponse added = queueOrdering.addAll(roomId, request.getItems());
+		added.getItems().forEach(item -> trackSuggester.queued(item.getTrackId()));
+		return added;
+	}
+
+	@PatchMapping("/{roomId}/queue/order")
+	public QueueBatchResponse reorderQueue(@PathVariable Long roomId, @RequestBody QueueReorderRequest request) {
+		return queueOrdering.reorder(roomId, request.getItemIds());
+	}
+
+	@PatchMapping("/{roomId}/queue/status")
+	public QueueBatchResponse updateQueueStatuses(@PathVariable Long roomId,
+			@RequestBody QueueStatusBatchRequest request) {
+		return queueOrdering.updateStatuses(roomId, request.getItems());
 	}
 
 	@PatchMapping("/{roomId}/queue/{queueItemId}")
 	public QueueItemResponse updateQueue(@PathVariable Long roomId, @PathVariable Long queueItemId,
 			@RequestBody QueueUpdateRequest request) {
-		QueueItem item = queueItemRepository.findById(queueItemId)
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Queue item not found"));
-		if (!item.getRoom().getId().equals(roomId)) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Room mismatch");
-		}
-		QueueStatus status = request.getStatus() == null ? item.getStatus() : request.getStatus();
-		int sortOrder = request.getSortOrder() == null ? item.getSortOrder() : request.getSortOrder();
-		item.update(status, sortOrder);
-		QueueItem updated = queueItemRepository.save(item);
-		return new QueueItemResponse(
-				updated.getId(),
-				updated.getTrack().getId(),
-				updated.getTrack().getTitle(),
-				updated.getTrack().getArtist(),
-				updated.getRequestedBy().getId(),
-				updated.getStatus(),
-				updated.getSortOrder(),
-				updated.getCreatedAt());
+		return queueOrdering.update(roomId, queueItemId, request);
 	}
 }
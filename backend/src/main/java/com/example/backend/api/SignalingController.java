@@ -1,19 +1,28 @@
 package com.example.backend.api;
 
+import com.example.backend.service.ChatHistory;
+import com.example.backend.service.RoomDirectory;
+import com.example.backend.signaling.ChatSequencer;
+import com.example.backend.signaling.ClusterPresence;
+import com.example.backend.signaling.PresenceRegistry;
+import com.example.backend.signaling.RosterBroadcaster;
+import com.example.backend.signaling.SessionHeaders;
+import com.example.backend.signaling.SignalRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.Objects;
 
 @Slf4j
 @Controller
@@ -21,9 +30,13 @@ import java.util.HashSet;
 public class SignalingController {
 
     private final SimpMessagingTemplate messagingTemplate;
-    
-    // Track users in each room
-    private final Map<String, Set<UserInfo>> roomUsers = new ConcurrentHashMap<>();
+    private final RoomDirectory roomDirectory;
+    private final PresenceRegistry presenceRegistry;
+    private final ClusterPresence clusterPresence;
+    private final RosterBroadcaster rosterBroadcaster;
+    private final SignalRouter signalRouter;
+    private final ChatHistory chatHistory;
+    private final ChatSequencer chatSequencer;
 
     public static class UserInfo {
         public String oderId;
@@ -37,6 +50,19 @@ public class SignalingController {
             this.odername = odername;
             this.sessionId = sessionId;
         }
+
+        // Identity is the user id; the session may change across reconnects.
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof UserInfo other)) return false;
+            return Objects.equals(oderId, other.oderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(oderId);
+        }
     }
 
     public static class JoinRoomMessage {
@@ -57,6 +83,13 @@ public class SignalingController {
         public String nickname;
         public String content;
         public String timestamp;
+        // Assigned by the server: per-room sequence and the node that numbered it
+        public long seq;
+        public String node;
+    }
+
+    public static class ChatReplayRequest {
+        public long sinceSeq;
     }
 
     @MessageMapping("/room/{roomId}/join")
@@ -66,22 +99,23 @@ public class SignalingController {
         String sessionId = headerAccessor.getSessionId();
         UserInfo user = new UserInfo(message.oderId, message.odername, sessionId);
         
-        roomUsers.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(user);
+        presenceRegistry.join(roomId, user);
+        clusterPresence.joined(roomId, user);
+        roomDirectory.markOnline(roomId, message.oderId);
         
         log.info("User {} joined room {}", message.odername, roomId);
         
-        // Notify others in the room
-        messagingTemplate.convertAndSend(
-            "/topic/room/" + roomId + "/user-joined",
-            user
-        );
+        // Notify others in the room (coalesced into the next roster delta)
+        rosterBroadcaster.joined(roomId, user);
         
         // Send current room users to the new user
-        messagingTemplate.convertAndSendToUser(
-            sessionId,
-            "/queue/room-users",
-            roomUsers.get(roomId)
-        );
+        sendRoster(roomId, sessionId);
+    }
+
+    @MessageMapping("/room/{roomId}/roster")
+    public void resyncRoster(@DestinationVariable String roomId,
+                             SimpMessageHeaderAccessor headerAccessor) {
+        sendRoster(roomId, headerAccessor.getSessionId());
     }
 
     @MessageMapping("/room/{roomId}/signal")
@@ -89,34 +123,61 @@ public class SignalingController {
                       @Payload SignalMessage message) {
         log.debug("Signal from {} to {}", message.from.odername, message.targetUserId);
         
-        // Send signal to specific user
-        messagingTemplate.convertAndSend(
-            "/topic/room/" + roomId + "/signal/" + message.targetUserId,
-            message
-        );
+        // Send signal to the target user's session
+        signalRouter.route(roomId, message);
     }
 
     @MessageMapping("/room/{roomId}/leave")
     public void leaveRoom(@DestinationVariable String roomId, 
                          @Payload UserInfo user) {
-        Set<UserInfo> users = roomUsers.get(roomId);
-        if (users != null) {
-            users.removeIf(u -> u.oderId.equals(user.oderId));
-            log.info("User {} left room {}", user.odername, roomId);
-            
-            // Notify others
-            messagingTemplate.convertAndSend(
-                "/topic/room/" + roomId + "/user-left",
-                user
-            );
+        if (presenceRegistry.leave(roomId, user.oderId) != null) {
+            notifyLeft(roomId, user);
         }
     }
 
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        presenceRegistry.disconnect(event.getSessionId()).forEach(this::notifyLeft);
+    }
+
+    private void notifyLeft(String roomId, UserInfo user) {
+        roomDirectory.markOffline(roomId, user.oderId);
+        clusterPresence.left(roomId, user);
+        log.info("User {} left room {}", user.odername, roomId);
+        
+        // Notify others
+        rosterBroadcaster.left(roomId, user.oderId);
+    }
+
+    // Snapshot serialized once per roster version; sent as pre-encoded JSON so the broker
+    // converter does not run Jackson over it again
+    private void sendRoster(String roomId, String sessionId) {
+        PresenceRegistry.Roster roster = clusterPresence.roster(roomId);
+        Map<String, String> versions = new LinkedHashMap<>();
+        versions.put("roster-version", Long.toString(roster.version()));
+        versions.put("roster-node", presenceRegistry.nodeId());
+        versions.put("roster-remote-versions", clusterPresence.remoteVersions(roomId));
+        messagingTemplate.send(
+            "/user/" + sessionId + "/queue/room-users",
+            MessageBuilder.createMessage(roster.json(), SessionHeaders.json(sessionId, versions))
+        );
+    }
+
     @MessageMapping("/room/{roomId}/chat")
-    @SendTo("/topic/room/{roomId}/chat")
-    public ChatMessagePayload chat(@DestinationVariable String roomId,
-                                   @Payload ChatMessagePayload message) {
+    public void chat(@DestinationVariable String roomId,
+                     @Payload ChatMessagePayload message) {
         log.debug("Chat in room {}: {} - {}", roomId, message.nickname, message.content);
-        return message;
+        chatHistory.append(roomId, message.oderId, message.content);
+        chatSequencer.publish(roomId, message);
+    }
+
+    // Frames the client missed since the last seq it saw, e.g. after a reconnect
+    @MessageMapping("/room/{roomId}/chat/replay")
+    public void replayChat(@DestinationVariable String roomId,
+                           @Payload ChatReplayRequest request,
+                           SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        messagingTemplate.convertAndSendToUser(sessionId, "/queue/chat-replay",
+            chatSequencer.replay(roomId, request.sinceSeq), SessionHeaders.json(sessionId));
     }
 }
@@ -2,8 +2,14 @@ package com.example.backend.api;
 
 import com.example.backend.api.dto.TrackResponse;
 import com.example.backend.repository.TrackRepository;
+import com.example.backend.service.TrackSearchIndex;
+import com.example.backend.service.TrackSuggester;
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -13,15 +19,46 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/tracks")
 public class TrackController {
 
+	private static final int MAX_SEARCH_PAGE_SIZE = 100;
+	private static final int MAX_SUGGESTIONS = 20;
+	// Lets the browser answer a repeated prefix (backspace, retyping) without a request
+	private static final CacheControl SUGGEST_CACHE = CacheControl.maxAge(Duration.ofSeconds(30)).cachePrivate();
+
 	private final TrackRepository trackRepository;
+	private final TrackSearchIndex trackSearchIndex;
+	private final TrackSuggester trackSuggester;
 
-	public TrackController(TrackRepository trackRepository) {
+	public TrackController(TrackRepository trackRepository, TrackSearchIndex trackSearchIndex,
+			TrackSuggester trackSuggester) {
 		this.trackRepository = trackRepository;
+		this.trackSearchIndex = trackSearchIndex;
+		this.trackSuggester = trackSuggester;
+	}
+
+	// Typeahead: tracks whose title, artist or a title word starts with the query, most queued first.
+	@GetMapping("/suggest")
+	public ResponseEntity<List<TrackResponse>> suggest(@RequestParam(name = "query") String query,
+			@RequestParam(name = "size", defaultValue = "10") int size) {
+		int limit = Math.max(1, Math.min(size, MAX_SUGGESTIONS));
+		List<TrackResponse> suggestions = trackSuggester.isReady()
+				? trackSuggester.suggest(query, limit)
+				: trackSearchIndex.search(query, 0, limit);
+		return ResponseEntity.ok().cacheControl(SUGGEST_CACHE).body(suggestions);
 	}
 
+	// Best matches first; the LIKE query only serves requests that arrive before the index has loaded.
 	@GetMapping("/search")
-	public List<TrackResponse> search(@RequestParam(name = "query") String query) {
-		return trackRepository.findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(query, query).stream()
+	public List<TrackResponse> search(@RequestParam(name = "query") String query,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+		// Any page past the int offset range is empty anyway; clamping keeps pageNumber * pageSize from overflowing
+		int pageNumber = Math.max(0, Math.min(page, Integer.MAX_VALUE / pageSize));
+		if (trackSearchIndex.isLoaded()) {
+			return trackSearchIndex.search(query, pageNumber * pageSize, pageSize);
+		}
+		return trackRepository.findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(query, query,
+						PageRequest.of(pageNumber, pageSize)).stream()
 				.map(track -> new TrackResponse(
 						track.getId(),
 						track.getSourceType(),
@@ -0,0 +1,53 @@
+package com.example.backend.api.dto;
+
+import com.example.backend.domain.ChatMessageType;
+import java.time.LocalDateTime;
+
+public class ChatMessageResponse {
+	private Long id;
+	private Long roomId;
+	private Long userId;
+	private String nickname;
+	private ChatMessageType type;
+	private String content;
+	private LocalDateTime createdAt;
+
+	public ChatMessageResponse(Long id, Long roomId, Long userId, String nickname, ChatMessageType type,
+			String content, LocalDateTime createdAt) {
+		this.id = id;
+		this.roomId = roomId;
+		this.userId = userId;
+		this.nickname = nickname;
+		this.type = type;
+		this.content = content;
+		this.createdAt = createdAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public String getNickname() {
+		return nickname;
+	}
+
+	public ChatMessageType getType() {
+		return type;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+}
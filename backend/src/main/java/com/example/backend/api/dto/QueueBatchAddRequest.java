@@ -0,0 +1,11 @@
+package com.example.backend.api.dto;
+
+import java.util.List;
+
+public class QueueBatchAddRequest {
+	private List<QueueAddRequest> items;
+
+	public List<QueueAddRequest> getItems() {
+		return items;
+	}
+}
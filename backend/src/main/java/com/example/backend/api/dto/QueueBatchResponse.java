@@ -0,0 +1,21 @@
+package com.example.backend.api.dto;
+
+import java.util.List;
+
+public class QueueBatchResponse {
+	private long version;
+	private List<QueueItemResponse> items;
+
+	public QueueBatchResponse(long version, List<QueueItemResponse> items) {
+		this.version = version;
+		this.items = items;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public List<QueueItemResponse> getItems() {
+		return items;
+	}
+}
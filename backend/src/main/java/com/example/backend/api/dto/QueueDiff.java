@@ -0,0 +1,49 @@
+package com.example.backend.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One change to a room's queue. {@code items} holds the full state of every changed item for {@code INSERT},
+ * {@code MOVE} and {@code STATUS}, one element for a single-item change. {@code RERANK} maps item ids to their new
+ * {@code sortOrder} in {@code ranks}: every item after a rebalance, the listed items after a reorder.
+ */
+public class QueueDiff {
+	public enum Op {
+		INSERT, MOVE, STATUS, RERANK
+	}
+
+	private Long roomId;
+	private long version;
+	private Op op;
+	private List<QueueItemResponse> items;
+	private Map<Long, Integer> ranks;
+
+	public QueueDiff(Long roomId, long version, Op op, List<QueueItemResponse> items, Map<Long, Integer> ranks) {
+		this.roomId = roomId;
+		this.version = version;
+		this.op = op;
+		this.items = items;
+		this.ranks = ranks;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public Op getOp() {
+		return op;
+	}
+
+	public List<QueueItemResponse> getItems() {
+		return items;
+	}
+
+	public Map<Long, Integer> getRanks() {
+		return ranks;
+	}
+}
@@ -0,0 +1,11 @@
+package com.example.backend.api.dto;
+
+import java.util.List;
+
+public class QueueReorderRequest {
+	private List<Long> itemIds;
+
+	public List<Long> getItemIds() {
+		return itemIds;
+	}
+}
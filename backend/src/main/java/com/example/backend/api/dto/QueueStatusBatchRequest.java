@@ -0,0 +1,11 @@
+package com.example.backend.api.dto;
+
+import java.util.List;
+
+public class QueueStatusBatchRequest {
+	private List<QueueStatusChange> items;
+
+	public List<QueueStatusChange> getItems() {
+		return items;
+	}
+}
@@ -0,0 +1,16 @@
+package com.example.backend.api.dto;
+
+import com.example.backend.domain.QueueStatus;
+
+public class QueueStatusChange {
+	private Long id;
+	private QueueStatus status;
+
+	public Long getId() {
+		return id;
+	}
+
+	public QueueStatus getStatus() {
+		return status;
+	}
+}
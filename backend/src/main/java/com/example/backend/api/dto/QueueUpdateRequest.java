@@ -5,6 +5,8 @@ import com.example.backend.domain.QueueStatus;
 public class QueueUpdateRequest {
 	private QueueStatus status;
 	private Integer sortOrder;
+	private Long afterItemId;
+	private Long beforeItemId;
 
 	public QueueStatus getStatus() {
 		return status;
@@ -13,4 +15,12 @@ public class QueueUpdateRequest {
 	public Integer getSortOrder() {
 		return sortOrder;
 	}
+
+	public Long getAfterItemId() {
+		return afterItemId;
+	}
+
+	public Long getBeforeItemId() {
+		return beforeItemId;
+	}
 }
@@ -11,16 +11,23 @@ public class RoomSummaryResponse {
 	private RoomVisibility visibility;
 	private String hostNickname;
 	private long memberCount;
+	private long onlineCount;
 	private LocalDateTime createdAt;
 
 	public RoomSummaryResponse(Long id, String title, RoomMode mode, RoomVisibility visibility, String hostNickname,
 			long memberCount, LocalDateTime createdAt) {
+		this(id, title, mode, visibility, hostNickname, memberCount, 0, createdAt);
+	}
+
+	public RoomSummaryResponse(Long id, String title, RoomMode mode, RoomVisibility visibility, String hostNickname,
+			long memberCount, long onlineCount, LocalDateTime createdAt) {
 		this.id = id;
 		this.title = title;
 		this.mode = mode;
 		this.visibility = visibility;
 		this.hostNickname = hostNickname;
 		this.memberCount = memberCount;
+		this.onlineCount = onlineCount;
 		this.createdAt = createdAt;
 	}
 
@@ -48,6 +55,10 @@ public class RoomSummaryResponse {
 		return memberCount;
 	}
 
+	public long getOnlineCount() {
+		return onlineCount;
+	}
+
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,37 @@
+package com.example.backend.config;
+
+import com.example.backend.signaling.ClusterPresence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refuses client SEND and SUBSCRIBE frames for {@link ClusterPresence#CLUSTER_PREFIX}. Those destinations sit under
+ * the broker's {@code /topic} prefix, but only nodes may publish presence gossip or forwarded signals there, and a
+ * node's private destination carries other users' SDP and ICE. The rejection surfaces to the client as an ERROR
+ * frame.
+ */
+@Slf4j
+@Component
+public class ClusterDestinationGuard implements ChannelInterceptor {
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+		if (type != SimpMessageType.MESSAGE && type != SimpMessageType.SUBSCRIBE) {
+			return message;
+		}
+		String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+		if (destination != null && destination.startsWith(ClusterPresence.CLUSTER_PREFIX)) {
+			log.warn("Refused client {} to {} from session {}", type, destination,
+					SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+			throw new MessageDeliveryException(message, "Cluster destinations are not open to clients");
+		}
+		return message;
+	}
+}
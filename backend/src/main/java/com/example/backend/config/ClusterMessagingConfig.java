@@ -0,0 +1,37 @@
+package com.example.backend.config;
+
+import com.example.backend.signaling.ClusterEventHandler;
+import com.example.backend.signaling.ClusterPresence;
+import com.example.backend.signaling.PresenceRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+
+/**
+ * Subscribes the broker relay's system session to the cluster destinations, so presence gossip and forwarded
+ * signals from other nodes reach {@link ClusterEventHandler}. Runs before the relay starts and connects.
+ */
+@Configuration
+@ConditionalOnProperty(name = "messaging.broker.mode", havingValue = "relay")
+public class ClusterMessagingConfig {
+
+	@Bean
+	public SmartInitializingSingleton clusterSubscriptions(
+			@Qualifier("stompBrokerRelayMessageHandler") AbstractBrokerMessageHandler brokerRelay,
+			ClusterEventHandler clusterEventHandler, PresenceRegistry presenceRegistry) {
+		return () -> {
+			StompBrokerRelayMessageHandler relay = (StompBrokerRelayMessageHandler) brokerRelay;
+			Map<String, MessageHandler> subscriptions = new HashMap<>(relay.getSystemSubscriptions());
+			subscriptions.put(ClusterPresence.PRESENCE_DESTINATION, clusterEventHandler);
+			subscriptions.put(ClusterPresence.NODE_DESTINATION_PREFIX + presenceRegistry.nodeId(), clusterEventHandler);
+			relay.setSystemSubscriptions(subscriptions);
+		};
+	}
+}
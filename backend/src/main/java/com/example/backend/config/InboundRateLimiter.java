@@ -0,0 +1,207 @@
+package com.example.backend.config;
+
+import com.example.backend.service.RoomEmptiedEvent;
+import com.example.backend.signaling.PresenceRegistry;
+import com.example.backend.signaling.SessionHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Token-bucket flood control for {@code /app/room/{roomId}/...} frames, applied on the inbound channel before a
+ * frame is handed to the executor. Chat, signal and join frames have separate budgets, each enforced per session
+ * and per room ({@code messaging.rate-limit.<kind>.session} / {@code .room}, as {@code perSecond,burst}). A frame
+ * over either budget is dropped and counted in {@code websocket.inbound.throttled}; a dropped join or roster
+ * request is answered on {@code /user/queue/errors}, since the client would otherwise wait for a roster forever.
+ * <p>
+ * Room budgets are keyed by room id, so no room can be starved through another room's frames. A room's buckets are
+ * created by its first join or roster frame on this node; chat and signal frames for a room nobody joined here
+ * only have the session budget. Buckets are dropped when the room empties ({@link RoomEmptiedEvent}) or, every
+ * {@code messaging.rate-limit.room-sweep-ms}, once this node has no presence left in the room. Tokens are kept as
+ * primitive milli-token counters.
+ */
+@Component
+public class InboundRateLimiter implements ChannelInterceptor {
+
+	private static final String ROOM_PREFIX = "/app/room/";
+	private static final String ERRORS_DESTINATION = "/queue/errors";
+	private static final int CHAT = 0;
+	private static final int SIGNAL = 1;
+	private static final int JOIN = 2;
+	private static final int KINDS = 3;
+	private static final String[] KIND_NAMES = {"chat", "signal", "join"};
+	private static final long MILLI = 1000;
+
+	private final boolean enabled;
+	private final long[] sessionRate = new long[KINDS];
+	private final long[] sessionBurst = new long[KINDS];
+	private final long[] roomRate = new long[KINDS];
+	private final long[] roomBurst = new long[KINDS];
+	private final PresenceRegistry presenceRegistry;
+	private final SimpMessagingTemplate messagingTemplate;
+	private final Map<String, Bucket[]> rooms = new ConcurrentHashMap<>();
+	private final Map<String, Bucket[]> sessions = new ConcurrentHashMap<>();
+	private final Counter[] sessionThrottled = new Counter[KINDS];
+	private final Counter[] roomThrottled = new Counter[KINDS];
+
+	// The broker template is built from the same configuration that registers this interceptor, hence @Lazy
+	public InboundRateLimiter(MeterRegistry meterRegistry, PresenceRegistry presenceRegistry,
+			@Lazy SimpMessagingTemplate messagingTemplate,
+			@Value("${messaging.rate-limit.enabled:true}") boolean enabled,
+			@Value("${messaging.rate-limit.chat.session:5,10}") long[] chatSession,
+			@Value("${messaging.rate-limit.chat.room:50,100}") long[] chatRoom,
+			@Value("${messaging.rate-limit.signal.session:50,200}") long[] signalSession,
+			@Value("${messaging.rate-limit.signal.room:500,1000}") long[] signalRoom,
+			@Value("${messaging.rate-limit.join.session:1,5}") long[] joinSession,
+			@Value("${messaging.rate-limit.join.room:20,40}") long[] joinRoom) {
+		this.presenceRegistry = presenceRegistry;
+		this.messagingTemplate = messagingTemplate;
+		this.enabled = enabled;
+		budget(CHAT, chatSession, chatRoom);
+		budget(SIGNAL, signalSession, signalRoom);
+		budget(JOIN, joinSession, joinRoom);
+		for (int kind = 0; kind < KINDS; kind++) {
+			sessionThrottled[kind] = meterRegistry.counter("websocket.inbound.throttled",
+					"kind", KIND_NAMES[kind], "scope", "session");
+			roomThrottled[kind] = meterRegistry.counter("websocket.inbound.throttled",
+					"kind", KIND_NAMES[kind], "scope", "room");
+		}
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		if (!enabled) {
+			return message;
+		}
+		String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+		if (destination == null || !destination.startsWith(ROOM_PREFIX)) {
+			return message;
+		}
+		int roomEnd = destination.indexOf('/', ROOM_PREFIX.length());
+		int kind = roomEnd < 0 ? -1 : kindOf(destination, roomEnd);
+		if (kind < 0) {
+			return message;
+		}
+		long now = System.nanoTime();
+		String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+		Bucket session = null;
+		if (sessionId != null) {
+			Bucket[] buckets = sessions.get(sessionId);
+			if (buckets == null) {
+				buckets = sessions.computeIfAbsent(sessionId, id -> newBuckets(sessionBurst, now));
+			}
+			session = buckets[kind];
+			if (!session.tryAcquire(now, sessionRate[kind], sessionBurst[kind] * MILLI)) {
+				sessionThrottled[kind].increment();
+				return rejected(sessionId, destination, kind);
+			}
+		}
+		String roomId = destination.substring(ROOM_PREFIX.length(), roomEnd);
+		Bucket[] room = kind == JOIN ? rooms.computeIfAbsent(roomId, id -> newBuckets(roomBurst, now))
+				: rooms.get(roomId);
+		if (room != null && !room[kind].tryAcquire(now, roomRate[kind], roomBurst[kind] * MILLI)) {
+			// The frame never ran, so it should not count against the sender
+			if (session != null) {
+				session.refund(sessionBurst[kind] * MILLI);
+			}
+			roomThrottled[kind].increment();
+			return rejected(sessionId, destination, kind);
+		}
+		return message;
+	}
+
+	@EventListener
+	public void onDisconnect(SessionDisconnectEvent event) {
+		sessions.remove(event.getSessionId());
+	}
+
+	@EventListener
+	public void onRoomEmptied(RoomEmptiedEvent event) {
+		rooms.remove(event.roomId().toString());
+	}
+
+	@Scheduled(fixedDelayString = "${messaging.rate-limit.room-sweep-ms:60000}")
+	public void sweep() {
+		rooms.keySet().removeIf(roomId -> !presenceRegistry.isOccupied(roomId));
+	}
+
+	// Join and roster requests change state; the client must learn they were not applied
+	private Message<?> rejected(String sessionId, String destination, int kind) {
+		if (kind == JOIN && sessionId != null) {
+			messagingTemplate.convertAndSendToUser(sessionId, ERRORS_DESTINATION,
+					Map.of("destination", destination, "error", "rate-limited"), SessionHeaders.json(sessionId));
+		}
+		return null;
+	}
+
+	private void budget(int kind, long[] session, long[] room) {
+		sessionRate[kind] = session[0];
+		sessionBurst[kind] = session[1];
+		roomRate[kind] = room[0];
+		roomBurst[kind] = room[1];
+	}
+
+	private static Bucket[] newBuckets(long[] burst, long now) {
+		Bucket[] buckets = new Bucket[KINDS];
+		for (int kind = 0; kind < KINDS; kind++) {
+			buckets[kind] = new Bucket(burst[kind] * MILLI, now);
+		}
+		return buckets;
+	}
+
+	// Suffix after /app/room/{roomId}: chat and chat/replay, signal, join and roster resync.
+	private static int kindOf(String destination, int roomEnd) {
+		int suffix = roomEnd + 1;
+		if (destination.startsWith("chat", suffix)) {
+			return CHAT;
+		}
+		if (destination.startsWith("signal", suffix)) {
+			return SIGNAL;
+		}
+		if (destination.startsWith("join", suffix) || destination.startsWith("roster", suffix)) {
+			return JOIN;
+		}
+		return -1;
+	}
+
+	private static final class Bucket {
+		private long milliTokens;
+		private long lastNanos;
+
+		private Bucket(long milliTokens, long lastNanos) {
+			this.milliTokens = milliTokens;
+			this.lastNanos = lastNanos;
+		}
+
+		private synchronized boolean tryAcquire(long now, long perSecond, long capacity) {
+			long elapsed = now - lastNanos;
+			if (elapsed > 0) {
+				// Anything past a full refill is capped anyway; bounding it keeps the product from overflowing.
+				long refill = elapsed >= 1_000_000_000_000L ? capacity : elapsed * perSecond / 1_000_000;
+				milliTokens = Math.min(capacity, milliTokens + refill);
+				lastNanos = now;
+			}
+			if (milliTokens < MILLI) {
+				return false;
+			}
+			milliTokens -= MILLI;
+			return true;
+		}
+
+		private synchronized void refund(long capacity) {
+			milliTokens = Math.min(capacity, milliTokens + MILLI);
+		}
+	}
+}
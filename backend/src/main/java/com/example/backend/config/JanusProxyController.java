@@ -1,106 +1,229 @@
 package com.example.backend.config;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import com.example.backend.janus.JanusClient;
+import com.example.backend.janus.JanusEventBridge;
+import com.example.backend.janus.JanusGateway;
+import com.example.backend.janus.JanusGatewayPool;
+import com.example.backend.janus.JanusKeepalive;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClientResponse;
 
 /**
  * Janus Gateway HTTP 프록시
- * 프론트엔드에서 /janus/** 요청을 외부 Janus 서버로 프록시합니다.
+ * 프론트엔드에서 /janus/** 요청을 Janus 게이트웨이 풀({@link JanusGatewayPool})로 프록시합니다.
+ * 업스트림 호출은 논블로킹 커넥션 풀({@link JanusClient})에서 처리하고, 응답은 비동기 서블릿 응답으로
+ * 받은 조각 그대로 흘려보내므로 Long Polling 대기 중에도 서블릿 스레드를 점유하지 않습니다.
+ * 이 노드가 아는 세션의 keepalive는 {@link JanusKeepalive}가 직접 응답하고 업스트림에는 세션당 한 번씩만 보냅니다.
+ * {@link JanusEventBridge}가 이벤트를 STOMP로 전달 중인 세션의 Long Polling GET은 업스트림에 보내지 않고 거절합니다.
  */
 @RestController
 @RequestMapping("/janus")
 public class JanusProxyController {
 
-    private static final String JANUS_SERVER_URL = "https://janus.jsflux.co.kr/janus";
-    private final RestTemplate restTemplate;
+    // 업스트림 타임아웃 뒤에 에러 응답을 보낼 여유
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 5000;
 
-    public JanusProxyController() {
-        this.restTemplate = new RestTemplate();
+    private final JanusClient janusClient;
+    private final JanusGatewayPool gatewayPool;
+    private final JanusKeepalive keepalive;
+    private final JanusEventBridge eventBridge;
+
+    public JanusProxyController(JanusClient janusClient, JanusGatewayPool gatewayPool, JanusKeepalive keepalive,
+                                JanusEventBridge eventBridge) {
+        this.janusClient = janusClient;
+        this.gatewayPool = gatewayPool;
+        this.keepalive = keepalive;
+        this.eventBridge = eventBridge;
     }
 
     /**
      * Janus HTTP API 프록시 (POST)
      * Janus Long Polling 및 일반 API 요청 처리
+     * /rooms/{room} 경로로 세션을 만들면 같은 방의 세션은 모두 같은 Janus 인스턴스로 갑니다.
      */
-    @PostMapping(value = {"", "/{sessionId}", "/{sessionId}/{handleId}"}, 
+    @PostMapping(value = {"", "/{sessionId}", "/{sessionId}/{handleId}",
+                          "/rooms/{room}", "/rooms/{room}/{sessionId}", "/rooms/{room}/{sessionId}/{handleId}"},
                  consumes = MediaType.APPLICATION_JSON_VALUE,
                  produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> proxyPost(
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> proxyPost(
+            @PathVariable(required = false) String room,
             @PathVariable(required = false) Long sessionId,
             @PathVariable(required = false) Long handleId,
-            @RequestBody(required = false) String body) {
-        
-        String targetUrl = buildTargetUrl(sessionId, handleId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-        
-        try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    targetUrl, HttpMethod.POST, entity, String.class);
-            return ResponseEntity.status(response.getStatusCode())
-                    .headers(filterHeaders(response.getHeaders()))
-                    .body(response.getBody());
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body("{\"janus\":\"error\",\"error\":{\"code\":500,\"reason\":\"Proxy error: " + e.getMessage() + "\"}}");
+            @RequestBody(required = false) String body,
+            HttpServletRequest request) {
+
+        if (sessionId != null) {
+            byte[] ack = handleId == null ? keepalive.absorb(sessionId, body) : null;
+            if (ack != null) {
+                DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>();
+                result.setResult(localResponse(HttpStatus.OK, ack));
+                return result;
+            }
+            keepalive.forwarded(sessionId);
+        }
+        JanusGateway gateway = sessionId == null
+                ? gatewayPool.forNewSession(room)
+                : gatewayPool.forSession(sessionId, room);
+        if (gateway == null) {
+            return noSuchSession();
         }
+        // 세션을 만든 클라이언트(HTTP 세션)를 기록해 두고, 이벤트 브리지는 같은 클라이언트에게만 연결합니다.
+        String owner = sessionId == null ? request.getSession().getId() : null;
+        String targetUrl = gateway.url(buildTargetUri(sessionId, handleId));
+        return relay(onResponse -> janusClient.post(targetUrl, body, onResponse),
+                response -> {
+                    Long created = gatewayPool.record(gateway, sessionId, handleId, room, owner, body, response);
+                    if (created != null) {
+                        keepalive.created(created);
+                    }
+                });
     }
 
     /**
      * Janus HTTP API 프록시 (GET) - Long Polling용
      */
-    @GetMapping(value = {"/{sessionId}", "/{sessionId}/{handleId}"}, 
+    @GetMapping(value = {"/{sessionId}", "/{sessionId}/{handleId}",
+                         "/rooms/{room}/{sessionId}", "/rooms/{room}/{sessionId}/{handleId}"},
                 produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> proxyGet(
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> proxyGet(
+            @PathVariable(required = false) String room,
             @PathVariable Long sessionId,
             @PathVariable(required = false) Long handleId,
             @RequestParam(required = false) Long maxev) {
-        
-        String targetUrl = buildTargetUrl(sessionId, handleId);
+
+        // 브리지가 이미 업스트림을 폴링 중: 두 번째 폴링은 이벤트를 나눠 가져가 STOMP 쪽에서 이벤트가 빠집니다
+        if (handleId == null && eventBridge.isBridged(sessionId)) {
+            DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>();
+            result.setResult(errorResponse(HttpStatus.CONFLICT,
+                    "Session events are delivered on /user" + JanusEventBridge.DESTINATION));
+            return result;
+        }
+        String targetUri = buildTargetUri(sessionId, handleId);
         if (maxev != null) {
-            targetUrl += "?maxev=" + maxev;
+            targetUri += "?maxev=" + maxev;
+        }
+        JanusGateway gateway = gatewayPool.forSession(sessionId, room);
+        if (gateway == null) {
+            return noSuchSession();
         }
-        
-        HttpHeaders headers = new HttpHeaders();
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-        
+        String targetUrl = gateway.url(targetUri);
+        keepalive.forwarded(sessionId);
+        // 핸들 없는 세션 GET이 Janus Long Polling
+        return relay(onResponse -> janusClient.get(targetUrl, handleId == null, onResponse), null);
+    }
+
+    /**
+     * 업스트림 상태 코드를 받는 즉시 응답을 시작하고, 본문 조각은 도착하는 대로 전달합니다.
+     * 클라이언트가 끊거나 타임아웃이 나면 업스트림 요청도 취소합니다.
+     * onBody가 있으면 전달한 본문 전체를 응답 완료 직전에 넘겨줍니다 (게이트웨이 라우팅/부하 집계용).
+     */
+    private DeferredResult<ResponseEntity<ResponseBodyEmitter>> relay(
+            Function<Consumer<HttpClientResponse>, Flux<byte[]>> call, Consumer<byte[]> onBody) {
+        long timeoutMs = janusClient.longPollTimeoutMs() + ASYNC_TIMEOUT_MARGIN_MS;
+        DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>(timeoutMs,
+                () -> errorResponse(HttpStatus.GATEWAY_TIMEOUT, "Proxy timeout"));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMs);
+        ByteArrayOutputStream copy = onBody == null ? null : new ByteArrayOutputStream();
+        // onBody는 정확히 한 번: 정상 완료, 에러, 취소(타임아웃/클라이언트 종료) 중 먼저 일어난 쪽에서 호출
+        AtomicBoolean recorded = new AtomicBoolean();
+        Consumer<byte[]> record = body -> {
+            if (onBody != null && recorded.compareAndSet(false, true)) {
+                onBody.accept(body);
+            }
+        };
+
+        Disposable upstream = call.apply(response -> result.setResult(ResponseEntity
+                        .status(response.status().code())
+                        .contentType(contentType(response))
+                        .body(emitter)))
+                // 취소되면 빈 본문으로 기록해 create가 잡아 둔 방 예약을 돌려줍니다
+                .doFinally(signal -> record.accept(new byte[0]))
+                .subscribe(
+                        chunk -> {
+                            if (copy != null) {
+                                copy.writeBytes(chunk);
+                            }
+                            send(emitter, chunk);
+                        },
+                        error -> {
+                            record.accept(new byte[0]);
+                            if (!result.setResult(errorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
+                                    "Proxy error: " + error.getMessage()))) {
+                                emitter.completeWithError(error);
+                            }
+                        },
+                        () -> {
+                            // 클라이언트가 세션 ID를 받기 전에 라우팅이 먼저 잡히도록 완료 전에 기록
+                            if (copy != null) {
+                                record.accept(copy.toByteArray());
+                            }
+                            emitter.complete();
+                        });
+
+        result.onTimeout(upstream::dispose);
+        emitter.onTimeout(upstream::dispose);
+        emitter.onError(error -> upstream.dispose());
+        return result;
+    }
+
+    // 이 노드가 라우팅을 모르는 세션: 아무 게이트웨이로나 보내지 않고 Janus와 같은 "No such session"으로 답합니다
+    private DeferredResult<ResponseEntity<ResponseBodyEmitter>> noSuchSession() {
+        DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>();
+        result.setResult(localResponse(HttpStatus.NOT_FOUND,
+                "{\"janus\":\"error\",\"error\":{\"code\":458,\"reason\":\"No such session\"}}"
+                        .getBytes(StandardCharsets.UTF_8)));
+        return result;
+    }
+
+    private void send(ResponseBodyEmitter emitter, byte[] chunk) {
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    targetUrl, HttpMethod.GET, entity, String.class);
-            return ResponseEntity.status(response.getStatusCode())
-                    .headers(filterHeaders(response.getHeaders()))
-                    .body(response.getBody());
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body("{\"janus\":\"error\",\"error\":{\"code\":500,\"reason\":\"Proxy error: " + e.getMessage() + "\"}}");
+            emitter.send(chunk, MediaType.APPLICATION_JSON);
+        } catch (IOException e) {
+            // 클라이언트 연결 종료: 컨테이너가 onError를 호출하고 거기서 업스트림을 정리합니다.
         }
     }
 
-    private String buildTargetUrl(Long sessionId, Long handleId) {
-        StringBuilder url = new StringBuilder(JANUS_SERVER_URL);
+    private ResponseEntity<ResponseBodyEmitter> errorResponse(HttpStatus status, String reason) {
+        String body = "{\"janus\":\"error\",\"error\":{\"code\":" + status.value()
+                + ",\"reason\":\"" + reason.replace("\"", "'") + "\"}}";
+        return localResponse(status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> localResponse(HttpStatus status, byte[] body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        send(emitter, body);
+        emitter.complete();
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(emitter);
+    }
+
+    private String buildTargetUri(Long sessionId, Long handleId) {
+        StringBuilder uri = new StringBuilder();
         if (sessionId != null) {
-            url.append("/").append(sessionId);
+            uri.append("/").append(sessionId);
             if (handleId != null) {
-                url.append("/").append(handleId);
+                uri.append("/").append(handleId);
             }
         }
-        return url.toString();
+        return uri.toString();
     }
 
-    private HttpHeaders filterHeaders(HttpHeaders original) {
-        HttpHeaders filtered = new HttpHeaders();
+    private MediaType contentType(HttpClientResponse response) {
         // Content-Type만 전달 (CORS 관련 헤더는 WebConfig에서 처리)
-        if (original.getContentType() != null) {
-            filtered.setContentType(original.getContentType());
-        }
-        return filtered;
+        String contentType = response.responseHeaders().get("Content-Type");
+        return contentType == null ? MediaType.APPLICATION_JSON : MediaType.parseMediaType(contentType);
     }
 }
@@ -0,0 +1,208 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Serializes each session's frames on the client outbound channel and bounds how many may wait. A session has at
+ * most one frame on the outbound executor; the rest wait in publish order in a per-session queue of up to
+ * {@code messaging.transport.max-queued-per-session} frames, and the next one is dispatched when the previous has
+ * been handled. A session that overflows the bound is closed with {@link CloseStatus#SESSION_NOT_RELIABLE}, the
+ * same way the transport closes one that exceeds its send-time or buffer limit: losing frames silently would leave
+ * the client with a half-applied SDP exchange or a stale roster, while a close makes it reconnect and resync. Its
+ * remaining frames are dropped and counted, so one stalled consumer neither grows the heap nor ties up the executor
+ * for the whole room.
+ * <p>
+ * Sessions are tracked from the moment their socket connects, through the handler decorator registered in
+ * {@link WebSocketConfig}, until it disconnects; frames for any other session id pass through untouched. This
+ * replaces Spring's {@code preservePublishOrder}, whose per-session queue is unbounded and invisible to channel
+ * interceptors. Totals are published as Micrometer meters; per-session depth and drops are readable from the
+ * {@code stompsessions} actuator endpoint.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "stompsessions")
+public class OutboundSessionMonitor implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+	private final int maxQueuedPerSession;
+	private final Map<String, SessionStats> sessions = new ConcurrentHashMap<>();
+	private final Counter droppedFrames;
+	private final Counter overflowClosed;
+
+	public OutboundSessionMonitor(MeterRegistry meterRegistry,
+			@Value("${messaging.transport.max-queued-per-session:256}") int maxQueuedPerSession) {
+		this.maxQueuedPerSession = maxQueuedPerSession;
+		this.droppedFrames = meterRegistry.counter("websocket.outbound.dropped");
+		this.overflowClosed = meterRegistry.counter("websocket.outbound.overflow.closed");
+		Gauge.builder("websocket.outbound.queued", sessions,
+				stats -> stats.values().stream().mapToInt(SessionStats::queued).sum())
+				.register(meterRegistry);
+		Gauge.builder("websocket.outbound.queued.max", sessions,
+				stats -> stats.values().stream().mapToInt(SessionStats::queued).max().orElse(0))
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+		if (sessionId == null) {
+			return message;
+		}
+		SessionStats stats = sessions.get(sessionId);
+		if (stats == null) {
+			return message;
+		}
+		boolean overflowed;
+		synchronized (stats) {
+			if (stats.releasing == message) {
+				// The queued head, re-sent by release()
+				stats.releasing = null;
+				return message;
+			}
+			if (!stats.closing && stats.pending.size() < maxQueuedPerSession) {
+				stats.pending.add(message);
+				// Only the head goes to the executor; the rest wait for it to be handled
+				return stats.pending.size() == 1 ? message : null;
+			}
+			int dropped = 1;
+			overflowed = !stats.closing;
+			if (overflowed) {
+				// Keep only the head, which is already on the executor
+				while (stats.pending.size() > 1) {
+					stats.pending.pollLast();
+					dropped++;
+				}
+				stats.closing = true;
+			}
+			stats.dropped += dropped;
+			droppedFrames.increment(dropped);
+		}
+		if (overflowed) {
+			close(sessionId, stats.socket);
+		}
+		return null;
+	}
+
+	@Override
+	public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+		// Rejected by the executor, so afterMessageHandled will not run for it.
+		if (!sent) {
+			release(message, channel);
+		}
+	}
+
+	@Override
+	public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+			Exception ex) {
+		release(message, channel);
+	}
+
+	@Override
+	public WebSocketHandler decorate(WebSocketHandler handler) {
+		return new WebSocketHandlerDecorator(handler) {
+			@Override
+			public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+				opened(session);
+				super.afterConnectionEstablished(session);
+			}
+
+			@Override
+			public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+				super.afterConnectionClosed(session, closeStatus);
+				sessions.remove(session.getId());
+			}
+		};
+	}
+
+	// The socket's id is the STOMP session id of the frames sent to it
+	void opened(WebSocketSession session) {
+		sessions.put(session.getId(), new SessionStats(session));
+	}
+
+	@EventListener
+	public void onDisconnect(SessionDisconnectEvent event) {
+		sessions.remove(event.getSessionId());
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Long>> sessions() {
+		Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+		sessions.forEach((sessionId, stats) -> {
+			synchronized (stats) {
+				snapshot.put(sessionId, Map.of("queued", (long) stats.pending.size(), "dropped", stats.dropped));
+			}
+		});
+		return snapshot;
+	}
+
+	private void close(String sessionId, WebSocketSession socket) {
+		overflowClosed.increment();
+		log.warn("Closing WebSocket session {}: more than {} outbound frames queued", sessionId, maxQueuedPerSession);
+		try {
+			socket.close(CloseStatus.SESSION_NOT_RELIABLE);
+		} catch (IOException e) {
+			log.debug("Failed to close WebSocket session {}", sessionId, e);
+		}
+	}
+
+	private void release(Message<?> message, MessageChannel channel) {
+		String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+		SessionStats stats = sessionId == null ? null : sessions.get(sessionId);
+		if (stats == null) {
+			return;
+		}
+		Message<?> next;
+		synchronized (stats) {
+			if (stats.pending.peek() != message) {
+				return;
+			}
+			stats.pending.poll();
+			next = stats.pending.peek();
+			stats.releasing = next;
+		}
+		if (next != null) {
+			channel.send(next);
+		}
+	}
+
+	private static final class SessionStats {
+		private final WebSocketSession socket;
+		// Head is the frame on the executor; guarded by the instance lock
+		private final Deque<Message<?>> pending = new ArrayDeque<>();
+		private Message<?> releasing;
+		private long dropped;
+		private boolean closing;
+
+		private SessionStats(WebSocketSession socket) {
+			this.socket = socket;
+		}
+
+		private synchronized int queued() {
+			return pending.size();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.example.backend.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * The STOMP configuration registers its own {@code messageBrokerTaskScheduler}, which makes Boot back off from
+ * creating the default one and leaves {@code @Scheduled} jobs on the broker's scheduler. Declare the application
+ * scheduler explicitly so {@code spring.task.scheduling.*} applies and background jobs stay off broker threads.
+ */
+@Configuration
+public class SchedulingConfig {
+
+	@Bean
+	public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+		return builder.build();
+	}
+}
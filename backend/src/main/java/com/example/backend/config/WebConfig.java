@@ -13,6 +13,7 @@ public class WebConfig implements WebMvcConfigurer {
 				.allowedOriginPatterns("http://localhost:*", "https://localhost:*", "http://127.0.0.1:*", "https://127.0.0.1:*")
 				.allowedMethods("GET", "POST", "PATCH", "DELETE", "OPTIONS")
 				.allowedHeaders("*")
+				.exposedHeaders("X-Queue-Version")
 				.allowCredentials(true);
 	}
 }
@@ -1,29 +1,169 @@
 package com.example.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${messaging.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${messaging.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${messaging.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${messaging.broker.login:guest}")
+    private String brokerLogin;
+
+    @Value("${messaging.broker.passcode:guest}")
+    private String brokerPasscode;
+
+    @Value("${messaging.transport.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${messaging.transport.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${messaging.transport.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${messaging.transport.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${messaging.transport.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${messaging.transport.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${messaging.transport.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${messaging.transport.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${messaging.transport.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+
+    @Value("${messaging.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${messaging.transport.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    private final OutboundSessionMonitor outboundSessionMonitor;
+    private final InboundRateLimiter inboundRateLimiter;
+    private final ClusterDestinationGuard clusterDestinationGuard;
+
+    public WebSocketConfig(OutboundSessionMonitor outboundSessionMonitor, InboundRateLimiter inboundRateLimiter,
+                           ClusterDestinationGuard clusterDestinationGuard) {
+        this.outboundSessionMonitor = outboundSessionMonitor;
+        this.inboundRateLimiter = inboundRateLimiter;
+        this.clusterDestinationGuard = clusterDestinationGuard;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // External STOMP broker: topics fan out to every backend node
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(brokerLogin)
+                    .setClientPasscode(brokerPasscode)
+                    .setSystemLogin(brokerLogin)
+                    .setSystemPasscode(brokerPasscode);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setTaskScheduler(brokerHeartbeatScheduler())
+                    .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs});
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        // Outbound runs on a pool; OutboundSessionMonitor keeps each session's frames in publish order (SDP before
+        // its ICE candidates) with a bounded queue, so Spring's unbounded preservePublishOrder is not used
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Both run on the socket thread: cluster destinations are refused before anything else, and throttled
+        // frames never reach the executor
+        registration.taskExecutor(channelExecutor("ws-inbound-",
+                inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity))
+                .interceptors(clusterDestinationGuard, inboundRateLimiter);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("ws-outbound-",
+                outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity))
+                .interceptors(outboundSessionMonitor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A client that cannot drain its buffer within these limits is disconnected; the decorator hands each socket
+        // to OutboundSessionMonitor, which closes it when its outbound queue overflows
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundSessionMonitor);
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler brokerHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        return scheduler;
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String threadNamePrefix, int corePoolSize, int maxPoolSize,
+                                                   int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        if (virtualThreads) {
+            // Blocking sends park a virtual thread instead of a pool thread; the pool only bounds concurrency
+            executor.setThreadFactory(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        }
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
+                .addInterceptors(httpSessionHandshake())
                 .withSockJS();
         
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(httpSessionHandshake());
+    }
+
+    // Ties the socket to the browser's HTTP session; JanusEventController checks it against the creator of a
+    // Janus session
+    private static HttpSessionHandshakeInterceptor httpSessionHandshake() {
+        HttpSessionHandshakeInterceptor interceptor = new HttpSessionHandshakeInterceptor();
+        interceptor.setCreateSession(true);
+        return interceptor;
     }
 }
@@ -4,27 +4,38 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_message")
+@Table(
+		name = "chat_message",
+		indexes = {
+				@Index(name = "idx_chat_room_created_id", columnList = "room_id, created_at, id")
+		}
+)
 public class ChatMessage {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "chat_message_ids")
+	@TableGenerator(name = "chat_message_ids", table = IdBlock.TABLE, pkColumnName = IdBlock.SEGMENT_COLUMN,
+			valueColumnName = IdBlock.VALUE_COLUMN, pkColumnValue = IdBlock.CHAT_MESSAGE,
+			allocationSize = IdBlock.ALLOCATION_SIZE)
 	private Long id;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "room_id", nullable = false)
 	private Room room;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "user_id", nullable = false)
 	private AppUser user;
 
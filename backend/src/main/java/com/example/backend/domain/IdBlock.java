@@ -0,0 +1,24 @@
+package com.example.backend.domain;
+
+/**
+ * The {@code id_block} table behind the ids of the write-heavy entities. Each entity's {@code @TableGenerator} owns
+ * one row, keyed by its table name, whose {@code next_val} is the first id nobody has reserved yet; Hibernate and
+ * {@link com.example.backend.service.IdBlocks} both take ranges from it, so JPA saves and JDBC batch inserts never
+ * collide. Unlike {@code IDENTITY}, the id is known before the insert, which lets Hibernate batch the inserts.
+ */
+public final class IdBlock {
+
+	public static final String TABLE = "id_block";
+	public static final String SEGMENT_COLUMN = "segment_name";
+	public static final String VALUE_COLUMN = "next_val";
+	// Ids Hibernate reserves per round trip to id_block
+	public static final int ALLOCATION_SIZE = 50;
+
+	public static final String CHAT_MESSAGE = "chat_message";
+	public static final String QUEUE_ITEM = "queue_item";
+	public static final String ROOM_MEMBER = "room_member";
+	public static final String RECORDING = "recording";
+
+	private IdBlock() {
+	}
+}
@@ -2,6 +2,7 @@ package com.example.backend.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapsId;
@@ -16,12 +17,12 @@ public class PlaybackState {
 	@Id
 	private Long roomId;
 
-	@OneToOne(optional = false)
+	@OneToOne(fetch = FetchType.LAZY, optional = false)
 	@MapsId
 	@JoinColumn(name = "room_id")
 	private Room room;
 
-	@OneToOne
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "track_id")
 	private Track track;
 
@@ -4,31 +4,42 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "queue_item")
+@Table(
+		name = "queue_item",
+		uniqueConstraints = {
+				@UniqueConstraint(name = "uk_queue_item_room_sort", columnNames = {"room_id", "sort_order"})
+		}
+)
 public class QueueItem {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "queue_item_ids")
+	@TableGenerator(name = "queue_item_ids", table = IdBlock.TABLE, pkColumnName = IdBlock.SEGMENT_COLUMN,
+			valueColumnName = IdBlock.VALUE_COLUMN, pkColumnValue = IdBlock.QUEUE_ITEM,
+			allocationSize = IdBlock.ALLOCATION_SIZE)
 	private Long id;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "room_id", nullable = false)
 	private Room room;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "track_id", nullable = false)
 	private Track track;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "requested_by", nullable = false)
 	private AppUser requestedBy;
 
@@ -2,12 +2,14 @@ package com.example.backend.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.time.LocalDateTime;
 
 @Entity
@@ -15,14 +17,17 @@ import java.time.LocalDateTime;
 public class Recording {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "recording_ids")
+	@TableGenerator(name = "recording_ids", table = IdBlock.TABLE, pkColumnName = IdBlock.SEGMENT_COLUMN,
+			valueColumnName = IdBlock.VALUE_COLUMN, pkColumnValue = IdBlock.RECORDING,
+			allocationSize = IdBlock.ALLOCATION_SIZE)
 	private Long id;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "room_id", nullable = false)
 	private Room room;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "owner_id", nullable = false)
 	private AppUser owner;
 
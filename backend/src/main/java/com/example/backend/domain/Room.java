@@ -4,16 +4,23 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "room")
+@Table(
+		name = "room",
+		indexes = {
+				@Index(name = "idx_room_mode_visibility_id", columnList = "mode, visibility, id")
+		}
+)
 public class Room {
 
 	@Id
@@ -34,13 +41,16 @@ public class Room {
 	@Column(name = "password_hash", length = 255)
 	private String passwordHash;
 
-	@ManyToOne(optional = false)
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
 	@JoinColumn(name = "host_id", nullable = false)
 	private AppUser host;
 
 	@Column(name = "created_at", nullable = false)
 	private LocalDateTime createdAt;
 
+	@Column(name = "queue_version", nullable = false)
+	private long queueVersion;
+
 	protected Room() {
 	}
 
@@ -80,4 +90,8 @@ public class Room {
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
+
+	public long getQueueVersion() {
+		return queueVersion;
+	}
 }
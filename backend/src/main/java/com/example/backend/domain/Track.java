@@ -1,7 +1,9 @@
 package com.example.backend.domain;
 
+import com.example.backend.service.TrackChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +13,7 @@ import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "track")
+@EntityListeners(TrackChangeListener.class)
 public class Track {
 
 	@Id
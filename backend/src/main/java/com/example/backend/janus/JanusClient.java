@@ -0,0 +1,112 @@
+package com.example.backend.janus;
+
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking HTTP client for the Janus REST API on a bounded keep-alive connection pool shared by every gateway
+ * in {@link JanusGatewayPool}; callers pass absolute URLs from {@link JanusGateway#url}. Responses are exposed
+ * as a stream of body chunks, so callers can relay them without buffering the whole body and without holding a
+ * thread while Janus is still holding a long poll.
+ */
+@Component
+public class JanusClient implements DisposableBean {
+
+	private final ConnectionProvider connectionProvider;
+	private final HttpClient httpClient;
+	private final HttpClient longPollClient;
+	private final long longPollTimeoutMs;
+
+	public JanusClient(@Value("${janus.client.max-connections:500}") int maxConnections,
+			@Value("${janus.client.max-idle-ms:30000}") long maxIdleMs,
+			@Value("${janus.client.connect-timeout-ms:3000}") int connectTimeoutMs,
+			@Value("${janus.client.response-timeout-ms:10000}") long responseTimeoutMs,
+			@Value("${janus.client.long-poll-timeout-ms:65000}") long longPollTimeoutMs) {
+		this.connectionProvider = ConnectionProvider.builder("janus")
+				.maxConnections(maxConnections)
+				.maxIdleTime(Duration.ofMillis(maxIdleMs))
+				.pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
+		HttpClient base = HttpClient.create(connectionProvider)
+				.keepAlive(true)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+		this.httpClient = base.responseTimeout(Duration.ofMillis(responseTimeoutMs));
+		// Janus holds a GET for up to 30 s when there are no events
+		this.longPollClient = base.responseTimeout(Duration.ofMillis(longPollTimeoutMs));
+		this.longPollTimeoutMs = longPollTimeoutMs;
+	}
+
+	public long longPollTimeoutMs() {
+		return longPollTimeoutMs;
+	}
+
+	/**
+	 * POSTs a JSON body to {@code url}. {@code onResponse} sees the status and headers before the first body chunk
+	 * is emitted.
+	 */
+	public Flux<byte[]> post(String url, String body, Consumer<HttpClientResponse> onResponse) {
+		return httpClient
+				.headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+				.post()
+				.uri(url)
+				.send(ByteBufFlux.fromString(Mono.justOrEmpty(body)))
+				.response((response, content) -> {
+					onResponse.accept(response);
+					return content.asByteArray();
+				});
+	}
+
+	/**
+	 * GETs {@code url}; a long poll gets {@code janus.client.long-poll-timeout-ms} instead of the normal response
+	 * timeout.
+	 */
+	public Flux<byte[]> get(String url, boolean longPoll, Consumer<HttpClientResponse> onResponse) {
+		return (longPoll ? longPollClient : httpClient)
+				.get()
+				.uri(url)
+				.response((response, content) -> {
+					onResponse.accept(response);
+					return content.asByteArray();
+				});
+	}
+
+	/**
+	 * One session long poll, aggregated. Janus bodies are small JSON arrays, so the bridge parses them whole.
+	 */
+	public Mono<byte[]> poll(String url) {
+		return longPollClient
+				.get()
+				.uri(url)
+				.responseSingle((response, content) -> content.asByteArray())
+				.defaultIfEmpty(new byte[0]);
+	}
+
+	/**
+	 * Status code of a plain GET, for health checks.
+	 */
+	public Mono<Integer> status(String url) {
+		return httpClient
+				.get()
+				.uri(url)
+				.responseSingle((response, content) -> content.asByteArray()
+						.defaultIfEmpty(new byte[0])
+						.map(body -> response.status().code()));
+	}
+
+	@Override
+	public void destroy() {
+		connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+	}
+}
@@ -0,0 +1,210 @@
+package com.example.backend.janus;
+
+import com.example.backend.signaling.SessionHeaders;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds one upstream long poll per bridged Janus session and pushes its events to the owning STOMP session on
+ * {@code /user/queue/janus}, so browsers no longer run their own poll loop through the proxy. Upstream polls
+ * therefore scale with the number of live Janus sessions, not with clients or polling frequency. Keepalive
+ * answers are swallowed; every other event is forwarded as the JSON array Janus returned. A bridge ends when its
+ * STOMP session disconnects, the client detaches, Janus reports the session gone, or Janus stays unreachable for
+ * {@code janus.bridge.max-failures} polls in a row. Only the client that created a Janus session (same HTTP session
+ * as the socket's handshake) can bridge it.
+ */
+@Slf4j
+@Component
+public class JanusEventBridge {
+
+	public static final String DESTINATION = "/queue/janus";
+
+	// Janus "No such session"
+	private static final int SESSION_NOT_FOUND = 458;
+
+	private final JanusClient janusClient;
+	private final JanusGatewayPool gatewayPool;
+	private final SimpMessagingTemplate messagingTemplate;
+	private final ObjectMapper objectMapper;
+	private final int maxEvents;
+	private final Duration retryDelay;
+	private final int maxFailures;
+	private final Map<Long, Bridge> bridges = new ConcurrentHashMap<>();
+
+	public JanusEventBridge(JanusClient janusClient, JanusGatewayPool gatewayPool,
+			SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${janus.bridge.max-events:10}") int maxEvents,
+			@Value("${janus.bridge.retry-ms:1000}") long retryMs,
+			@Value("${janus.bridge.max-failures:5}") int maxFailures) {
+		this.janusClient = janusClient;
+		this.gatewayPool = gatewayPool;
+		this.messagingTemplate = messagingTemplate;
+		this.objectMapper = objectMapper;
+		this.maxEvents = maxEvents;
+		this.retryDelay = Duration.ofMillis(retryMs);
+		this.maxFailures = maxFailures;
+		meterRegistry.gauge("janus.bridge.sessions", bridges, Map::size);
+	}
+
+	/**
+	 * Routes the Janus session's events to {@code stompSessionId}, starting the upstream poll if this is the first
+	 * owner. A second attach moves the session to the new socket (e.g. after a reconnect). Refused unless the socket
+	 * belongs to the HTTP session that created the Janus session through the proxy.
+	 *
+	 * @param httpSessionId HTTP session of the socket's handshake, {@code null} if it had none
+	 * @return whether the session is now bridged to the socket
+	 */
+	public boolean attach(long janusSessionId, String stompSessionId, String httpSessionId) {
+		if (!gatewayPool.isOwnedBy(janusSessionId, httpSessionId)) {
+			log.warn("Refusing to bridge Janus session {} to STOMP session {}: not created by that client",
+					janusSessionId, stompSessionId);
+			return false;
+		}
+		Bridge started = new Bridge(janusSessionId, stompSessionId);
+		Bridge bridge = bridges.merge(janusSessionId, started, (existing, fresh) -> {
+			existing.owner = stompSessionId;
+			return existing;
+		});
+		if (bridge == started) {
+			poll(bridge);
+		}
+		return true;
+	}
+
+	public void detach(long janusSessionId, String stompSessionId) {
+		Bridge bridge = bridges.get(janusSessionId);
+		if (bridge != null && bridge.owner.equals(stompSessionId)) {
+			close(bridge);
+		}
+	}
+
+	@EventListener
+	public void onDisconnect(SessionDisconnectEvent event) {
+		bridges.values().removeIf(bridge -> {
+			if (!bridge.owner.equals(event.getSessionId())) {
+				return false;
+			}
+			bridge.stop();
+			return true;
+		});
+	}
+
+	/**
+	 * Whether this node is polling the session's events for a socket, in which case clients must not poll it too.
+	 */
+	public boolean isBridged(long janusSessionId) {
+		return bridges.containsKey(janusSessionId);
+	}
+
+	private void poll(Bridge bridge) {
+		if (bridge.closed) {
+			return;
+		}
+		JanusGateway gateway = gatewayPool.forSession(bridge.janusSessionId);
+		if (gateway == null) {
+			close(bridge);
+			return;
+		}
+		String url = gateway.url("/" + bridge.janusSessionId + "?maxev=" + maxEvents);
+		bridge.inFlight = janusClient.poll(url).subscribe(
+				body -> {
+					bridge.failures = 0;
+					if (deliver(bridge, body)) {
+						poll(bridge);
+					} else {
+						gatewayPool.forget(bridge.janusSessionId);
+						close(bridge);
+					}
+				},
+				error -> {
+					if (++bridge.failures >= maxFailures) {
+						log.warn("Janus session {} unreachable, closing its event bridge", bridge.janusSessionId, error);
+						close(bridge);
+					} else {
+						bridge.inFlight = Mono.delay(retryDelay).subscribe(tick -> poll(bridge));
+					}
+				});
+	}
+
+	/**
+	 * Forwards everything but keepalives. Returns false when Janus no longer knows the session.
+	 */
+	private boolean deliver(Bridge bridge, byte[] body) {
+		if (body.length == 0) {
+			return true;
+		}
+		JsonNode events;
+		try {
+			events = objectMapper.readTree(body);
+		} catch (IOException e) {
+			log.warn("Unparseable Janus poll response for session {}", bridge.janusSessionId, e);
+			return true;
+		}
+		ArrayNode forwarded = objectMapper.createArrayNode();
+		for (JsonNode event : events.isArray() ? events : objectMapper.createArrayNode().add(events)) {
+			String type = event.path("janus").asText();
+			if ("error".equals(type) && event.path("error").path("code").asInt() == SESSION_NOT_FOUND) {
+				return false;
+			}
+			if (!"keepalive".equals(type)) {
+				forwarded.add(event);
+			}
+		}
+		if (!forwarded.isEmpty()) {
+			send(bridge.owner, bridge.janusSessionId, forwarded);
+		}
+		return true;
+	}
+
+	private void send(String owner, long janusSessionId, JsonNode events) {
+		try {
+			messagingTemplate.send("/user/" + owner + DESTINATION, MessageBuilder.createMessage(
+					objectMapper.writeValueAsBytes(events),
+					SessionHeaders.json(owner, Map.of("janus-session", Long.toString(janusSessionId)))));
+		} catch (IOException e) {
+			log.warn("Failed to forward Janus events for session {}", janusSessionId, e);
+		}
+	}
+
+	private void close(Bridge bridge) {
+		if (bridges.remove(bridge.janusSessionId, bridge)) {
+			bridge.stop();
+		}
+	}
+
+	private static final class Bridge {
+		private final long janusSessionId;
+		private volatile String owner;
+		private volatile boolean closed;
+		private volatile Disposable inFlight;
+		private int failures;
+
+		private Bridge(long janusSessionId, String owner) {
+			this.janusSessionId = janusSessionId;
+			this.owner = owner;
+		}
+
+		private void stop() {
+			closed = true;
+			Disposable poll = inFlight;
+			if (poll != null) {
+				poll.dispose();
+			}
+		}
+	}
+}
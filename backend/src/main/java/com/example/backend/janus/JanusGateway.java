@@ -0,0 +1,58 @@
+package com.example.backend.janus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Janus instance in the {@link JanusGatewayPool}, with the load this node has routed to it. Counts come from
+ * proxied traffic only, so they cover sessions created through this backend.
+ */
+public class JanusGateway {
+
+	// A publisher costs far more than a session or handle on the media server
+	static final int PUBLISHER_WEIGHT = 8;
+
+	private final String baseUrl;
+	final AtomicInteger sessions = new AtomicInteger();
+	final AtomicInteger handles = new AtomicInteger();
+	final AtomicInteger publishers = new AtomicInteger();
+	private volatile boolean healthy = true;
+
+	JanusGateway(String baseUrl) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+	}
+
+	public String baseUrl() {
+		return baseUrl;
+	}
+
+	/**
+	 * Absolute URL for a path such as {@code /123/456?maxev=1}; an empty path is the gateway root.
+	 */
+	public String url(String path) {
+		return baseUrl + path;
+	}
+
+	public boolean isHealthy() {
+		return healthy;
+	}
+
+	void setHealthy(boolean healthy) {
+		this.healthy = healthy;
+	}
+
+	public int sessions() {
+		return sessions.get();
+	}
+
+	public int handles() {
+		return handles.get();
+	}
+
+	public int publishers() {
+		return publishers.get();
+	}
+
+	int load() {
+		return sessions.get() + handles.get() + PUBLISHER_WEIGHT * publishers.get();
+	}
+}
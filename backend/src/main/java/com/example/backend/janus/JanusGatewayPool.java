@@ -0,0 +1,281 @@
+package com.example.backend.janus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The Janus instances listed in {@code janus.gateways} (defaults to {@code janus.base-url}), with sticky routing.
+ * A session stays on the gateway that created it, so all of its handles land there too. Sessions created with a
+ * room key ({@code /janus/rooms/{room}}) go to the room's gateway, so all publishers of a room share one media
+ * server. A room is pinned to the least-loaded healthy gateway when its first session is created and released
+ * when its last session is destroyed. Load (sessions, handles, publishers) is counted from proxied traffic, and
+ * health comes from polling each gateway's {@code /info} every {@code janus.health.interval-ms}. With several
+ * gateways, a session this node has no route for is never sent to a guessed one.
+ */
+@Slf4j
+@Component
+public class JanusGatewayPool {
+
+	private final JanusClient janusClient;
+	private final ObjectMapper objectMapper;
+	private final List<JanusGateway> gateways;
+	private final Map<Long, SessionRoute> sessions = new ConcurrentHashMap<>();
+	private final Map<String, RoomRoute> rooms = new ConcurrentHashMap<>();
+
+	public JanusGatewayPool(JanusClient janusClient, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${janus.gateways:${janus.base-url:https://janus.jsflux.co.kr/janus}}") String[] gatewayUrls) {
+		this.janusClient = janusClient;
+		this.objectMapper = objectMapper;
+		this.gateways = Arrays.stream(gatewayUrls)
+				.map(String::trim)
+				.filter(url -> !url.isEmpty())
+				.map(JanusGateway::new)
+				.toList();
+		if (gateways.isEmpty()) {
+			throw new IllegalStateException("janus.gateways must list at least one Janus base URL");
+		}
+		for (JanusGateway gateway : gateways) {
+			Gauge.builder("janus.gateway.sessions", gateway, JanusGateway::sessions)
+					.tag("gateway", gateway.baseUrl()).register(meterRegistry);
+			Gauge.builder("janus.gateway.handles", gateway, JanusGateway::handles)
+					.tag("gateway", gateway.baseUrl()).register(meterRegistry);
+			Gauge.builder("janus.gateway.publishers", gateway, JanusGateway::publishers)
+					.tag("gateway", gateway.baseUrl()).register(meterRegistry);
+			Gauge.builder("janus.gateway.healthy", gateway, g -> g.isHealthy() ? 1 : 0)
+					.tag("gateway", gateway.baseUrl()).register(meterRegistry);
+		}
+	}
+
+	public List<JanusGateway> gateways() {
+		return gateways;
+	}
+
+	/**
+	 * Gateway for a {@code create}. With a room key this reserves a slot on the room's gateway; the caller must
+	 * pass the outcome to {@link #record} so a failed create gives it back.
+	 */
+	public JanusGateway forNewSession(String room) {
+		if (room == null) {
+			return leastLoaded();
+		}
+		return rooms.compute(room, (key, existing) -> {
+			RoomRoute route = existing != null && existing.gateway.isHealthy()
+					? existing
+					: new RoomRoute(key, leastLoaded());
+			route.sessions.incrementAndGet();
+			return route;
+		}).gateway;
+	}
+
+	/**
+	 * Gateway holding the session, or {@code null} when this node cannot tell (e.g. the session was created before a
+	 * restart and there is more than one gateway); callers answer "No such session" rather than guess.
+	 */
+	public JanusGateway forSession(long sessionId) {
+		return forSession(sessionId, null);
+	}
+
+	/**
+	 * Like {@link #forSession(long)}, but a session this node has not seen is looked for on the gateway {@code room}
+	 * is pinned to, since every session of a room is created there.
+	 */
+	public JanusGateway forSession(long sessionId, String room) {
+		SessionRoute route = sessions.get(sessionId);
+		if (route != null) {
+			return route.gateway;
+		}
+		RoomRoute roomRoute = room == null ? null : rooms.get(room);
+		if (roomRoute != null) {
+			return roomRoute.gateway;
+		}
+		return gateways.size() == 1 ? gateways.get(0) : null;
+	}
+
+	public boolean isKnown(long sessionId) {
+		return sessions.containsKey(sessionId);
+	}
+
+	/**
+	 * Whether the session was created through this node by {@code owner}, the HTTP session id of the client.
+	 */
+	public boolean isOwnedBy(long sessionId, String owner) {
+		SessionRoute route = sessions.get(sessionId);
+		return route != null && owner != null && owner.equals(route.owner);
+	}
+
+	/**
+	 * Updates routes and load from a proxied POST and the response Janus gave it. {@code owner} identifies the
+	 * client that sent a {@code create}; it is ignored for every other request.
+	 *
+	 * @return the id of the session a successful {@code create} made, otherwise {@code null}
+	 */
+	public Long record(JanusGateway gateway, Long sessionId, Long handleId, String room, String owner,
+			String requestBody, byte[] responseBody) {
+		JsonNode request = parse(requestBody == null ? null : requestBody.getBytes(StandardCharsets.UTF_8));
+		JsonNode response = parse(responseBody);
+		String janus = request.path("janus").asText();
+		boolean failed = !"success".equals(response.path("janus").asText())
+				&& !"ack".equals(response.path("janus").asText());
+		if ("create".equals(janus)) {
+			RoomRoute roomRoute = room == null ? null : rooms.get(room);
+			if (roomRoute != null && roomRoute.gateway != gateway) {
+				// The room was re-pinned away from an unhealthy gateway while this create was in flight.
+				roomRoute = null;
+			}
+			long id = response.path("data").path("id").asLong();
+			if (failed || id == 0) {
+				if (roomRoute != null) {
+					release(roomRoute);
+				}
+				return null;
+			}
+			sessions.put(id, new SessionRoute(gateway, roomRoute, owner));
+			gateway.sessions.incrementAndGet();
+			return id;
+		}
+		if ("destroy".equals(janus) && sessionId != null && !failed) {
+			forget(sessionId);
+			return null;
+		}
+		SessionRoute route = sessionId == null ? null : sessions.get(sessionId);
+		if (route == null || failed) {
+			return null;
+		}
+		switch (janus) {
+			case "attach" -> {
+				long id = response.path("data").path("id").asLong();
+				if (id != 0 && route.handles.add(id)) {
+					route.gateway.handles.incrementAndGet();
+				}
+			}
+			case "detach" -> dropHandle(route, handleId);
+			case "message" -> {
+				JsonNode body = request.path("body");
+				String command = body.path("request").asText();
+				boolean publisher = "publisher".equals(body.path("ptype").asText());
+				if (handleId == null) {
+					return null;
+				}
+				if (publisher && ("join".equals(command) || "joinandconfigure".equals(command))) {
+					if (route.publishers.add(handleId)) {
+						route.gateway.publishers.incrementAndGet();
+					}
+				} else if ("leave".equals(command) || "unpublish".equals(command)) {
+					if (route.publishers.remove(handleId)) {
+						route.gateway.publishers.decrementAndGet();
+					}
+				}
+			}
+			default -> {
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Drops a session and its load, e.g. after {@code destroy} or when Janus reports it gone.
+	 */
+	public void forget(long sessionId) {
+		SessionRoute route = sessions.remove(sessionId);
+		if (route == null) {
+			return;
+		}
+		route.gateway.sessions.decrementAndGet();
+		route.gateway.handles.addAndGet(-route.handles.size());
+		route.gateway.publishers.addAndGet(-route.publishers.size());
+		if (route.room != null) {
+			release(route.room);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${janus.health.interval-ms:5000}")
+	public void checkHealth() {
+		for (JanusGateway gateway : gateways) {
+			janusClient.status(gateway.url("/info")).subscribe(
+					status -> markHealth(gateway, status == 200),
+					error -> markHealth(gateway, false));
+		}
+	}
+
+	private void markHealth(JanusGateway gateway, boolean healthy) {
+		if (gateway.isHealthy() != healthy) {
+			log.warn("Janus gateway {} is now {}", gateway.baseUrl(), healthy ? "healthy" : "unhealthy");
+		}
+		gateway.setHealthy(healthy);
+	}
+
+	private JanusGateway leastLoaded() {
+		Comparator<JanusGateway> byLoad = Comparator.comparingInt(JanusGateway::load);
+		return gateways.stream().filter(JanusGateway::isHealthy).min(byLoad)
+				.orElseGet(() -> gateways.stream().min(byLoad).orElseThrow());
+	}
+
+	private void dropHandle(SessionRoute route, Long handleId) {
+		if (handleId == null) {
+			return;
+		}
+		if (route.handles.remove(handleId)) {
+			route.gateway.handles.decrementAndGet();
+		}
+		if (route.publishers.remove(handleId)) {
+			route.gateway.publishers.decrementAndGet();
+		}
+	}
+
+	private void release(RoomRoute route) {
+		route.sessions.decrementAndGet();
+		// Reservations increment inside compute on the same key, so this cannot drop a room that just gained one.
+		rooms.computeIfPresent(route.key, (key, current) -> current == route && route.sessions.get() <= 0 ? null : current);
+	}
+
+	private JsonNode parse(byte[] json) {
+		if (json == null || json.length == 0) {
+			return objectMapper.missingNode();
+		}
+		try {
+			return objectMapper.readTree(json);
+		} catch (IOException e) {
+			return objectMapper.missingNode();
+		}
+	}
+
+	private static final class SessionRoute {
+		private final JanusGateway gateway;
+		private final RoomRoute room;
+		private final String owner;
+		private final Set<Long> handles = ConcurrentHashMap.newKeySet();
+		private final Set<Long> publishers = ConcurrentHashMap.newKeySet();
+
+		private SessionRoute(JanusGateway gateway, RoomRoute room, String owner) {
+			this.gateway = gateway;
+			this.room = room;
+			this.owner = owner;
+		}
+	}
+
+	private static final class RoomRoute {
+		private final String key;
+		private final JanusGateway gateway;
+		private final AtomicInteger sessions = new AtomicInteger();
+
+		private RoomRoute(String key, JanusGateway gateway) {
+			this.key = key;
+			this.gateway = gateway;
+		}
+	}
+}
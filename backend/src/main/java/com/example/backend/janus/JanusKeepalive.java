@@ -0,0 +1,194 @@
+package com.example.backend.janus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers client {@code keepalive} POSTs for sessions in the {@link JanusGatewayPool} locally and keeps those
+ * sessions alive upstream with one keepalive per session per {@code janus.keepalive.interval-ms}, skipped when the
+ * session already had proxied traffic since the last tick. Sessions are tracked from the moment the proxy creates
+ * them. Sessions whose client has sent nothing through the proxy for {@code janus.keepalive.idle-timeout-ms} are
+ * destroyed upstream and forgotten. Client keepalives for sessions this node does not know are forwarded as before,
+ * so Janus keeps answering "No such session" for them.
+ */
+@Slf4j
+@Component
+public class JanusKeepalive {
+
+	// Janus "No such session"
+	private static final int SESSION_NOT_FOUND = 458;
+
+	private final JanusClient janusClient;
+	private final JanusGatewayPool gatewayPool;
+	private final ObjectMapper objectMapper;
+	private final long idleTimeoutMs;
+	private final Map<Long, Liveness> sessions = new ConcurrentHashMap<>();
+	private final Counter absorbed;
+	private final Counter forwardedFromClients;
+	private final Counter forwardedOnTimer;
+	private final Counter reaped;
+	private volatile Clock clock = Clock.systemUTC();
+	private volatile long lastTick = clock.millis();
+
+	public JanusKeepalive(JanusClient janusClient, JanusGatewayPool gatewayPool, ObjectMapper objectMapper,
+			MeterRegistry meterRegistry,
+			@Value("${janus.keepalive.idle-timeout-ms:90000}") long idleTimeoutMs) {
+		this.janusClient = janusClient;
+		this.gatewayPool = gatewayPool;
+		this.objectMapper = objectMapper;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.absorbed = meterRegistry.counter("janus.keepalive.absorbed");
+		this.forwardedFromClients = meterRegistry.counter("janus.keepalive.forwarded", "source", "client");
+		this.forwardedOnTimer = meterRegistry.counter("janus.keepalive.forwarded", "source", "timer");
+		this.reaped = meterRegistry.counter("janus.keepalive.reaped");
+		meterRegistry.gauge("janus.keepalive.sessions", sessions, Map::size);
+	}
+
+	/**
+	 * The local answer to a session-level POST if it is a keepalive for a session this node routes, otherwise null
+	 * and the request must be forwarded.
+	 */
+	public byte[] absorb(long sessionId, String body) {
+		if (body == null || !body.contains("keepalive")) {
+			return null;
+		}
+		JsonNode request;
+		try {
+			request = objectMapper.readTree(body);
+		} catch (IOException e) {
+			return null;
+		}
+		if (!"keepalive".equals(request.path("janus").asText())) {
+			return null;
+		}
+		if (!gatewayPool.isKnown(sessionId)) {
+			forwardedFromClients.increment();
+			return null;
+		}
+		long now = clock.millis();
+		sessions.computeIfAbsent(sessionId, id -> new Liveness(now)).clientSeenAt = now;
+		absorbed.increment();
+		try {
+			return objectMapper.writeValueAsBytes(objectMapper.createObjectNode()
+					.put("janus", "ack")
+					.put("session_id", sessionId)
+					.put("transaction", request.path("transaction").asText()));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Starts tracking a session the proxy just created, so it is kept alive and reaped even if its client never
+	 * sends another request through this node.
+	 */
+	public void created(long sessionId) {
+		long now = clock.millis();
+		Liveness liveness = sessions.computeIfAbsent(sessionId, id -> new Liveness(now));
+		liveness.clientSeenAt = now;
+		liveness.upstreamAt = now;
+	}
+
+	/**
+	 * Records a request the proxy is forwarding for the session: the client is alive, and Janus resets the
+	 * session timeout on it, so the next timer keepalive can be skipped.
+	 */
+	public void forwarded(long sessionId) {
+		if (!gatewayPool.isKnown(sessionId)) {
+			return;
+		}
+		long now = clock.millis();
+		Liveness liveness = sessions.computeIfAbsent(sessionId, id -> new Liveness(now));
+		liveness.clientSeenAt = now;
+		liveness.upstreamAt = now;
+	}
+
+	@Scheduled(fixedDelayString = "${janus.keepalive.interval-ms:25000}")
+	public void tick() {
+		long now = clock.millis();
+		long previousTick = lastTick;
+		lastTick = now;
+		sessions.forEach((sessionId, liveness) -> {
+			if (!gatewayPool.isKnown(sessionId)) {
+				// Destroyed through the proxy or reported gone by the event bridge
+				sessions.remove(sessionId, liveness);
+			} else if (now - liveness.clientSeenAt > idleTimeoutMs) {
+				reap(sessionId, liveness);
+			} else if (liveness.upstreamAt < previousTick) {
+				keepalive(sessionId, liveness);
+			}
+		});
+	}
+
+	private void keepalive(long sessionId, Liveness liveness) {
+		JanusGateway gateway = gatewayPool.forSession(sessionId);
+		if (gateway == null) {
+			sessions.remove(sessionId, liveness);
+			return;
+		}
+		liveness.upstreamAt = clock.millis();
+		forwardedOnTimer.increment();
+		janusClient.post(gateway.url("/" + sessionId),
+						"{\"janus\":\"keepalive\",\"transaction\":\"proxy-keepalive\"}", response -> {
+						})
+				.collect(ByteArrayOutputStream::new, ByteArrayOutputStream::writeBytes)
+				.subscribe(
+						body -> {
+							if (isSessionGone(body.toByteArray())) {
+								sessions.remove(sessionId, liveness);
+								gatewayPool.forget(sessionId);
+							}
+						},
+						error -> log.debug("Keepalive for Janus session {} failed", sessionId, error));
+	}
+
+	private void reap(long sessionId, Liveness liveness) {
+		if (!sessions.remove(sessionId, liveness)) {
+			return;
+		}
+		reaped.increment();
+		log.info("Destroying idle Janus session {}", sessionId);
+		JanusGateway gateway = gatewayPool.forSession(sessionId);
+		gatewayPool.forget(sessionId);
+		if (gateway == null) {
+			return;
+		}
+		janusClient.post(gateway.url("/" + sessionId), "{\"janus\":\"destroy\",\"transaction\":\"proxy-reap\"}", response -> {
+				})
+				.subscribe(chunk -> {
+				}, error -> log.debug("Destroying idle Janus session {} failed", sessionId, error));
+	}
+
+	// Lets tests move past the idle timeout and between ticks without sleeping
+	void useClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	private boolean isSessionGone(byte[] body) {
+		try {
+			return objectMapper.readTree(body).path("error").path("code").asInt() == SESSION_NOT_FOUND;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static final class Liveness {
+		private volatile long clientSeenAt;
+		private volatile long upstreamAt;
+
+		private Liveness(long now) {
+			this.clientSeenAt = now;
+		}
+	}
+}
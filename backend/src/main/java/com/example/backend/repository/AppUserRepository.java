@@ -1,9 +1,16 @@
 package com.example.backend.repository;
 
 import com.example.backend.domain.AppUser;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
 	Optional<AppUser> findByEmail(String email);
+
+	@Query("select u.id from AppUser u where u.id in :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
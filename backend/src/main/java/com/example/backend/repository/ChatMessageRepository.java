@@ -1,9 +1,46 @@
 package com.example.backend.repository;
 
+import com.example.backend.api.dto.ChatMessageResponse;
 import com.example.backend.domain.ChatMessage;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 	List<ChatMessage> findTop50ByRoomIdOrderByCreatedAtDesc(Long roomId);
+
+	/**
+	 * Newest page of a room's history over {@code idx_chat_room_created_id}. Later pages go through
+	 * {@link #findPageBefore}, so neither query carries a nullable cursor predicate that would keep MySQL from
+	 * range-scanning the index.
+	 */
+	@Query("""
+			select new com.example.backend.api.dto.ChatMessageResponse(
+				m.id, m.room.id, u.id, u.nickname, m.type, m.content, m.createdAt)
+			from ChatMessage m
+			join m.user u
+			where m.room.id = :roomId
+			order by m.createdAt desc, m.id desc
+			""")
+	List<ChatMessageResponse> findFirstPage(@Param("roomId") Long roomId, Pageable pageable);
+
+	/**
+	 * Newest-first keyset page starting strictly after {@code (before, beforeId)} in
+	 * {@code (createdAt, id)} order.
+	 */
+	@Query("""
+			select new com.example.backend.api.dto.ChatMessageResponse(
+				m.id, m.room.id, u.id, u.nickname, m.type, m.content, m.createdAt)
+			from ChatMessage m
+			join m.user u
+			where m.room.id = :roomId
+				and (m.createdAt < :before
+					or (m.createdAt = :before and m.id < :beforeId))
+			order by m.createdAt desc, m.id desc
+			""")
+	List<ChatMessageResponse> findPageBefore(@Param("roomId") Long roomId, @Param("before") LocalDateTime before,
+			@Param("beforeId") Long beforeId, Pageable pageable);
 }
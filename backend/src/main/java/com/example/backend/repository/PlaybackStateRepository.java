@@ -1,7 +1,20 @@
 package com.example.backend.repository;
 
+import com.example.backend.api.dto.PlaybackResponse;
 import com.example.backend.domain.PlaybackState;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PlaybackStateRepository extends JpaRepository<PlaybackState, Long> {
+
+	@Query("""
+			select new com.example.backend.api.dto.PlaybackResponse(
+				p.roomId, t.id, t.title, p.positionMs, p.playing, p.updatedAt)
+			from PlaybackState p
+			left join p.track t
+			where p.roomId = :roomId
+			""")
+	Optional<PlaybackResponse> findResponse(@Param("roomId") Long roomId);
 }
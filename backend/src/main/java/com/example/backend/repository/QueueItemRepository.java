@@ -1,9 +1,55 @@
 package com.example.backend.repository;
 
 import com.example.backend.domain.QueueItem;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface QueueItemRepository extends JpaRepository<QueueItem, Long> {
 	List<QueueItem> findByRoomIdOrderBySortOrderAsc(Long roomId);
+
+	@Query("""
+			select q.id as id, q.track.id as trackId, q.requestedBy.id as requestedBy, q.status as status,
+				q.sortOrder as sortOrder, q.createdAt as createdAt
+			from QueueItem q
+			where q.room.id = :roomId
+			order by q.sortOrder asc
+			""")
+	List<QueueRow> findRowsByRoomId(Long roomId);
+
+	@Query("""
+			select q.id as id, q.track.id as trackId, q.requestedBy.id as requestedBy, q.status as status,
+				q.sortOrder as sortOrder, q.createdAt as createdAt
+			from QueueItem q
+			where q.room.id = :roomId and q.id in :ids
+			""")
+	List<QueueRow> findRowsByRoomIdAndIdIn(@Param("roomId") Long roomId, @Param("ids") Collection<Long> ids);
+
+	@Query("select max(q.sortOrder) from QueueItem q where q.room.id = :roomId")
+	Integer findMaxSortOrder(@Param("roomId") Long roomId);
+
+	// The anchor's rank and the ranks after it, leaving out the item being moved
+	@Query("""
+			select q.sortOrder
+			from QueueItem q
+			where q.room.id = :roomId and q.id <> :movingId
+				and q.sortOrder >= (select a.sortOrder from QueueItem a where a.id = :anchorId and a.room.id = :roomId)
+			order by q.sortOrder asc
+			""")
+	List<Integer> findRanksFrom(@Param("roomId") Long roomId, @Param("anchorId") Long anchorId,
+			@Param("movingId") Long movingId, Pageable pageable);
+
+	// The anchor's rank and the ranks before it, leaving out the item being moved
+	@Query("""
+			select q.sortOrder
+			from QueueItem q
+			where q.room.id = :roomId and q.id <> :movingId
+				and q.sortOrder <= (select a.sortOrder from QueueItem a where a.id = :anchorId and a.room.id = :roomId)
+			order by q.sortOrder desc
+			""")
+	List<Integer> findRanksUpTo(@Param("roomId") Long roomId, @Param("anchorId") Long anchorId,
+			@Param("movingId") Long movingId, Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.example.backend.repository;
+
+import com.example.backend.domain.QueueStatus;
+import java.time.LocalDateTime;
+
+/**
+ * A queue item with its track and requester as ids only, so listing a queue loads no entities.
+ */
+public interface QueueRow {
+	Long getId();
+
+	Long getTrackId();
+
+	Long getRequestedBy();
+
+	QueueStatus getStatus();
+
+	int getSortOrder();
+
+	LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,38 @@
+package com.example.backend.repository;
+
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a room detail read: the room's columns repeated per member, member columns null for a room with no
+ * members.
+ */
+public interface RoomDetailRow {
+	Long getId();
+
+	String getTitle();
+
+	RoomMode getMode();
+
+	RoomVisibility getVisibility();
+
+	String getHostNickname();
+
+	LocalDateTime getCreatedAt();
+
+	Long getMemberId();
+
+	Long getUserId();
+
+	String getNickname();
+
+	RoomRole getRole();
+
+	Boolean getMuted();
+
+	String getDeviceInfo();
+
+	LocalDateTime getJoinedAt();
+}
@@ -0,0 +1,7 @@
+package com.example.backend.repository;
+
+public interface RoomMemberCount {
+	Long getRoomId();
+
+	long getMemberCount();
+}
@@ -1,13 +1,35 @@
 package com.example.backend.repository;
 
+import com.example.backend.api.dto.RoomMemberResponse;
 import com.example.backend.domain.RoomMember;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RoomMemberRepository extends JpaRepository<RoomMember, Long> {
 	List<RoomMember> findByRoomId(Long roomId);
 	Optional<RoomMember> findByRoomIdAndUserId(Long roomId, Long userId);
 	long countByRoomId(Long roomId);
-	void deleteByRoomIdAndUserId(Long roomId, Long userId);
+
+	@Transactional
+	long deleteByRoomIdAndUserId(Long roomId, Long userId);
+
+	@Query("select m from RoomMember m join fetch m.room r join fetch r.host join fetch m.user")
+	List<RoomMember> findAllWithRoomAndUser();
+
+	@Query("""
+			select new com.example.backend.api.dto.RoomMemberResponse(
+				m.id, u.id, u.nickname, m.role, m.muted, m.deviceInfo, m.joinedAt)
+			from RoomMember m
+			join m.user u
+			where m.room.id = :roomId
+			order by m.joinedAt asc, m.id asc
+			""")
+	List<RoomMemberResponse> findResponsesByRoomId(@Param("roomId") Long roomId);
+
+	@Query("select m.room.id as roomId, count(m) as memberCount from RoomMember m group by m.room.id")
+	List<RoomMemberCount> countGroupedByRoom();
 }
@@ -1,7 +1,84 @@
 package com.example.backend.repository;
 
+import com.example.backend.api.dto.RoomSummaryResponse;
 import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomVisibility;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
+
+	@Query("select r from Room r join fetch r.host")
+	List<Room> findAllWithHost();
+
+	/**
+	 * Room detail and its members in one statement, selecting only the columns the response carries.
+	 */
+	@Query("""
+			select r.id as id, r.title as title, r.mode as mode, r.visibility as visibility,
+				h.nickname as hostNickname, r.createdAt as createdAt,
+				m.id as memberId, u.id as userId, u.nickname as nickname, m.role as role, m.muted as muted,
+				m.deviceInfo as deviceInfo, m.joinedAt as joinedAt
+			from Room r
+			join r.host h
+			left join RoomMember m on m.room = r
+			left join m.user u
+			where r.id = :roomId
+			order by m.joinedAt asc, m.id asc
+			""")
+	List<RoomDetailRow> findDetailRows(@Param("roomId") Long roomId);
+
+	/**
+	 * First lobby page in one statement: host nickname and member count are joined and grouped instead of being
+	 * loaded per room. Newest first; later pages go through {@link #findSummariesBefore}, so neither query carries a
+	 * nullable cursor predicate that would keep MySQL from range-scanning the primary key.
+	 */
+	@Query("""
+			select new com.example.backend.api.dto.RoomSummaryResponse(
+				r.id, r.title, r.mode, r.visibility, h.nickname, count(m.id), r.createdAt)
+			from Room r
+			join r.host h
+			left join RoomMember m on m.room = r
+			where (:mode is null or r.mode = :mode)
+			and (:visibility is null or r.visibility = :visibility)
+			group by r.id, r.title, r.mode, r.visibility, h.nickname, r.createdAt
+			order by r.id desc
+			""")
+	List<RoomSummaryResponse> findSummaries(@Param("mode") RoomMode mode, @Param("visibility") RoomVisibility visibility,
+			Pageable pageable);
+
+	/**
+	 * Lobby page after {@code cursor}, the last id of the previous page. Keyset on the unique {@code id}, so rooms
+	 * sharing a {@code createdAt} are neither skipped nor repeated.
+	 */
+	@Query("""
+			select new com.example.backend.api.dto.RoomSummaryResponse(
+				r.id, r.title, r.mode, r.visibility, h.nickname, count(m.id), r.createdAt)
+			from Room r
+			join r.host h
+			left join RoomMember m on m.room = r
+			where r.id < :cursor
+			and (:mode is null or r.mode = :mode)
+			and (:visibility is null or r.visibility = :visibility)
+			group by r.id, r.title, r.mode, r.visibility, h.nickname, r.createdAt
+			order by r.id desc
+			""")
+	List<RoomSummaryResponse> findSummariesBefore(@Param("mode") RoomMode mode,
+			@Param("visibility") RoomVisibility visibility, @Param("cursor") Long cursor, Pageable pageable);
+
+	/**
+	 * Advances the room's queue version. The row lock it takes orders concurrent queue writers, so callers run it
+	 * first in the transaction that changes the queue.
+	 */
+	@Modifying
+	@Query("update Room r set r.queueVersion = r.queueVersion + 1 where r.id = :roomId")
+	int incrementQueueVersion(@Param("roomId") Long roomId);
+
+	@Query("select r.queueVersion from Room r where r.id = :roomId")
+	Long findQueueVersion(@Param("roomId") Long roomId);
 }
@@ -1,9 +1,17 @@
 package com.example.backend.repository;
 
 import com.example.backend.domain.Track;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TrackRepository extends JpaRepository<Track, Long> {
-	List<Track> findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(String title, String artist);
+	List<Track> findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(String title, String artist,
+			Pageable pageable);
+
+	@Query("select t.id from Track t where t.id in :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,194 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.ChatMessageResponse;
+import com.example.backend.domain.ChatMessageType;
+import com.example.backend.domain.IdBlock;
+import com.example.backend.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Chat persistence off the STOMP hot path. {@link #append} offers a message to a bounded queue;
+ * {@link #flush()} drains the queue every {@code chat.flush-interval-ms} into JDBC batch inserts. When the queue is
+ * full the message is still delivered but is not persisted ({@code chat.persist.dropped}). A batch that fails is
+ * retried row by row so one bad message cannot sink the rest. Ids come from {@link IdBlocks} rather than the
+ * database and are assigned on append, so a batch needs no generated keys and the driver can rewrite it into
+ * multi-row inserts.
+ *
+ * <p>History pages are keyset queries on {@code (room_id, created_at, id)}. The only in-memory copy of recent chat
+ * is {@code ChatSequencer}'s replay ring, which holds every broadcast frame rather than the stored rows.
+ */
+@Slf4j
+@Service
+public class ChatHistory {
+
+	private static final String INSERT_SQL =
+			"insert into chat_message (id, room_id, user_id, type, content, created_at) values (?, ?, ?, ?, ?, ?)";
+	private static final int MAX_CONTENT_LENGTH = 2000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final IdBlocks idBlocks;
+	private final ChatMessageRepository chatMessageRepository;
+	private final RoomDirectory roomDirectory;
+	private final BlockingQueue<Entry> queue;
+	private final int batchSize;
+	// Serializes the scheduled flush with the one run at shutdown
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final Counter dropped;
+	private final Counter failed;
+	private final Timer flushTimer;
+
+	public ChatHistory(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, IdBlocks idBlocks,
+			ChatMessageRepository chatMessageRepository, RoomDirectory roomDirectory, MeterRegistry meterRegistry,
+			@Value("${chat.queue-capacity:10000}") int queueCapacity,
+			@Value("${chat.batch-size:500}") int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.idBlocks = idBlocks;
+		this.chatMessageRepository = chatMessageRepository;
+		this.roomDirectory = roomDirectory;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.dropped = meterRegistry.counter("chat.persist.dropped");
+		this.failed = meterRegistry.counter("chat.persist.failed");
+		this.flushTimer = meterRegistry.timer("chat.persist.flush");
+		meterRegistry.gauge("chat.persist.queued", queue, BlockingQueue::size);
+	}
+
+	/**
+	 * Records a chat message from a room member. Messages for unknown rooms or from non-members are only
+	 * broadcast, never stored. Only blocks to reserve a new id block, once every {@code ids.block-size} ids.
+	 */
+	public void append(String roomId, String userId, String content) {
+		Long room = parseId(roomId);
+		Long user = parseId(userId);
+		if (room == null || user == null || content == null || content.isBlank()
+				|| content.length() > MAX_CONTENT_LENGTH) {
+			return;
+		}
+		if (roomDirectory.member(room, user) == null) {
+			return;
+		}
+		Entry entry;
+		// The timestamp is cut to what the column stores
+		try {
+			entry = new Entry(idBlocks.next(IdBlock.CHAT_MESSAGE), room, user, ChatMessageType.TEXT, content,
+					LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+		} catch (DataAccessException e) {
+			// No id block could be reserved; the message is still broadcast
+			dropped.increment();
+			log.warn("Not storing chat message for room {}: no id available", room, e);
+			return;
+		}
+		if (!queue.offer(entry)) {
+			dropped.increment();
+		}
+	}
+
+	/**
+	 * Newest-first page of a room's history; older pages start after {@code (before, beforeId)}. Messages still
+	 * waiting in the queue are not included.
+	 */
+	public List<ChatMessageResponse> page(Long roomId, LocalDateTime before, Long beforeId, int size) {
+		if (before == null) {
+			return chatMessageRepository.findFirstPage(roomId, PageRequest.of(0, size));
+		}
+		return chatMessageRepository.findPageBefore(roomId, before, beforeId == null ? 0L : beforeId,
+				PageRequest.of(0, size));
+	}
+
+	@Scheduled(fixedDelayString = "${chat.flush-interval-ms:100}")
+	@PreDestroy
+	public void flush() {
+		flushLock.lock();
+		try {
+			drain();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void drain() {
+		List<Entry> batch = new ArrayList<>(batchSize);
+		do {
+			batch.clear();
+			queue.drainTo(batch, batchSize);
+			if (!batch.isEmpty()) {
+				flushTimer.record(() -> insert(batch));
+			}
+		} while (batch.size() == batchSize);
+	}
+
+	private void insert(List<Entry> batch) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> insertBatch(batch));
+		} catch (DataAccessException e) {
+			log.warn("Chat batch of {} failed, retrying row by row", batch.size(), e);
+			for (Entry entry : batch) {
+				try {
+					insertBatch(List.of(entry));
+				} catch (DataAccessException rowFailure) {
+					failed.increment();
+					log.warn("Dropping chat message for room {} from user {}", entry.roomId, entry.userId, rowFailure);
+				}
+			}
+		}
+	}
+
+	private void insertBatch(List<Entry> batch) {
+		jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+			ps.setLong(1, entry.id);
+			ps.setLong(2, entry.roomId);
+			ps.setLong(3, entry.userId);
+			ps.setString(4, entry.type.name());
+			ps.setString(5, entry.content);
+			ps.setTimestamp(6, Timestamp.valueOf(entry.createdAt));
+		});
+	}
+
+	private static Long parseId(String value) {
+		try {
+			return value == null ? null : Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static final class Entry {
+		private final Long id;
+		private final Long roomId;
+		private final Long userId;
+		private final ChatMessageType type;
+		private final String content;
+		private final LocalDateTime createdAt;
+
+		private Entry(Long id, Long roomId, Long userId, ChatMessageType type, String content,
+				LocalDateTime createdAt) {
+			this.id = id;
+			this.roomId = roomId;
+			this.userId = userId;
+			this.type = type;
+			this.content = content;
+			this.createdAt = createdAt;
+		}
+	}
+}
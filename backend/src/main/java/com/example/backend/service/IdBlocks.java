@@ -0,0 +1,99 @@
+package com.example.backend.service;
+
+import com.example.backend.domain.IdBlock;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ids for the JDBC batch inserts into the {@link IdBlock} tables, drawn from the same {@code id_block} rows as the
+ * entities' {@code @TableGenerator}s. {@link #next} hands out ids from an in-memory block and reserves the next
+ * {@code ids.block-size} ids when it runs out: one locked read and one update in a transaction of their own, so the
+ * row lock is released before the caller's insert and never held for a whole batch. Blocks are pooled-lo like
+ * Hibernate's ({@code next_val} is the first unreserved id), so ids are unique across nodes but only roughly
+ * ascending, and a restart leaves a gap.
+ *
+ * <p>At startup every segment is moved past its table's {@code max(id)}, which covers tables that predate
+ * {@code id_block} and rows written with explicit ids.
+ */
+@Slf4j
+@Service
+@DependsOn("entityManagerFactory")
+public class IdBlocks {
+
+	private static final List<String> SEGMENTS =
+			List.of(IdBlock.CHAT_MESSAGE, IdBlock.QUEUE_ITEM, IdBlock.ROOM_MEMBER, IdBlock.RECORDING);
+	private static final String SELECT_SQL = "select " + IdBlock.VALUE_COLUMN + " from " + IdBlock.TABLE
+			+ " where " + IdBlock.SEGMENT_COLUMN + " = ? for update";
+	private static final String UPDATE_SQL = "update " + IdBlock.TABLE + " set " + IdBlock.VALUE_COLUMN
+			+ " = ? where " + IdBlock.SEGMENT_COLUMN + " = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate reservation;
+	private final int blockSize;
+	private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+	public IdBlocks(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${ids.block-size:500}") int blockSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.reservation = new TransactionTemplate(transactionManager);
+		this.reservation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.blockSize = blockSize;
+	}
+
+	@PostConstruct
+	public void align() {
+		for (String segment : SEGMENTS) {
+			Long max = jdbcTemplate.queryForObject("select max(id) from " + segment, Long.class);
+			long floor = (max == null ? 0 : max) + 1;
+			int raised = jdbcTemplate.update(UPDATE_SQL + " and " + IdBlock.VALUE_COLUMN + " < ?",
+					floor, segment, floor);
+			if (raised == 0) {
+				try {
+					jdbcTemplate.update("insert into " + IdBlock.TABLE + " (" + IdBlock.SEGMENT_COLUMN + ", "
+							+ IdBlock.VALUE_COLUMN + ") values (?, ?)", segment, floor);
+				} catch (DuplicateKeyException alreadyThere) {
+					// Present and already past max(id), or seeded by another node from the same table
+				}
+			}
+		}
+		log.info("Id blocks aligned for {}", SEGMENTS);
+	}
+
+	/**
+	 * A fresh id for a row of {@code segment}, which must be one of the {@link IdBlock} table names.
+	 */
+	public long next(String segment) {
+		Block block = blocks.computeIfAbsent(segment, name -> new Block());
+		synchronized (block) {
+			if (block.next == block.end) {
+				block.next = reserve(segment);
+				block.end = block.next + blockSize;
+			}
+			return block.next++;
+		}
+	}
+
+	private long reserve(String segment) {
+		return reservation.execute(status -> {
+			Long first = jdbcTemplate.queryForObject(SELECT_SQL, Long.class, segment);
+			jdbcTemplate.update(UPDATE_SQL, first + blockSize, segment);
+			return first;
+		});
+	}
+
+	private static final class Block {
+		private long next;
+		private long end;
+	}
+}
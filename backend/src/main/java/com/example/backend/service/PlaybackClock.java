@@ -0,0 +1,164 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.PlaybackResponse;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Server-authoritative playback clock for karaoke rooms. The position is derived from the last transition and a
+ * monotonic timestamp rather than from whatever clients last reported, and is pushed to
+ * {@code /topic/room/{roomId}/playback} every {@code playback.sync-interval-ms} while playing. Position reports that
+ * agree with the clock (within {@code playback.seek-threshold-ms}) are not transitions, so only play, pause, seek
+ * and track changes need to be persisted. A room's clock is dropped when its last member leaves.
+ */
+@Service
+public class PlaybackClock {
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final long seekThresholdMs;
+	private final Map<Long, RoomClock> clocks = new ConcurrentHashMap<>();
+
+	public PlaybackClock(SimpMessagingTemplate messagingTemplate,
+			@Value("${playback.seek-threshold-ms:750}") long seekThresholdMs) {
+		this.messagingTemplate = messagingTemplate;
+		this.seekThresholdMs = seekThresholdMs;
+	}
+
+	/**
+	 * Applies a client report. When it matches the running clock nothing changes; otherwise (track change, play,
+	 * pause or seek) the clock is re-anchored, the new state is handed to {@code onTransition} and broadcast
+	 * immediately. The title lookup and {@code onTransition} run under the room's clock, so a concurrent report can
+	 * neither see a track without its title nor persist its state ahead of an earlier one.
+	 *
+	 * @param trackTitles loads the title of a new track; not called when the track is unchanged
+	 * @return the room's state after the report
+	 */
+	public PlaybackResponse update(Long roomId, Long trackId, long positionMs, boolean playing,
+			Function<Long, String> trackTitles, Consumer<PlaybackResponse> onTransition) {
+		while (true) {
+			RoomClock clock = clocks.computeIfAbsent(roomId, RoomClock::new);
+			PlaybackResponse state;
+			synchronized (clock) {
+				if (clock.removed) {
+					continue;
+				}
+				long now = System.nanoTime();
+				if (!clock.started || !Objects.equals(clock.trackId, trackId)) {
+					clock.trackTitle = trackId == null ? null : trackTitles.apply(trackId);
+				} else if (clock.playing == playing
+						&& Math.abs(clock.positionAt(now) - positionMs) <= seekThresholdMs) {
+					return clock.toResponse(now);
+				}
+				clock.started = true;
+				clock.trackId = trackId;
+				clock.anchorPositionMs = positionMs;
+				clock.anchorNanos = now;
+				clock.playing = playing;
+				clock.updatedAt = LocalDateTime.now();
+				clock.version++;
+				state = clock.toResponse(now);
+				onTransition.accept(state);
+			}
+			broadcast(clock);
+			return state;
+		}
+	}
+
+	public PlaybackResponse current(Long roomId) {
+		RoomClock clock = clocks.get(roomId);
+		if (clock == null) {
+			return null;
+		}
+		synchronized (clock) {
+			return clock.started ? clock.toResponse(System.nanoTime()) : null;
+		}
+	}
+
+	public void remove(Long roomId) {
+		RoomClock clock = clocks.remove(roomId);
+		if (clock != null) {
+			synchronized (clock) {
+				clock.removed = true;
+			}
+		}
+	}
+
+	@EventListener
+	public void onRoomEmptied(RoomEmptiedEvent event) {
+		remove(event.roomId());
+	}
+
+	@Scheduled(fixedRateString = "${playback.sync-interval-ms:1000}")
+	public void tick() {
+		for (RoomClock clock : clocks.values()) {
+			if (clock.playing) {
+				broadcast(clock);
+			}
+		}
+	}
+
+	private void broadcast(RoomClock clock) {
+		SyncTick tick;
+		synchronized (clock) {
+			tick = new SyncTick(clock.trackId, clock.positionAt(System.nanoTime()), clock.playing, clock.version,
+					System.currentTimeMillis());
+		}
+		messagingTemplate.convertAndSend("/topic/room/" + clock.roomId + "/playback", tick);
+	}
+
+	/**
+	 * Compact sync frame. {@code serverTime} is the wall clock when {@code positionMs} was sampled, so a client
+	 * can correct for delivery delay against its own offset estimate.
+	 */
+	public static class SyncTick {
+		public Long trackId;
+		public long positionMs;
+		public boolean playing;
+		public long version;
+		public long serverTime;
+
+		public SyncTick() {}
+
+		public SyncTick(Long trackId, long positionMs, boolean playing, long version, long serverTime) {
+			this.trackId = trackId;
+			this.positionMs = positionMs;
+			this.playing = playing;
+			this.version = version;
+			this.serverTime = serverTime;
+		}
+	}
+
+	private static final class RoomClock {
+		private final Long roomId;
+		private boolean started;
+		private Long trackId;
+		private String trackTitle;
+		private long anchorPositionMs;
+		private long anchorNanos;
+		private volatile boolean playing;
+		private LocalDateTime updatedAt;
+		private long version;
+		private boolean removed;
+
+		private RoomClock(Long roomId) {
+			this.roomId = roomId;
+		}
+
+		private long positionAt(long nanos) {
+			return playing ? anchorPositionMs + (nanos - anchorNanos) / 1_000_000 : anchorPositionMs;
+		}
+
+		private PlaybackResponse toResponse(long nanos) {
+			return new PlaybackResponse(roomId, trackId, trackTitle, positionAt(nanos), playing, updatedAt);
+		}
+	}
+}
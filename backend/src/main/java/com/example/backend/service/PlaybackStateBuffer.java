@@ -0,0 +1,184 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.PlaybackResponse;
+import com.example.backend.repository.PlaybackStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind buffer for {@code playback_state}. Updates replace the room's pending state in memory and are
+ * flushed as one JDBC batch upsert every {@code playback.flush-interval-ms} and on shutdown; reads are served from
+ * memory and only fall through to the database for a room that has not been seen since startup.
+ *
+ * <p>Crash safety: a clean shutdown flushes everything. On a crash at most the last flush interval of updates per
+ * room is lost (plus a batch that was in flight), and since only the latest state per room is kept, what is lost
+ * is position drift, never an older state overwriting a newer one. A batch that fails is retried row by row: a
+ * row the database rejects (e.g. its room or track has since been deleted) is dropped
+ * ({@code playback.buffer.failed}); any other failure re-queues the row unless a newer update for the room has
+ * arrived.
+ *
+ * <p>The upsert uses a MySQL row alias; other databases (H2 in tests) get the equivalent {@code MERGE}. Rooms that
+ * have emptied are forgotten after their last state is flushed, so later reads go back to the table.
+ */
+@Slf4j
+@Service
+public class PlaybackStateBuffer {
+
+	private static final String MYSQL_UPSERT_SQL = """
+			insert into playback_state (room_id, track_id, position_ms, is_playing, updated_at)
+			values (?, ?, ?, ?, ?) as incoming
+			on duplicate key update track_id = incoming.track_id, position_ms = incoming.position_ms,
+				is_playing = incoming.is_playing, updated_at = incoming.updated_at
+			""";
+	private static final String MERGE_SQL = """
+			merge into playback_state (room_id, track_id, position_ms, is_playing, updated_at) key (room_id)
+			values (?, ?, ?, ?, ?)
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final PlaybackStateRepository playbackStateRepository;
+	private final Map<Long, PlaybackResponse> latest = new ConcurrentHashMap<>();
+	private final Map<Long, PlaybackResponse> pending = new ConcurrentHashMap<>();
+	private final Set<Long> emptied = ConcurrentHashMap.newKeySet();
+	private final Counter updates;
+	private final Counter coalesced;
+	private final Counter failed;
+	private final Timer flushTimer;
+	private volatile String upsertSql;
+
+	public PlaybackStateBuffer(JdbcTemplate jdbcTemplate, PlaybackStateRepository playbackStateRepository,
+			MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.playbackStateRepository = playbackStateRepository;
+		this.updates = meterRegistry.counter("playback.buffer.updates");
+		this.coalesced = meterRegistry.counter("playback.buffer.coalesced");
+		this.failed = meterRegistry.counter("playback.buffer.failed");
+		this.flushTimer = meterRegistry.timer("playback.buffer.flush");
+		meterRegistry.gauge("playback.buffer.pending", pending, Map::size);
+	}
+
+	public void put(PlaybackResponse state) {
+		emptied.remove(state.getRoomId());
+		latest.put(state.getRoomId(), state);
+		updates.increment();
+		if (pending.put(state.getRoomId(), state) != null) {
+			coalesced.increment();
+		}
+	}
+
+	/**
+	 * Latest known state for the room, or {@code null} if it has never had one.
+	 */
+	public PlaybackResponse get(Long roomId) {
+		PlaybackResponse state = latest.get(roomId);
+		if (state == null) {
+			// Forgotten after the room emptied but updated again before the next flush
+			state = pending.get(roomId);
+		}
+		if (state != null) {
+			return state;
+		}
+		return playbackStateRepository.findResponse(roomId)
+				.map(loaded -> {
+					PlaybackResponse raced = latest.putIfAbsent(roomId, loaded);
+					return raced == null ? loaded : raced;
+				})
+				.orElse(null);
+	}
+
+	@EventListener
+	public void onRoomEmptied(RoomEmptiedEvent event) {
+		emptied.add(event.roomId());
+	}
+
+	@Scheduled(fixedDelayString = "${playback.flush-interval-ms:1000}")
+	@PreDestroy
+	public synchronized void flush() {
+		if (!pending.isEmpty()) {
+			List<PlaybackResponse> batch = new ArrayList<>(pending.size());
+			for (Long roomId : pending.keySet()) {
+				PlaybackResponse state = pending.remove(roomId);
+				if (state != null) {
+					batch.add(state);
+				}
+			}
+			flushTimer.record(() -> write(batch));
+		}
+		forgetEmptied();
+	}
+
+	private void write(List<PlaybackResponse> batch) {
+		try {
+			upsert(batch);
+		} catch (DataAccessException e) {
+			log.warn("Playback flush of {} rooms failed, retrying row by row", batch.size(), e);
+			for (PlaybackResponse state : batch) {
+				try {
+					upsert(List.of(state));
+				} catch (DataIntegrityViolationException rowFailure) {
+					failed.increment();
+					log.warn("Dropping playback state for room {}", state.getRoomId(), rowFailure);
+				} catch (DataAccessException rowFailure) {
+					pending.putIfAbsent(state.getRoomId(), state);
+				}
+			}
+		}
+	}
+
+	private void upsert(List<PlaybackResponse> batch) {
+		jdbcTemplate.batchUpdate(upsertSql(), batch, batch.size(), (ps, state) -> {
+			ps.setLong(1, state.getRoomId());
+			if (state.getTrackId() == null) {
+				ps.setNull(2, Types.BIGINT);
+			} else {
+				ps.setLong(2, state.getTrackId());
+			}
+			ps.setLong(3, state.getPositionMs());
+			ps.setBoolean(4, state.isPlaying());
+			ps.setTimestamp(5, Timestamp.valueOf(state.getUpdatedAt()));
+		});
+	}
+
+	// Only once nothing is pending for the room, and only if no newer state replaced the one checked, so a read
+	// after this always finds the latest state in the table or in memory
+	private void forgetEmptied() {
+		for (Long roomId : emptied) {
+			if (pending.containsKey(roomId)) {
+				continue;
+			}
+			emptied.remove(roomId);
+			PlaybackResponse state = latest.get(roomId);
+			if (state != null) {
+				latest.remove(roomId, state);
+			}
+		}
+	}
+
+	private String upsertSql() {
+		String sql = upsertSql;
+		if (sql == null) {
+			String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+					connection.getMetaData().getDatabaseProductName());
+			sql = "MySQL".equalsIgnoreCase(product) ? MYSQL_UPSERT_SQL : MERGE_SQL;
+			upsertSql = sql;
+		}
+		return sql;
+	}
+}
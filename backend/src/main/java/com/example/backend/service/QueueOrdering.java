@@ -0,0 +1,566 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.QueueAddRequest;
+import com.example.backend.api.dto.QueueBatchResponse;
+import com.example.backend.api.dto.QueueDiff;
+import com.example.backend.api.dto.QueueItemResponse;
+import com.example.backend.api.dto.QueueStatusChange;
+import com.example.backend.api.dto.QueueUpdateRequest;
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.IdBlock;
+import com.example.backend.domain.QueueItem;
+import com.example.backend.domain.QueueStatus;
+import com.example.backend.domain.Room;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.QueueItemRepository;
+import com.example.backend.repository.QueueRow;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.repository.TrackRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Queue positions as sparse ranks: {@code sort_order} values are spaced {@link #GAP} apart, unique per room, and
+ * only their order matters. An append takes {@code MAX(sort_order) + GAP}; a move takes the midpoint between its
+ * new neighbours and updates that one row. When moves have narrowed a gap below {@code MIN_GAP} the room is
+ * rebalanced in the background, and a move that finds no integer left between its neighbours rebalances the room
+ * first. Writes to a room are serialized on a striped lock so appends on this node never race for the same tail;
+ * a collision with another node trips the unique key and is retried with fresh ranks. Rows written before ranks were
+ * unique are renumbered at startup by {@link #renumberDuplicateRanks()}.
+ *
+ * <p>Every write advances the room's {@code queue_version} in its transaction and, once committed, publishes one
+ * {@link QueueDiff} per change to {@code /topic/room/{roomId}/queue}. The version row is updated first, so its lock
+ * orders writers across nodes and versions are gapless per room. A client holding version {@code v} applies the
+ * diff with version {@code v + 1}, ignores older ones, and refetches {@code GET /rooms/{roomId}/queue} (which reports
+ * {@code X-Queue-Version}) when it sees a gap. Diffs carry the item's full state, so applying one twice is harmless.
+ *
+ * <p>The batch operations ({@link #addAll}, {@link #reorder}, {@link #updateStatuses}) validate every referenced
+ * track, user and item with one {@code IN} query each, write with JDBC batches in a single transaction, and
+ * publish one diff for the whole batch.
+ */
+@Slf4j
+@Service
+public class QueueOrdering {
+
+	static final int GAP = 1 << 12;
+	private static final int MIN_GAP = 8;
+	private static final int ATTEMPTS = 3;
+	private static final String RANK_CONSTRAINT = "uk_queue_item_room_sort";
+	private static final String INSERT_SQL = "insert into queue_item (id, room_id, track_id, requested_by, status, "
+			+ "sort_order, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+
+	private final QueueItemRepository queueItemRepository;
+	private final RoomRepository roomRepository;
+	private final AppUserRepository appUserRepository;
+	private final TrackRepository trackRepository;
+	private final TrackCache trackCache;
+	private final IdBlocks idBlocks;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SimpMessagingTemplate messagingTemplate;
+	private final int maxBatchItems;
+	private final ReentrantLock[] locks;
+	private final Set<Long> crowded = ConcurrentHashMap.newKeySet();
+	private final Counter rebalanced;
+
+	public QueueOrdering(QueueItemRepository queueItemRepository, RoomRepository roomRepository,
+			AppUserRepository appUserRepository, TrackRepository trackRepository, TrackCache trackCache,
+			IdBlocks idBlocks, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+			@Value("${queue.lock-stripes:256}") int lockStripes,
+			@Value("${queue.batch.max-items:200}") int maxBatchItems) {
+		this.queueItemRepository = queueItemRepository;
+		this.roomRepository = roomRepository;
+		this.appUserRepository = appUserRepository;
+		this.trackRepository = trackRepository;
+		this.trackCache = trackCache;
+		this.idBlocks = idBlocks;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.messagingTemplate = messagingTemplate;
+		this.maxBatchItems = maxBatchItems;
+		this.locks = new ReentrantLock[lockStripes];
+		for (int i = 0; i < lockStripes; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.rebalanced = meterRegistry.counter("queue.rebalanced");
+		meterRegistry.gauge("queue.crowded", crowded, Set::size);
+	}
+
+	/**
+	 * Inserts an item at the end of the room's queue, or at {@code sortOrder} when the caller picked a rank.
+	 */
+	public QueueItemResponse add(Room room, TrackResponse track, AppUser requester, QueueStatus status,
+			Integer sortOrder) {
+		if (sortOrder != null && sortOrder <= 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sortOrder must be positive");
+		}
+		try {
+			return write(room.getId(), sortOrder == null, changes -> {
+				int rank = sortOrder == null ? tail(changes, 1) : sortOrder;
+				QueueItem saved = queueItemRepository.saveAndFlush(new QueueItem(room,
+						trackRepository.getReferenceById(track.getId()), requester, status, rank));
+				QueueItemResponse response = response(saved, track);
+				changes.record(QueueDiff.Op.INSERT, List.of(response), null);
+				return response;
+			});
+		} catch (DataIntegrityViolationException e) {
+			throw missingTracks(List.of(track.getId()), e);
+		}
+	}
+
+	/**
+	 * Applies a status change and at most one move: right after {@code afterItemId}, right before
+	 * {@code beforeItemId}, or to the raw rank {@code sortOrder}. Only the moved row is written.
+	 */
+	public QueueItemResponse update(Long roomId, Long queueItemId, QueueUpdateRequest request) {
+		if (request.getSortOrder() != null && request.getSortOrder() <= 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sortOrder must be positive");
+		}
+		boolean relative = request.getAfterItemId() != null || request.getBeforeItemId() != null;
+		return write(roomId, relative, changes -> {
+			QueueItem item = queueItemRepository.findById(queueItemId)
+					.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Queue item not found"));
+			if (!item.getRoom().getId().equals(roomId)) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Room mismatch");
+			}
+			QueueStatus status = request.getStatus() == null ? item.getStatus() : request.getStatus();
+			int sortOrder = relative ? move(changes, queueItemId, request)
+					: request.getSortOrder() == null ? item.getSortOrder() : request.getSortOrder();
+			boolean moved = sortOrder != item.getSortOrder();
+			item.update(status, sortOrder);
+			QueueItem updated = queueItemRepository.saveAndFlush(item);
+			QueueItemResponse response = response(updated, trackCache.get(updated.getTrack().getId()).orElse(null));
+			changes.record(moved ? QueueDiff.Op.MOVE : QueueDiff.Op.STATUS, List.of(response), null);
+			return response;
+		});
+	}
+
+	/**
+	 * Appends the items in the given order, e.g. a setlist import.
+	 */
+	public QueueBatchResponse addAll(Long roomId, List<QueueAddRequest> requests) {
+		checkBatch(requests);
+		for (QueueAddRequest request : requests) {
+			if (request.getTrackId() == null || request.getRequestedBy() == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "trackId and requestedBy are required");
+			}
+			if (request.getSortOrder() != null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch adds are appended; omit sortOrder");
+			}
+		}
+		Map<Long, TrackResponse> tracks = trackCache.getAll(
+				requests.stream().map(QueueAddRequest::getTrackId).toList());
+		Set<Long> unknownTracks = new LinkedHashSet<>();
+		Set<Long> userIds = new HashSet<>();
+		for (QueueAddRequest request : requests) {
+			if (!tracks.containsKey(request.getTrackId())) {
+				unknownTracks.add(request.getTrackId());
+			}
+			userIds.add(request.getRequestedBy());
+		}
+		if (!unknownTracks.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found: " + unknownTracks);
+		}
+		userIds.removeAll(appUserRepository.findExistingIds(userIds));
+		if (!userIds.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + userIds);
+		}
+		try {
+			return write(roomId, true, changes -> {
+				int first = tail(changes, requests.size());
+				List<QueueItemResponse> added = insertAll(roomId, requests, tracks, first);
+				changes.record(QueueDiff.Op.INSERT, added, null);
+				return new QueueBatchResponse(changes.version, added);
+			});
+		} catch (DataIntegrityViolationException e) {
+			throw missingTracks(tracks.keySet(), e);
+		}
+	}
+
+	/**
+	 * Puts the given items in the given order. They take over the ranks they held between them, so items not
+	 * listed keep their places.
+	 */
+	public QueueBatchResponse reorder(Long roomId, List<Long> itemIds) {
+		checkBatch(itemIds);
+		if (itemIds.contains(null) || new HashSet<>(itemIds).size() != itemIds.size()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "itemIds must be distinct");
+		}
+		return write(roomId, true, changes -> {
+			Map<Long, QueueRow> rows = rowsInRoom(roomId, itemIds);
+			int[] slots = rows.values().stream().mapToInt(QueueRow::getSortOrder).sorted().toArray();
+			Map<Long, Integer> ranks = new LinkedHashMap<>();
+			List<Object[]> negated = new ArrayList<>();
+			List<Object[]> assigned = new ArrayList<>();
+			for (int i = 0; i < itemIds.size(); i++) {
+				Long id = itemIds.get(i);
+				ranks.put(id, slots[i]);
+				if (rows.get(id).getSortOrder() != slots[i]) {
+					negated.add(new Object[] {id});
+					assigned.add(new Object[] {slots[i], id});
+				}
+			}
+			if (!assigned.isEmpty()) {
+				// Moved rows step aside first, so no two rows share a rank between the two batches
+				jdbcTemplate.batchUpdate("update queue_item set sort_order = -sort_order where id = ?", negated);
+				jdbcTemplate.batchUpdate("update queue_item set sort_order = ? where id = ?", assigned);
+			}
+			changes.record(QueueDiff.Op.RERANK, null, ranks);
+			return new QueueBatchResponse(changes.version, responses(itemIds, rows, null, ranks));
+		});
+	}
+
+	public QueueBatchResponse updateStatuses(Long roomId, List<QueueStatusChange> requested) {
+		checkBatch(requested);
+		Map<Long, QueueStatus> statuses = new LinkedHashMap<>();
+		for (QueueStatusChange change : requested) {
+			if (change.getId() == null || change.getStatus() == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id and status are required");
+			}
+			if (statuses.put(change.getId(), change.getStatus()) != null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+						"Item " + change.getId() + " is listed twice");
+			}
+		}
+		List<Long> itemIds = new ArrayList<>(statuses.keySet());
+		return write(roomId, false, changes -> {
+			Map<Long, QueueRow> rows = rowsInRoom(roomId, itemIds);
+			List<Object[]> updates = new ArrayList<>(itemIds.size());
+			for (Long id : itemIds) {
+				updates.add(new Object[] {statuses.get(id).name(), id});
+			}
+			jdbcTemplate.batchUpdate("update queue_item set status = ? where id = ?", updates);
+			List<QueueItemResponse> updated = responses(itemIds, rows, statuses, null);
+			changes.record(QueueDiff.Op.STATUS, updated, null);
+			return new QueueBatchResponse(changes.version, updated);
+		});
+	}
+
+	/**
+	 * Renumbers every room where rows share a rank, as older versions could write, then adds
+	 * {@code uk_queue_item_room_sort}, which schema update cannot create while such rows exist. Finds nothing to do
+	 * once a database has been migrated; when several nodes start together, the constraint is added by one of them.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void renumberDuplicateRanks() {
+		List<Long> roomIds = jdbcTemplate.queryForList(
+				"select distinct room_id from queue_item group by room_id, sort_order having count(*) > 1", Long.class);
+		if (roomIds.isEmpty()) {
+			return;
+		}
+		for (Long roomId : roomIds) {
+			write(roomId, false, changes -> {
+				rebalance(changes);
+				return null;
+			});
+		}
+		log.info("Renumbered queues of {} rooms with duplicate ranks", roomIds.size());
+		try {
+			jdbcTemplate.execute("alter table queue_item add constraint " + RANK_CONSTRAINT
+					+ " unique (room_id, sort_order)");
+		} catch (DataAccessException e) {
+			log.info("{} was not added; another node may have added it first", RANK_CONSTRAINT, e);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${queue.rebalance-interval-ms:30000}")
+	public void rebalanceCrowded() {
+		for (Long roomId : crowded) {
+			crowded.remove(roomId);
+			try {
+				write(roomId, false, changes -> {
+					rebalance(changes);
+					return null;
+				});
+			} catch (RuntimeException e) {
+				log.warn("Rebalancing queue of room {} failed", roomId, e);
+			}
+		}
+	}
+
+	/**
+	 * Spreads the room's ranks back to {@link #GAP} apart, keeping their order, and records the new ranks as one
+	 * diff. Runs inside a write.
+	 */
+	private void rebalance(Changes changes) {
+		Long roomId = changes.roomId;
+		// Negated ranks cannot collide with renumbered ones, so the unique key holds after every row
+		jdbcTemplate.update("update queue_item set sort_order = -sort_order where room_id = ?", roomId);
+		// Rows sharing a rank keep their insertion order
+		List<Long> ids = jdbcTemplate.queryForList(
+				"select id from queue_item where room_id = ? order by sort_order desc, id", Long.class, roomId);
+		long gap = Math.min(GAP, Integer.MAX_VALUE / (ids.size() + 1L));
+		List<Object[]> rows = new ArrayList<>(ids.size());
+		Map<Long, Integer> ranks = new LinkedHashMap<>();
+		for (int i = 0; i < ids.size(); i++) {
+			int rank = (int) ((i + 1) * gap);
+			rows.add(new Object[] {rank, ids.get(i)});
+			ranks.put(ids.get(i), rank);
+		}
+		jdbcTemplate.batchUpdate("update queue_item set sort_order = ? where id = ?", rows);
+		crowded.remove(roomId);
+		rebalanced.increment();
+		changes.record(QueueDiff.Op.RERANK, null, ranks);
+		log.debug("Rebalanced queue of room {} ({} items)", roomId, ids.size());
+	}
+
+	// First of count ranks appended GAP apart after the current tail
+	private int tail(Changes changes, int count) {
+		Integer max = queueItemRepository.findMaxSortOrder(changes.roomId);
+		if (max == null) {
+			return GAP;
+		}
+		if (max + (long) count * GAP > Integer.MAX_VALUE) {
+			rebalance(changes);
+			max = queueItemRepository.findMaxSortOrder(changes.roomId);
+			if (max + (long) count * GAP > Integer.MAX_VALUE) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue is full");
+			}
+		}
+		return max + GAP;
+	}
+
+	private List<QueueItemResponse> insertAll(Long roomId, List<QueueAddRequest> requests,
+			Map<Long, TrackResponse> tracks, int firstRank) {
+		LocalDateTime now = LocalDateTime.now();
+		long[] ids = new long[requests.size()];
+		List<Object[]> rows = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			QueueAddRequest request = requests.get(i);
+			ids[i] = idBlocks.next(IdBlock.QUEUE_ITEM);
+			rows.add(new Object[] {ids[i], roomId, request.getTrackId(), request.getRequestedBy(),
+					status(request).name(), firstRank + i * GAP, Timestamp.valueOf(now)});
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+		List<QueueItemResponse> added = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			QueueAddRequest request = requests.get(i);
+			TrackResponse track = tracks.get(request.getTrackId());
+			added.add(new QueueItemResponse(ids[i], track.getId(), track.getTitle(), track.getArtist(),
+					request.getRequestedBy(), status(request), firstRank + i * GAP, now));
+		}
+		return added;
+	}
+
+	private Map<Long, QueueRow> rowsInRoom(Long roomId, Collection<Long> itemIds) {
+		Map<Long, QueueRow> rows = new HashMap<>();
+		for (QueueRow row : queueItemRepository.findRowsByRoomIdAndIdIn(roomId, itemIds)) {
+			rows.put(row.getId(), row);
+		}
+		if (rows.size() != itemIds.size()) {
+			Set<Long> missing = new LinkedHashSet<>(itemIds);
+			missing.removeAll(rows.keySet());
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not in this queue: " + missing);
+		}
+		return rows;
+	}
+
+	// Rows in the given order, with the statuses or ranks just written applied
+	private List<QueueItemResponse> responses(List<Long> itemIds, Map<Long, QueueRow> rows,
+			Map<Long, QueueStatus> statuses, Map<Long, Integer> ranks) {
+		Map<Long, TrackResponse> tracks = trackCache.getAll(rows.values().stream().map(QueueRow::getTrackId).toList());
+		List<QueueItemResponse> responses = new ArrayList<>(itemIds.size());
+		for (Long id : itemIds) {
+			QueueRow row = rows.get(id);
+			TrackResponse track = tracks.get(row.getTrackId());
+			responses.add(new QueueItemResponse(
+					row.getId(),
+					row.getTrackId(),
+					track == null ? null : track.getTitle(),
+					track == null ? null : track.getArtist(),
+					row.getRequestedBy(),
+					statuses == null ? row.getStatus() : statuses.get(id),
+					ranks == null ? row.getSortOrder() : ranks.get(id),
+					row.getCreatedAt()));
+		}
+		return responses;
+	}
+
+	private void checkBatch(List<?> items) {
+		if (items == null || items.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "items must not be empty");
+		}
+		if (items.size() > maxBatchItems) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchItems + " items per batch");
+		}
+	}
+
+	private static QueueStatus status(QueueAddRequest request) {
+		return request.getStatus() == null ? QueueStatus.PENDING : request.getStatus();
+	}
+
+	private int move(Changes changes, Long queueItemId, QueueUpdateRequest request) {
+		int rank = between(changes.roomId, queueItemId, request);
+		if (rank < 0) {
+			rebalance(changes);
+			rank = between(changes.roomId, queueItemId, request);
+			if (rank < 0) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue is full");
+			}
+		}
+		return rank;
+	}
+
+	// Midpoint between the anchor and its neighbour on the requested side, or -1 when no integer is left between
+	private int between(Long roomId, Long queueItemId, QueueUpdateRequest request) {
+		boolean after = request.getAfterItemId() != null;
+		Long anchorId = after ? request.getAfterItemId() : request.getBeforeItemId();
+		if (anchorId.equals(queueItemId)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot move an item next to itself");
+		}
+		List<Integer> ranks = after
+				? queueItemRepository.findRanksFrom(roomId, anchorId, queueItemId, PageRequest.of(0, 2))
+				: queueItemRepository.findRanksUpTo(roomId, anchorId, queueItemId, PageRequest.of(0, 2));
+		if (ranks.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Anchor item is not in this queue");
+		}
+		boolean edge = ranks.size() == 1;
+		long low;
+		long high;
+		if (after) {
+			low = ranks.get(0);
+			high = edge ? Math.min(low + 2L * GAP, Integer.MAX_VALUE) : ranks.get(1);
+		} else {
+			high = ranks.get(0);
+			low = edge ? 0 : ranks.get(1);
+		}
+		if (high - low < 2) {
+			return -1;
+		}
+		long mid = low + (high - low) / 2;
+		if (mid - low < MIN_GAP) {
+			crowded.add(roomId);
+		}
+		return (int) mid;
+	}
+
+	/**
+	 * Runs one queue write: under the room's lock, in a transaction that first advances the queue version, then
+	 * publishes what it recorded after the commit. Unique-key collisions with other nodes are retried when the
+	 * rank was chosen here.
+	 */
+	private <T> T write(Long roomId, boolean ranked, Function<Changes, T> change) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return locked(roomId, () -> {
+					Changes changes = new Changes(roomId);
+					T result = transactionTemplate.execute(tx -> {
+						changes.open();
+						return change.apply(changes);
+					});
+					for (QueueDiff diff : changes.diffs) {
+						messagingTemplate.convertAndSend("/topic/room/" + roomId + "/queue", diff);
+					}
+					return result;
+				});
+			} catch (DataIntegrityViolationException e) {
+				if (!isRankCollision(e)) {
+					throw e;
+				}
+				if (!ranked || attempt == ATTEMPTS) {
+					throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue position is taken");
+				}
+				log.debug("Queue rank collision in room {}, retrying", roomId);
+			}
+		}
+	}
+
+	/**
+	 * Tracks are validated against the cache, so one deleted since can still reach the insert, where only the
+	 * foreign key notices. Answers 404 for those and evicts them; any other violation is rethrown.
+	 */
+	private RuntimeException missingTracks(Collection<Long> trackIds, DataIntegrityViolationException e) {
+		Set<Long> missing = new LinkedHashSet<>(trackIds);
+		missing.removeAll(trackRepository.findExistingIds(missing));
+		if (missing.isEmpty()) {
+			return e;
+		}
+		missing.forEach(trackCache::invalidate);
+		return new ResponseStatusException(HttpStatus.NOT_FOUND, "Track not found: " + missing);
+	}
+
+	private static boolean isRankCollision(DataIntegrityViolationException e) {
+		String message = e.getMostSpecificCause().getMessage();
+		return message != null && message.toLowerCase(Locale.ROOT).contains(RANK_CONSTRAINT);
+	}
+
+	private <T> T locked(Long roomId, Supplier<T> action) {
+		ReentrantLock lock = locks[Math.floorMod(roomId.hashCode(), locks.length)];
+		lock.lock();
+		try {
+			return action.get();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static QueueItemResponse response(QueueItem item, TrackResponse track) {
+		return new QueueItemResponse(
+				item.getId(),
+				item.getTrack().getId(),
+				track == null ? null : track.getTitle(),
+				track == null ? null : track.getArtist(),
+				item.getRequestedBy().getId(),
+				item.getStatus(),
+				item.getSortOrder(),
+				item.getCreatedAt());
+	}
+
+	// Diffs recorded by one write, numbered from the version its transaction claimed
+	private final class Changes {
+		private final Long roomId;
+		private final List<QueueDiff> diffs = new ArrayList<>(2);
+		private long version;
+
+		private Changes(Long roomId) {
+			this.roomId = roomId;
+		}
+
+		private void open() {
+			if (roomRepository.incrementQueueVersion(roomId) == 0) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+			}
+			version = roomRepository.findQueueVersion(roomId);
+		}
+
+		private void record(QueueDiff.Op op, List<QueueItemResponse> items, Map<Long, Integer> ranks) {
+			if (!diffs.isEmpty()) {
+				roomRepository.incrementQueueVersion(roomId);
+				version++;
+			}
+			diffs.add(new QueueDiff(roomId, version, op, items, ranks));
+		}
+	}
+}
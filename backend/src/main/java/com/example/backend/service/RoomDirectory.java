@@ -0,0 +1,271 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.RoomMemberResponse;
+import com.example.backend.api.dto.RoomSummaryResponse;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.repository.RoomMemberCount;
+import com.example.backend.repository.RoomMemberRepository;
+import com.example.backend.repository.RoomRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Live, in-memory index of rooms and their members. REST and signaling paths update it incrementally so lobby
+ * and member reads never touch MySQL; {@link #rebuild()} reloads it from {@code room_member} on startup and
+ * whenever {@link #reconcile()} finds the counts have drifted. Removing a room's last member publishes a
+ * {@link RoomEmptiedEvent}.
+ */
+@Slf4j
+@Service
+public class RoomDirectory {
+
+	private final RoomRepository roomRepository;
+	private final RoomMemberRepository roomMemberRepository;
+	private final ApplicationEventPublisher eventPublisher;
+
+	// Newest room first, so a keyset page is a tailMap walk.
+	private volatile ConcurrentNavigableMap<Long, LiveRoom> rooms = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+	private volatile boolean loaded;
+	// Guards writes against the swap in rebuild(); while a rebuild is loading, writes are also journaled here
+	private final Object writeLock = new Object();
+	private final Object rebuildLock = new Object();
+	private List<Consumer<Map<Long, LiveRoom>>> journal;
+
+	public RoomDirectory(RoomRepository roomRepository, RoomMemberRepository roomMemberRepository,
+			ApplicationEventPublisher eventPublisher) {
+		this.roomRepository = roomRepository;
+		this.roomMemberRepository = roomMemberRepository;
+		this.eventPublisher = eventPublisher;
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	public void register(Room room, String hostNickname) {
+		write(target -> target.putIfAbsent(room.getId(), new LiveRoom(room.getId(), room.getTitle(), room.getMode(),
+				room.getVisibility(), hostNickname, room.getCreatedAt())));
+	}
+
+	public void addMember(Long roomId, RoomMemberResponse member) {
+		write(target -> {
+			LiveRoom room = target.get(roomId);
+			if (room != null) {
+				room.members.put(member.getUserId(), member);
+			}
+		});
+	}
+
+	public void removeMember(Long roomId, Long userId) {
+		boolean emptied;
+		synchronized (writeLock) {
+			LiveRoom live = rooms.get(roomId);
+			boolean wasMember = live != null && live.members.containsKey(userId);
+			write(target -> {
+				LiveRoom room = target.get(roomId);
+				if (room != null) {
+					room.members.remove(userId);
+				}
+			});
+			emptied = wasMember && live.members.isEmpty();
+		}
+		if (emptied) {
+			eventPublisher.publishEvent(new RoomEmptiedEvent(roomId));
+		}
+	}
+
+	public void markOnline(String roomId, String userId) {
+		synchronized (writeLock) {
+			LiveRoom room = find(roomId);
+			if (room != null) {
+				room.online.add(userId);
+			}
+		}
+	}
+
+	public void markOffline(String roomId, String userId) {
+		synchronized (writeLock) {
+			LiveRoom room = find(roomId);
+			if (room != null) {
+				room.online.remove(userId);
+			}
+		}
+	}
+
+	public List<RoomSummaryResponse> list(RoomMode mode, RoomVisibility visibility, Long cursor, int size) {
+		Map<Long, LiveRoom> page = cursor == null ? rooms : rooms.tailMap(cursor, false);
+		List<RoomSummaryResponse> result = new ArrayList<>(Math.min(size, page.size()));
+		for (LiveRoom room : page.values()) {
+			if (result.size() >= size) {
+				break;
+			}
+			if ((mode == null || room.mode == mode) && (visibility == null || room.visibility == visibility)) {
+				result.add(room.toSummary());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Mode of a live room, or {@code null} when the room is not in the directory.
+	 */
+	public RoomMode mode(Long roomId) {
+		LiveRoom room = rooms.get(roomId);
+		return room == null ? null : room.mode;
+	}
+
+	/**
+	 * Member of a live room, or {@code null} when either is unknown.
+	 */
+	public RoomMemberResponse member(Long roomId, Long userId) {
+		LiveRoom room = rooms.get(roomId);
+		return room == null ? null : room.members.get(userId);
+	}
+
+	public List<RoomMemberResponse> members(Long roomId) {
+		LiveRoom room = rooms.get(roomId);
+		return room == null ? List.of() : List.copyOf(room.members.values());
+	}
+
+	/**
+	 * Replaces the whole index from the database in two queries. Writes that arrive while the queries run are
+	 * applied to the current index and journaled, then replayed onto the fresh one before it is swapped in, so a
+	 * join or leave racing the rebuild is never lost even if the queries did not see it. Replays are idempotent.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			synchronized (writeLock) {
+				journal = new ArrayList<>();
+			}
+			try {
+				swap(load());
+			} finally {
+				synchronized (writeLock) {
+					journal = null;
+				}
+			}
+		}
+	}
+
+	private ConcurrentNavigableMap<Long, LiveRoom> load() {
+		ConcurrentNavigableMap<Long, LiveRoom> fresh = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+		for (Room room : roomRepository.findAllWithHost()) {
+			fresh.put(room.getId(), new LiveRoom(room.getId(), room.getTitle(), room.getMode(), room.getVisibility(),
+					room.getHost().getNickname(), room.getCreatedAt()));
+		}
+		for (RoomMember member : roomMemberRepository.findAllWithRoomAndUser()) {
+			LiveRoom room = fresh.get(member.getRoom().getId());
+			if (room != null) {
+				room.members.put(member.getUser().getId(), new RoomMemberResponse(
+						member.getId(),
+						member.getUser().getId(),
+						member.getUser().getNickname(),
+						member.getRole(),
+						member.isMuted(),
+						member.getDeviceInfo(),
+						member.getJoinedAt()));
+			}
+		}
+		return fresh;
+	}
+
+	private void swap(ConcurrentNavigableMap<Long, LiveRoom> fresh) {
+		int replayed;
+		synchronized (writeLock) {
+			replayed = journal.size();
+			for (Consumer<Map<Long, LiveRoom>> change : journal) {
+				change.accept(fresh);
+			}
+			// Presence comes from live sockets, not the database, so carry it over.
+			for (LiveRoom room : fresh.values()) {
+				LiveRoom previous = rooms.get(room.id);
+				if (previous != null) {
+					room.online.addAll(previous.online);
+				}
+			}
+			rooms = fresh;
+		}
+		loaded = true;
+		log.info("Room directory rebuilt: {} rooms, {} concurrent changes replayed", fresh.size(), replayed);
+	}
+
+	private void write(Consumer<Map<Long, LiveRoom>> change) {
+		synchronized (writeLock) {
+			change.accept(rooms);
+			if (journal != null) {
+				journal.add(change);
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${room-directory.reconcile-interval-ms:60000}",
+			initialDelayString = "${room-directory.reconcile-interval-ms:60000}")
+	public void reconcile() {
+		List<RoomMemberCount> counts = roomMemberRepository.countGroupedByRoom();
+		long populated = rooms.values().stream().filter(room -> !room.members.isEmpty()).count();
+		boolean drifted = populated != counts.size() || roomRepository.count() != rooms.size();
+		for (RoomMemberCount count : counts) {
+			if (drifted) {
+				break;
+			}
+			LiveRoom room = rooms.get(count.getRoomId());
+			drifted = room == null || room.members.size() != count.getMemberCount();
+		}
+		if (drifted) {
+			log.warn("Room directory drifted from room_member, rebuilding");
+			rebuild();
+		}
+	}
+
+	private LiveRoom find(String roomId) {
+		try {
+			return rooms.get(Long.valueOf(roomId));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static final class LiveRoom {
+		private final Long id;
+		private final String title;
+		private final RoomMode mode;
+		private final RoomVisibility visibility;
+		private final String hostNickname;
+		private final LocalDateTime createdAt;
+		private final Map<Long, RoomMemberResponse> members = new ConcurrentHashMap<>();
+		private final Set<String> online = ConcurrentHashMap.newKeySet();
+
+		private LiveRoom(Long id, String title, RoomMode mode, RoomVisibility visibility, String hostNickname,
+				LocalDateTime createdAt) {
+			this.id = id;
+			this.title = title;
+			this.mode = mode;
+			this.visibility = visibility;
+			this.hostNickname = hostNickname;
+			this.createdAt = createdAt;
+		}
+
+		private RoomSummaryResponse toSummary() {
+			return new RoomSummaryResponse(id, title, mode, visibility, hostNickname, members.size(), online.size(),
+					createdAt);
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.example.backend.service;
+
+/**
+ * Published by {@link RoomDirectory} when the last member leaves a room, so per-room state kept in memory can be
+ * dropped.
+ */
+public record RoomEmptiedEvent(Long roomId) {
+}
@@ -0,0 +1,150 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.Track;
+import com.example.backend.repository.TrackRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read-through cache of track metadata for the queue and playback paths, which keep asking for the same popular
+ * songs. Entries are immutable {@link TrackResponse}s, so they can be shared across requests; the cache is an LRU
+ * bounded to {@code tracks.cache.max-size} whose entries also expire after {@code tracks.cache.ttl-ms}, and
+ * {@link TrackChangeListener} evicts a track as soon as a write to it commits. A load that was under way when an
+ * eviction happened may have read the old row, so it is returned but not cached. {@link #getAll} loads every miss
+ * in one {@code IN} query.
+ */
+@Service
+public class TrackCache {
+
+	private final TrackRepository trackRepository;
+	private final long ttlMs;
+	private final Map<Long, Entry> entries;
+	// Guarded by entries; bumped by every invalidation so loads that started before one are not stored
+	private long generation;
+	private final Counter hits;
+	private final Counter misses;
+
+	public TrackCache(TrackRepository trackRepository, MeterRegistry meterRegistry,
+			@Value("${tracks.cache.max-size:10000}") int maxSize,
+			@Value("${tracks.cache.ttl-ms:600000}") long ttlMs) {
+		this.trackRepository = trackRepository;
+		this.ttlMs = ttlMs;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+		this.hits = meterRegistry.counter("tracks.cache", "result", "hit");
+		this.misses = meterRegistry.counter("tracks.cache", "result", "miss");
+		Gauge.builder("tracks.cache.hit-ratio", this, TrackCache::hitRatio).register(meterRegistry);
+		Gauge.builder("tracks.cache.size", this, TrackCache::size).register(meterRegistry);
+	}
+
+	public Optional<TrackResponse> get(Long trackId) {
+		TrackResponse cached = cached(trackId);
+		if (cached != null) {
+			hits.increment();
+			return Optional.of(cached);
+		}
+		misses.increment();
+		long loadedAt = generation();
+		return trackRepository.findById(trackId).map(track -> store(track, loadedAt));
+	}
+
+	/**
+	 * The given tracks by id; unknown ids are left out. Misses are loaded together in one query.
+	 */
+	public Map<Long, TrackResponse> getAll(Collection<Long> trackIds) {
+		Map<Long, TrackResponse> found = new HashMap<>();
+		Set<Long> missing = new LinkedHashSet<>();
+		for (Long trackId : trackIds) {
+			if (found.containsKey(trackId) || missing.contains(trackId)) {
+				continue;
+			}
+			TrackResponse cached = cached(trackId);
+			if (cached != null) {
+				found.put(trackId, cached);
+			} else {
+				missing.add(trackId);
+			}
+		}
+		hits.increment(found.size());
+		misses.increment(missing.size());
+		if (!missing.isEmpty()) {
+			long loadedAt = generation();
+			for (Track track : trackRepository.findAllById(missing)) {
+				found.put(track.getId(), store(track, loadedAt));
+			}
+		}
+		return found;
+	}
+
+	public void invalidate(Long trackId) {
+		synchronized (entries) {
+			entries.remove(trackId);
+			generation++;
+		}
+	}
+
+	public double hitRatio() {
+		double total = hits.count() + misses.count();
+		return total == 0 ? 0 : hits.count() / total;
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private long generation() {
+		synchronized (entries) {
+			return generation;
+		}
+	}
+
+	private TrackResponse cached(Long trackId) {
+		synchronized (entries) {
+			Entry entry = entries.get(trackId);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expiresAt < System.currentTimeMillis()) {
+				entries.remove(trackId);
+				return null;
+			}
+			return entry.track;
+		}
+	}
+
+	private TrackResponse store(Track track, long loadedAt) {
+		TrackResponse response = new TrackResponse(
+				track.getId(),
+				track.getSourceType(),
+				track.getTitle(),
+				track.getArtist(),
+				track.getDurationSeconds(),
+				track.getUrl());
+		synchronized (entries) {
+			if (generation == loadedAt) {
+				entries.put(track.getId(), new Entry(response, System.currentTimeMillis() + ttlMs));
+			}
+		}
+		return response;
+	}
+
+	private record Entry(TrackResponse track, long expiresAt) {
+	}
+}
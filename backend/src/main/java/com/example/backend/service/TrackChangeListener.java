@@ -0,0 +1,60 @@
+package com.example.backend.service;
+
+import com.example.backend.domain.Track;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps {@link TrackSearchIndex} and {@link TrackCache} in step with {@code track} writes made through JPA.
+ * Changes are applied after the transaction commits, so a rolled-back insert never shows up in search and a
+ * concurrent read cannot re-cache the row it is replacing.
+ */
+@Component
+public class TrackChangeListener {
+
+	private final TrackSearchIndex trackSearchIndex;
+	// Hibernate creates this listener while the EntityManagerFactory that TrackCache's repository needs is still
+	// being built, so the cache is looked up on first use
+	private final ObjectProvider<TrackCache> trackCache;
+
+	public TrackChangeListener(TrackSearchIndex trackSearchIndex, ObjectProvider<TrackCache> trackCache) {
+		this.trackSearchIndex = trackSearchIndex;
+		this.trackCache = trackCache;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void saved(Track track) {
+		afterCommit(() -> {
+			trackCache.getObject().invalidate(track.getId());
+			trackSearchIndex.put(track);
+		});
+	}
+
+	@PostRemove
+	public void removed(Track track) {
+		Long trackId = track.getId();
+		afterCommit(() -> {
+			trackCache.getObject().invalidate(trackId);
+			trackSearchIndex.remove(trackId);
+		});
+	}
+
+	private void afterCommit(Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,505 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory inverted index over track titles and artists, replacing {@code LIKE '%q%'} scans. Text is NFC
+ * normalized, lower-cased and stripped of spaces and punctuation; every character and adjacent character pair of a
+ * field is a posting key, so any substring of two or more characters is found by intersecting its pairs and
+ * confirming the match on the candidate's text. Hangul is indexed a second time as initial consonants (choseong),
+ * so a query such as {@code ㅇㅇㅇ} or a half-typed {@code 아이ㅇ} finds {@code 아이유}.
+ * <p>
+ * Hits are ranked by where the query matched (exact title, title prefix, title substring, then the same for the
+ * artist), then by shorter title, and only the requested page is kept in a bounded heap. The index is loaded from
+ * {@code track} on startup and kept current by {@link TrackChangeListener} on track writes made by this node;
+ * {@link #reconcile()} rebuilds it when the table's count or highest id shows tracks added or removed elsewhere.
+ */
+@Slf4j
+@Service
+public class TrackSearchIndex {
+
+	private static final String CHOSEONG = "ㄱㄲㄴㄷㄸㄹㅁㅂㅃㅅㅆㅇㅈㅉㅊㅋㅌㅍㅎ";
+	private static final char SYLLABLE_FIRST = '가';
+	private static final char SYLLABLE_LAST = '힣';
+	private static final int SYLLABLES_PER_CHOSEONG = 21 * 28;
+	// Second half of a single-character key; U+FFFF never appears in text
+	private static final int UNIGRAM = 0xFFFF;
+	private static final Comparator<Hit> BEST_FIRST = Comparator.comparingInt((Hit hit) -> -hit.score)
+			.thenComparingInt(hit -> hit.doc.title.length())
+			.thenComparingLong(hit -> hit.doc.trackId);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Timer searchTimer;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// Guarded by lock
+	private Segment segment = new Segment();
+	private List<Consumer<Segment>> rebuildLog;
+	private volatile boolean loaded;
+	private volatile long version;
+
+	public TrackSearchIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.searchTimer = meterRegistry.timer("tracks.search");
+		meterRegistry.gauge("tracks.search.indexed", this, TrackSearchIndex::size);
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Changes whenever the indexed tracks change.
+	 */
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * Every indexed track, in no particular order.
+	 */
+	public List<TrackResponse> tracks() {
+		lock.readLock().lock();
+		try {
+			List<TrackResponse> tracks = new ArrayList<>(segment.byTrackId.size());
+			for (Doc doc : segment.docs) {
+				if (doc != null) {
+					tracks.add(doc.track);
+				}
+			}
+			return tracks;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return segment.byTrackId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Streams the whole {@code track} table into a fresh index and swaps it in. Writes that land while it loads are
+	 * applied to both the old index and, at the swap, the new one.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			rebuildLog = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		Segment fresh = new Segment();
+		try {
+			jdbcTemplate.query("select id, source_type, title, artist, duration_seconds, url from track order by id",
+					(RowCallbackHandler) rs -> fresh.add(new TrackResponse(
+							rs.getLong("id"),
+							TrackSourceType.valueOf(rs.getString("source_type")),
+							rs.getString("title"),
+							rs.getString("artist"),
+							rs.getObject("duration_seconds", Integer.class),
+							rs.getString("url"))));
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				rebuildLog = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+		lock.writeLock().lock();
+		try {
+			rebuildLog.forEach(write -> write.accept(fresh));
+			rebuildLog = null;
+			segment = fresh;
+			version++;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		loaded = true;
+		log.info("Track search index rebuilt: {} tracks", fresh.byTrackId.size());
+	}
+
+	@Scheduled(fixedDelayString = "${tracks.search.reconcile-interval-ms:60000}",
+			initialDelayString = "${tracks.search.reconcile-interval-ms:60000}")
+	public void reconcile() {
+		if (!loaded) {
+			return;
+		}
+		long[] table = jdbcTemplate.queryForObject("select count(*), coalesce(max(id), 0) from track",
+				(rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)});
+		long indexed;
+		long maxId;
+		lock.readLock().lock();
+		try {
+			indexed = segment.byTrackId.size();
+			maxId = segment.byTrackId.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+		} finally {
+			lock.readLock().unlock();
+		}
+		if (indexed != table[0] || maxId != table[1]) {
+			log.warn("Track search index drifted from track ({} indexed, {} stored), rebuilding", indexed, table[0]);
+			rebuild();
+		}
+	}
+
+	public void put(Track track) {
+		TrackResponse response = new TrackResponse(
+				track.getId(),
+				track.getSourceType(),
+				track.getTitle(),
+				track.getArtist(),
+				track.getDurationSeconds(),
+				track.getUrl());
+		write(target -> target.add(response));
+	}
+
+	public void remove(Long trackId) {
+		write(target -> target.remove(trackId));
+	}
+
+	/**
+	 * Ranked page of tracks whose title or artist contains {@code query}, ignoring case, spaces and punctuation.
+	 */
+	public List<TrackResponse> search(String query, int offset, int limit) {
+		String normalized = normalize(query);
+		if (normalized.isEmpty() || offset < 0 || limit <= 0) {
+			return List.of();
+		}
+		return searchTimer.record(() -> {
+			lock.readLock().lock();
+			try {
+				return segment.search(normalized, offset, limit);
+			} finally {
+				lock.readLock().unlock();
+			}
+		});
+	}
+
+	private void write(Consumer<Segment> write) {
+		lock.writeLock().lock();
+		try {
+			write.accept(segment);
+			version++;
+			if (rebuildLog != null) {
+				rebuildLog.add(write);
+			}
+			if (segment.needsCompaction()) {
+				segment = segment.compact();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+		StringBuilder out = new StringBuilder(composed.length());
+		for (int i = 0; i < composed.length(); i++) {
+			char c = composed.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				out.append(Character.toLowerCase(c));
+			}
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Replaces each Hangul syllable with its initial consonant; other characters are kept.
+	 */
+	static String choseong(String normalized) {
+		char[] chars = normalized.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = choseong(chars[i]);
+		}
+		return new String(chars);
+	}
+
+	static char choseong(char c) {
+		return c >= SYLLABLE_FIRST && c <= SYLLABLE_LAST
+				? CHOSEONG.charAt((c - SYLLABLE_FIRST) / SYLLABLES_PER_CHOSEONG)
+				: c;
+	}
+
+	private static boolean isChoseong(char c) {
+		return CHOSEONG.indexOf(c) >= 0;
+	}
+
+	static boolean hasChoseong(String normalized) {
+		for (int i = 0; i < normalized.length(); i++) {
+			if (isChoseong(normalized.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] keys(String text) {
+		if (text.length() == 1) {
+			return new int[] {key(text.charAt(0), UNIGRAM)};
+		}
+		int[] keys = new int[text.length() - 1];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = key(text.charAt(i), text.charAt(i + 1));
+		}
+		return keys;
+	}
+
+	private static int key(int first, int second) {
+		return first << 16 | second;
+	}
+
+	/**
+	 * Position of the first match of {@code query} in {@code text}, or -1. With {@code jamo}, an initial consonant in
+	 * the query also matches any syllable starting with it.
+	 */
+	private static int indexOf(String text, String query, boolean jamo) {
+		if (!jamo) {
+			return text.indexOf(query);
+		}
+		for (int start = 0; start + query.length() <= text.length(); start++) {
+			int i = 0;
+			while (i < query.length()) {
+				char q = query.charAt(i);
+				char t = text.charAt(start + i);
+				if (q != t && !(isChoseong(q) && choseong(t) == q)) {
+					break;
+				}
+				i++;
+			}
+			if (i == query.length()) {
+				return start;
+			}
+		}
+		return -1;
+	}
+
+	private static int fieldScore(String text, String query, boolean jamo, int exact, int prefix, int contains) {
+		int position = indexOf(text, query, jamo);
+		if (position < 0) {
+			return 0;
+		}
+		if (position > 0) {
+			return contains;
+		}
+		return text.length() == query.length() ? exact : prefix;
+	}
+
+	/**
+	 * Sorted, append-only postings. Documents only ever get higher ids, so appending keeps them sorted.
+	 */
+	private static final class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		private void add(int value) {
+			if (size > 0 && values[size - 1] == value) {
+				return;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	private static final class Doc {
+		private final long trackId;
+		private final TrackResponse track;
+		private final String title;
+		private final String artist;
+
+		private Doc(TrackResponse track) {
+			this.trackId = track.getId();
+			this.track = track;
+			this.title = normalize(track.getTitle());
+			this.artist = normalize(track.getArtist());
+		}
+	}
+
+	private record Hit(Doc doc, int score) {
+	}
+
+	private static final class Segment {
+		// Internal id -> document, null once removed
+		private final List<Doc> docs = new ArrayList<>();
+		private final Map<Long, Integer> byTrackId = new HashMap<>();
+		private final Map<Integer, IntList> postings = new HashMap<>();
+		private final Map<Integer, IntList> choseongPostings = new HashMap<>();
+		private int removed;
+
+		private void add(TrackResponse track) {
+			remove(track.getId());
+			Doc doc = new Doc(track);
+			int id = docs.size();
+			docs.add(doc);
+			byTrackId.put(doc.trackId, id);
+			index(postings, doc.title, id);
+			index(postings, doc.artist, id);
+			indexChoseong(doc.title, id);
+			indexChoseong(doc.artist, id);
+		}
+
+		private void remove(Long trackId) {
+			Integer id = byTrackId.remove(trackId);
+			if (id != null) {
+				docs.set(id, null);
+				removed++;
+			}
+		}
+
+		private void index(Map<Integer, IntList> target, String text, int id) {
+			if (text.isEmpty()) {
+				return;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				target.computeIfAbsent(key(text.charAt(i), UNIGRAM), k -> new IntList()).add(id);
+				if (i + 1 < text.length()) {
+					target.computeIfAbsent(key(text.charAt(i), text.charAt(i + 1)), k -> new IntList()).add(id);
+				}
+			}
+		}
+
+		private void indexChoseong(String text, int id) {
+			String initials = choseong(text);
+			// Text without Hangul syllables is already covered by the plain postings
+			if (!initials.equals(text)) {
+				index(choseongPostings, initials, id);
+			}
+		}
+
+		private boolean needsCompaction() {
+			return removed > 1024 && removed > docs.size() / 2;
+		}
+
+		private Segment compact() {
+			Segment compacted = new Segment();
+			for (Doc doc : docs) {
+				if (doc != null) {
+					compacted.add(doc.track);
+				}
+			}
+			return compacted;
+		}
+
+		private List<TrackResponse> search(String query, int offset, int limit) {
+			if (offset >= byTrackId.size()) {
+				return List.of();
+			}
+			boolean jamo = hasChoseong(query);
+			int[] candidates = candidates(postings, query);
+			if (jamo) {
+				candidates = union(candidates, candidates(choseongPostings, choseong(query)));
+			}
+			int wanted = offset + Math.min(limit, byTrackId.size() - offset);
+			PriorityQueue<Hit> top = new PriorityQueue<>(BEST_FIRST.reversed());
+			for (int id : candidates) {
+				Doc doc = docs.get(id);
+				if (doc == null) {
+					continue;
+				}
+				int score = fieldScore(doc.title, query, jamo, 100, 70, 40)
+						+ fieldScore(doc.artist, query, jamo, 50, 35, 20);
+				if (score == 0) {
+					continue;
+				}
+				Hit hit = new Hit(doc, score);
+				if (top.size() < wanted) {
+					top.add(hit);
+				} else if (BEST_FIRST.compare(hit, top.peek()) < 0) {
+					top.poll();
+					top.add(hit);
+				}
+			}
+			List<Hit> ranked = new ArrayList<>(top);
+			ranked.sort(BEST_FIRST);
+			List<TrackResponse> page = new ArrayList<>(Math.max(0, ranked.size() - offset));
+			for (int i = offset; i < ranked.size(); i++) {
+				page.add(ranked.get(i).doc.track);
+			}
+			return page;
+		}
+
+		private static int[] candidates(Map<Integer, IntList> source, String query) {
+			int[] keys = keys(query);
+			IntList[] lists = new IntList[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				lists[i] = source.get(keys[i]);
+				if (lists[i] == null) {
+					return new int[0];
+				}
+			}
+			Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+			int[] result = lists[0].toArray();
+			int size = result.length;
+			for (int i = 1; i < lists.length && size > 0; i++) {
+				size = intersect(result, size, lists[i]);
+			}
+			return Arrays.copyOf(result, size);
+		}
+
+		// Keeps the values of result[0..size) that are also in list; both are sorted
+		private static int intersect(int[] result, int size, IntList list) {
+			int kept = 0;
+			int j = 0;
+			for (int i = 0; i < size && j < list.size; i++) {
+				int value = result[i];
+				while (j < list.size && list.values[j] < value) {
+					j++;
+				}
+				if (j < list.size && list.values[j] == value) {
+					result[kept++] = value;
+				}
+			}
+			return kept;
+		}
+
+		private static int[] union(int[] a, int[] b) {
+			int[] merged = new int[a.length + b.length];
+			int i = 0;
+			int j = 0;
+			int size = 0;
+			while (i < a.length || j < b.length) {
+				int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+				if (size == 0 || merged[size - 1] != next) {
+					merged[size++] = next;
+				}
+			}
+			return Arrays.copyOf(merged, size);
+		}
+	}
+}
@@ -0,0 +1,368 @@
+package com.example.backend.service;
+
+import com.example.backend.api.dto.TrackResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Typeahead over track titles, artists and the words inside titles, ordered by popularity (how many times a track
+ * was queued). Keys are normalized like {@link TrackSearchIndex} and kept in one sorted array, so a prefix is a
+ * contiguous range found by binary search; a max-popularity segment tree over that array yields the top N of any
+ * range without scanning it. Hangul keys are also stored by initial consonants for {@code ㅂㄴ}-style input.
+ * <p>
+ * The keys are fixed per table, which is rebuilt in the background when tracks change or at least every
+ * {@code tracks.suggest.max-age-ms} to pick up other nodes' queues. A queue on this node only raises that track's
+ * scores in place (a point update of the tree) and evicts the cached prefixes it matches. Each table carries a
+ * bounded LRU of answered prefixes, so repeated keystrokes across users are served from memory.
+ */
+@Slf4j
+@Service
+public class TrackSuggester {
+
+	private final TrackSearchIndex trackSearchIndex;
+	private final JdbcTemplate jdbcTemplate;
+	private final int cacheSize;
+	private final long maxAgeMs;
+	private final Counter cacheHits;
+	private final Counter cacheMisses;
+	private final Object queuedLock = new Object();
+	// Guarded by queuedLock; tracks queued while a rebuild runs, replayed onto the fresh table
+	private List<Long> queuedDuringRebuild;
+	private volatile Snapshot snapshot;
+
+	public TrackSuggester(TrackSearchIndex trackSearchIndex, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+			@Value("${tracks.suggest.cache-size:10000}") int cacheSize,
+			@Value("${tracks.suggest.max-age-ms:300000}") long maxAgeMs) {
+		this.trackSearchIndex = trackSearchIndex;
+		this.jdbcTemplate = jdbcTemplate;
+		this.cacheSize = cacheSize;
+		this.maxAgeMs = maxAgeMs;
+		this.cacheHits = meterRegistry.counter("tracks.suggest.cache", "result", "hit");
+		this.cacheMisses = meterRegistry.counter("tracks.suggest.cache", "result", "miss");
+	}
+
+	public boolean isReady() {
+		return snapshot != null;
+	}
+
+	/**
+	 * Records that a track was queued here, raising its popularity in the current table.
+	 */
+	public void queued(Long trackId) {
+		Snapshot current;
+		synchronized (queuedLock) {
+			if (queuedDuringRebuild != null) {
+				queuedDuringRebuild.add(trackId);
+			}
+			current = snapshot;
+		}
+		if (current != null) {
+			current.queued(trackId);
+		}
+	}
+
+	/**
+	 * Up to {@code limit} tracks with a title, artist or title word starting with {@code query}, most queued first.
+	 */
+	public List<TrackResponse> suggest(String query, int limit) {
+		Snapshot current = snapshot;
+		String prefix = TrackSearchIndex.normalize(query);
+		if (current == null || prefix.isEmpty() || limit <= 0) {
+			return List.of();
+		}
+		current.lock.readLock().lock();
+		try {
+			String cacheKey = limit + ":" + prefix;
+			List<TrackResponse> cached;
+			synchronized (current.cache) {
+				cached = current.cache.get(cacheKey);
+			}
+			if (cached != null) {
+				cacheHits.increment();
+				return cached;
+			}
+			cacheMisses.increment();
+			List<TrackResponse> result = List.copyOf(current.top(prefix, limit));
+			synchronized (current.cache) {
+				current.cache.put(cacheKey, result);
+			}
+			return result;
+		} finally {
+			current.lock.readLock().unlock();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${tracks.suggest.refresh-interval-ms:10000}")
+	public void refresh() {
+		if (!trackSearchIndex.isLoaded()) {
+			return;
+		}
+		Snapshot current = snapshot;
+		boolean stale = current == null
+				|| current.indexVersion != trackSearchIndex.version()
+				|| System.currentTimeMillis() - current.builtAt > maxAgeMs;
+		if (stale) {
+			rebuild();
+		}
+	}
+
+	public synchronized void rebuild() {
+		long indexVersion = trackSearchIndex.version();
+		synchronized (queuedLock) {
+			queuedDuringRebuild = new ArrayList<>();
+		}
+		Map<Long, Integer> popularity = new HashMap<>();
+		jdbcTemplate.query("select track_id, count(*) from queue_item group by track_id",
+				(RowCallbackHandler) rs -> popularity.put(rs.getLong(1), rs.getInt(2)));
+		List<Entry> plain = new ArrayList<>();
+		List<Entry> initials = new ArrayList<>();
+		for (TrackResponse track : trackSearchIndex.tracks()) {
+			int score = popularity.getOrDefault(track.getId(), 0);
+			for (String key : keys(track)) {
+				plain.add(new Entry(key, key, track, score));
+				String choseong = TrackSearchIndex.choseong(key);
+				if (!choseong.equals(key)) {
+					initials.add(new Entry(choseong, key, track, score));
+				}
+			}
+		}
+		Snapshot fresh = new Snapshot(new PrefixTable(plain), new PrefixTable(initials), indexVersion, cacheSize);
+		synchronized (queuedLock) {
+			// A queue that committed just before the count may be counted twice until the next rebuild
+			queuedDuringRebuild.forEach(fresh::queued);
+			queuedDuringRebuild = null;
+			snapshot = fresh;
+		}
+		log.info("Track suggestions rebuilt: {} keys", plain.size() + initials.size());
+	}
+
+	/**
+	 * Normalized title, artist, and the rest of the title from each word on, so "Spring Day" is found by "day".
+	 */
+	private static Set<String> keys(TrackResponse track) {
+		Set<String> keys = new HashSet<>();
+		addKey(keys, track.getArtist());
+		String title = track.getTitle() == null ? "" : track.getTitle();
+		boolean wordStart = true;
+		for (int i = 0; i < title.length(); i++) {
+			boolean letter = Character.isLetterOrDigit(title.charAt(i));
+			if (letter && wordStart) {
+				addKey(keys, title.substring(i));
+			}
+			wordStart = !letter;
+		}
+		return keys;
+	}
+
+	private static void addKey(Set<String> keys, String text) {
+		String key = TrackSearchIndex.normalize(text);
+		if (!key.isEmpty()) {
+			keys.add(key);
+		}
+	}
+
+	/**
+	 * Whether {@code key} starts with {@code prefix}, letting an initial consonant in the prefix stand for any
+	 * syllable that starts with it.
+	 */
+	private static boolean startsWithJamo(String key, String prefix) {
+		if (key.length() < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			char p = prefix.charAt(i);
+			char k = key.charAt(i);
+			if (p != k && TrackSearchIndex.choseong(k) != p) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private record Entry(String key, String source, TrackResponse track, int score) {
+	}
+
+	private static final class Snapshot {
+		private final PrefixTable plain;
+		private final PrefixTable initials;
+		private final long indexVersion;
+		private final long builtAt = System.currentTimeMillis();
+		private final Map<String, List<TrackResponse>> cache;
+		// Read for answers, write for popularity updates
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private Snapshot(PrefixTable plain, PrefixTable initials, long indexVersion, int cacheSize) {
+			this.plain = plain;
+			this.initials = initials;
+			this.indexVersion = indexVersion;
+			this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<TrackResponse>> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		}
+
+		private List<TrackResponse> top(String prefix, int limit) {
+			if (!TrackSearchIndex.hasChoseong(prefix)) {
+				return plain.top(prefix, limit, null);
+			}
+			return initials.top(TrackSearchIndex.choseong(prefix), limit, source -> startsWithJamo(source, prefix));
+		}
+
+		private void queued(Long trackId) {
+			lock.writeLock().lock();
+			try {
+				List<String> keys = plain.bump(trackId);
+				initials.bump(trackId);
+				if (keys.isEmpty()) {
+					return;
+				}
+				synchronized (cache) {
+					cache.keySet().removeIf(cacheKey -> {
+						String prefix = cacheKey.substring(cacheKey.indexOf(':') + 1);
+						return keys.stream().anyMatch(key -> startsWithJamo(key, prefix));
+					});
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	private static final class PrefixTable {
+		private final String[] keys;
+		private final String[] sources;
+		private final TrackResponse[] tracks;
+		private final int[] scores;
+		// tree[size + i] = i; inner nodes hold the index of the higher score below them
+		private final int[] tree;
+		private final int size;
+		private final Map<Long, List<Integer>> entriesByTrack = new HashMap<>();
+
+		private PrefixTable(List<Entry> entries) {
+			entries.sort(Comparator.comparing(Entry::key));
+			size = entries.size();
+			keys = new String[size];
+			sources = new String[size];
+			tracks = new TrackResponse[size];
+			scores = new int[size];
+			tree = new int[Math.max(2 * size, 1)];
+			for (int i = 0; i < size; i++) {
+				Entry entry = entries.get(i);
+				keys[i] = entry.key();
+				sources[i] = entry.source();
+				tracks[i] = entry.track();
+				scores[i] = entry.score();
+				tree[size + i] = i;
+				entriesByTrack.computeIfAbsent(entry.track().getId(), trackId -> new ArrayList<>()).add(i);
+			}
+			for (int node = size - 1; node > 0; node--) {
+				tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+			}
+		}
+
+		private List<TrackResponse> top(String prefix, int limit, Predicate<String> accept) {
+			int from = lowerBound(prefix);
+			int to = lowerBound(prefix + Character.MAX_VALUE);
+			List<TrackResponse> result = new ArrayList<>(limit);
+			if (from >= to) {
+				return result;
+			}
+			Set<Long> seen = new HashSet<>();
+			// Ranges ordered by their best entry; splitting around the best visits entries in score order
+			PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+			ranges.add(new int[] {from, to, best(from, to)});
+			int budget = limit * 64;
+			while (!ranges.isEmpty() && result.size() < limit && budget-- > 0) {
+				int[] range = ranges.poll();
+				int best = range[2];
+				if ((accept == null || accept.test(sources[best])) && seen.add(tracks[best].getId())) {
+					result.add(tracks[best]);
+				}
+				if (range[0] < best) {
+					ranges.add(new int[] {range[0], best, best(range[0], best)});
+				}
+				if (best + 1 < range[1]) {
+					ranges.add(new int[] {best + 1, range[1], best(best + 1, range[1])});
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Adds one to every entry of the track and fixes the tree above each; returns the bumped entries' sources.
+		 */
+		private List<String> bump(Long trackId) {
+			List<Integer> entries = entriesByTrack.getOrDefault(trackId, List.of());
+			List<String> bumped = new ArrayList<>(entries.size());
+			for (int i : entries) {
+				scores[i]++;
+				for (int node = (size + i) >> 1; node > 0; node >>= 1) {
+					tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+				}
+				bumped.add(sources[i]);
+			}
+			return bumped;
+		}
+
+		private int lowerBound(String key) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid].compareTo(key) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		// Index of the best entry in [from, to)
+		private int best(int from, int to) {
+			int best = from;
+			for (int l = from + size, r = to + size; l < r; l >>= 1, r >>= 1) {
+				if ((l & 1) == 1) {
+					best = better(best, tree[l++]);
+				}
+				if ((r & 1) == 1) {
+					best = better(best, tree[--r]);
+				}
+			}
+			return best;
+		}
+
+		// Higher score wins; ties go to the shorter title, then the earlier key
+		private int better(int a, int b) {
+			if (scores[a] != scores[b]) {
+				return scores[a] > scores[b] ? a : b;
+			}
+			int titleA = tracks[a].getTitle() == null ? 0 : tracks[a].getTitle().length();
+			int titleB = tracks[b].getTitle() == null ? 0 : tracks[b].getTitle().length();
+			if (titleA != titleB) {
+				return titleA < titleB ? a : b;
+			}
+			return Math.min(a, b);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.ChatMessagePayload;
+import com.example.backend.service.RoomEmptiedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Numbers chat frames per room and keeps the last {@code chat.replay.buffer-size} of them, so a client that
+ * reconnects can ask for everything after the last {@code seq} it saw instead of reloading history. Each room has
+ * one preallocated array of frame references indexed by {@code seq & mask}; publishing stores a reference and
+ * allocates nothing. Frames are broadcast while the room's ring is locked, so they reach the broker in {@code seq}
+ * order. This is the only in-memory copy of recent chat; history pages are read from the table.
+ * <p>
+ * In relay mode sequences are per node; frames carry {@code node} and a replay holds only the frames sequenced by
+ * the node the client is connected to, so it is never reported complete. A room's ring is dropped when the room
+ * empties ({@link RoomEmptiedEvent}) or, every {@code chat.replay.sweep-ms}, once this node has no presence left in
+ * it; a later replay for that room is incomplete and the client reloads history.
+ */
+@Component
+public class ChatSequencer {
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final PresenceRegistry presenceRegistry;
+	private final boolean relay;
+	private final int capacity;
+	private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+	public ChatSequencer(SimpMessagingTemplate messagingTemplate, PresenceRegistry presenceRegistry,
+			@Value("${messaging.broker.mode:simple}") String brokerMode,
+			@Value("${chat.replay.buffer-size:256}") int bufferSize) {
+		this.messagingTemplate = messagingTemplate;
+		this.presenceRegistry = presenceRegistry;
+		this.relay = "relay".equalsIgnoreCase(brokerMode);
+		this.capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+	}
+
+	/**
+	 * Assigns the next sequence number for the room and broadcasts the frame on {@code /topic/room/{roomId}/chat}.
+	 */
+	public void publish(String roomId, ChatMessagePayload message) {
+		Ring ring = rings.computeIfAbsent(roomId, id -> new Ring(capacity));
+		synchronized (ring) {
+			long seq = ++ring.lastSeq;
+			message.seq = seq;
+			message.node = presenceRegistry.nodeId();
+			ring.frames[(int) (seq & ring.mask)] = message;
+			messagingTemplate.convertAndSend("/topic/room/" + roomId + "/chat", message);
+		}
+	}
+
+	/**
+	 * Frames after {@code sinceSeq} still held for the room. {@code complete} is false when some of them have
+	 * already been overwritten, {@code sinceSeq} is from before a restart, or other nodes may have sequenced frames
+	 * of their own (relay mode); the client should then fill the gap from the REST history.
+	 */
+	public ChatReplay replay(String roomId, long sinceSeq) {
+		Ring ring = rings.get(roomId);
+		if (ring == null) {
+			return new ChatReplay(roomId, presenceRegistry.nodeId(), sinceSeq, 0, !relay && sinceSeq <= 0,
+					List.of());
+		}
+		synchronized (ring) {
+			long oldest = Math.max(1, ring.lastSeq - ring.frames.length + 1);
+			long from = Math.max(sinceSeq + 1, oldest);
+			List<ChatMessagePayload> messages = new ArrayList<>((int) Math.max(0, ring.lastSeq - from + 1));
+			for (long seq = from; seq <= ring.lastSeq; seq++) {
+				messages.add(ring.frames[(int) (seq & ring.mask)]);
+			}
+			return new ChatReplay(roomId, presenceRegistry.nodeId(), sinceSeq, ring.lastSeq,
+					!relay && sinceSeq + 1 >= oldest && sinceSeq <= ring.lastSeq, messages);
+		}
+	}
+
+	@EventListener
+	public void onRoomEmptied(RoomEmptiedEvent event) {
+		rings.remove(event.roomId().toString());
+	}
+
+	@Scheduled(fixedDelayString = "${chat.replay.sweep-ms:60000}")
+	public void sweep() {
+		rings.keySet().removeIf(roomId -> !presenceRegistry.isOccupied(roomId));
+	}
+
+	public static class ChatReplay {
+		public String roomId;
+		public String node;
+		public long sinceSeq;
+		public long latestSeq;
+		public boolean complete;
+		public List<ChatMessagePayload> messages;
+
+		public ChatReplay() {}
+
+		public ChatReplay(String roomId, String node, long sinceSeq, long latestSeq, boolean complete,
+				List<ChatMessagePayload> messages) {
+			this.roomId = roomId;
+			this.node = node;
+			this.sinceSeq = sinceSeq;
+			this.latestSeq = latestSeq;
+			this.complete = complete;
+			this.messages = messages;
+		}
+	}
+
+	private static final class Ring {
+		private final ChatMessagePayload[] frames;
+		private final long mask;
+		private long lastSeq;
+
+		private Ring(int capacity) {
+			this.frames = new ChatMessagePayload[capacity];
+			this.mask = capacity - 1;
+		}
+	}
+}
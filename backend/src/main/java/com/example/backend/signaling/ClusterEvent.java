@@ -0,0 +1,41 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.SignalMessage;
+import com.example.backend.api.SignalingController.UserInfo;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envelope exchanged between backend nodes over the broker relay.
+ */
+public class ClusterEvent {
+
+	public enum Type {
+		JOIN,
+		LEAVE,
+		HEARTBEAT,
+		SIGNAL,
+		SNAPSHOT_REQUEST,
+		SNAPSHOT
+	}
+
+	public Type type;
+	public String node;
+	public String roomId;
+	public UserInfo user;
+	public long version;
+	public SignalMessage signal;
+	// SNAPSHOT: the sender's local members and roster version per room; version is the sender's clock when taken
+	public Map<String, List<UserInfo>> members;
+	public Map<String, Long> versions;
+
+	public ClusterEvent() {}
+
+	public ClusterEvent(Type type, String node, String roomId, UserInfo user, long version) {
+		this.type = type;
+		this.node = node;
+		this.roomId = roomId;
+		this.user = user;
+		this.version = version;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.backend.signaling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Receives {@link ClusterEvent}s from the broker relay's system subscriptions: presence gossip goes to
+ * {@link ClusterPresence}, signals forwarded by another node are delivered to the local session.
+ */
+@Slf4j
+@Component
+public class ClusterEventHandler implements MessageHandler {
+
+	private final ObjectMapper objectMapper;
+	private final ClusterPresence clusterPresence;
+	private final SignalRouter signalRouter;
+
+	public ClusterEventHandler(ObjectMapper objectMapper, ClusterPresence clusterPresence, SignalRouter signalRouter) {
+		this.objectMapper = objectMapper;
+		this.clusterPresence = clusterPresence;
+		this.signalRouter = signalRouter;
+	}
+
+	@Override
+	public void handleMessage(Message<?> message) {
+		if (!(message.getPayload() instanceof byte[] payload)) {
+			return;
+		}
+		ClusterEvent event;
+		try {
+			event = objectMapper.readValue(payload, ClusterEvent.class);
+		} catch (IOException e) {
+			log.warn("Ignoring malformed cluster event", e);
+			return;
+		}
+		if (event.type == ClusterEvent.Type.SIGNAL) {
+			signalRouter.deliverLocal(event.roomId, event.signal);
+		} else {
+			clusterPresence.apply(event);
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.SignalMessage;
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Presence of users connected to other backend nodes, kept in sync over the external broker when
+ * {@code messaging.broker.mode=relay}. Every node gossips its local joins and leaves on
+ * {@link #PRESENCE_DESTINATION} and receives them through a relay system subscription, so a snapshot handed to a
+ * joiner covers the whole room and a signal for a user on another node can be forwarded to that node's private
+ * destination. Nodes that stop heartbeating are dropped after {@code messaging.cluster.node-timeout-ms}.
+ * In simple-broker mode every method is a no-op and the room is served by {@link PresenceRegistry} alone.
+ *
+ * <p>Gossip only carries changes, so a node that starts or reconnects asks everyone for a snapshot of their local
+ * members once its relay connection is up, and asks any node it hears from for the first time (or again after
+ * expiring it). A snapshot replaces everything known about its sender, except rooms where an event newer than the
+ * snapshot has already been applied.
+ *
+ * <p>Only presence and signaling span nodes. {@code RoomDirectory} online counts, chat sequence numbers
+ * ({@code ChatSequencer}) and the karaoke clock ({@code PlaybackClock}) are still per node, so a room whose members
+ * are spread over several nodes sees per-node online counts, per-node chat seqs (frames carry {@code node}) and a
+ * clock per node.
+ */
+@Slf4j
+@Component
+public class ClusterPresence {
+
+	// Node-to-node traffic only; ClusterDestinationGuard keeps client frames off it
+	public static final String CLUSTER_PREFIX = "/topic/cluster.";
+	public static final String PRESENCE_DESTINATION = CLUSTER_PREFIX + "presence";
+	public static final String NODE_DESTINATION_PREFIX = CLUSTER_PREFIX + "node.";
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final PresenceRegistry presenceRegistry;
+	private final RosterBroadcaster rosterBroadcaster;
+	private final ObjectMapper objectMapper;
+	private final boolean enabled;
+	private final long nodeTimeoutMs;
+	private final Map<String, Map<String, RemoteMember>> remoteRooms = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, Long>> remoteVersions = new ConcurrentHashMap<>();
+	private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+	public ClusterPresence(SimpMessagingTemplate messagingTemplate, PresenceRegistry presenceRegistry,
+			RosterBroadcaster rosterBroadcaster, ObjectMapper objectMapper,
+			@Value("${messaging.broker.mode:simple}") String brokerMode,
+			@Value("${messaging.cluster.node-timeout-ms:15000}") long nodeTimeoutMs) {
+		this.messagingTemplate = messagingTemplate;
+		this.presenceRegistry = presenceRegistry;
+		this.rosterBroadcaster = rosterBroadcaster;
+		this.objectMapper = objectMapper;
+		this.enabled = "relay".equalsIgnoreCase(brokerMode);
+		this.nodeTimeoutMs = nodeTimeoutMs;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void joined(String roomId, UserInfo user) {
+		publish(ClusterEvent.Type.JOIN, roomId, user);
+	}
+
+	public void left(String roomId, UserInfo user) {
+		publish(ClusterEvent.Type.LEAVE, roomId, user);
+	}
+
+	/**
+	 * Node currently holding the user's socket for the room, or {@code null} when unknown.
+	 */
+	public String nodeOf(String roomId, String userId) {
+		Map<String, RemoteMember> members = remoteRooms.get(roomId);
+		RemoteMember member = members == null ? null : members.get(userId);
+		return member == null ? null : member.node();
+	}
+
+	public void forwardSignal(String node, String roomId, SignalMessage message) {
+		ClusterEvent event = new ClusterEvent(ClusterEvent.Type.SIGNAL, presenceRegistry.nodeId(), roomId, null, 0);
+		event.signal = message;
+		messagingTemplate.convertAndSend(NODE_DESTINATION_PREFIX + node, event);
+	}
+
+	/**
+	 * Local roster merged with remote members. Falls back to the cached local roster when nobody in the room is
+	 * connected elsewhere.
+	 */
+	public PresenceRegistry.Roster roster(String roomId) {
+		PresenceRegistry.Roster local = presenceRegistry.roster(roomId);
+		Map<String, RemoteMember> remote = remoteRooms.get(roomId);
+		if (remote == null || remote.isEmpty()) {
+			return local;
+		}
+		Map<String, UserInfo> merged = new LinkedHashMap<>();
+		remote.forEach((userId, member) -> merged.put(userId, member.user()));
+		presenceRegistry.members(roomId).forEach(user -> merged.put(user.oderId, user));
+		try {
+			return new PresenceRegistry.Roster(local.version(), objectMapper.writeValueAsBytes(merged.values()));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to serialize roster for room " + roomId, e);
+		}
+	}
+
+	/**
+	 * Last roster version heard from each remote node for the room, as {@code node=version,...}.
+	 */
+	public String remoteVersions(String roomId) {
+		Map<String, Long> versions = remoteVersions.get(roomId);
+		if (versions == null) {
+			return "";
+		}
+		return versions.entrySet().stream()
+				.map(entry -> entry.getKey() + "=" + entry.getValue())
+				.collect(Collectors.joining(","));
+	}
+
+	@EventListener
+	public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+		if (enabled && event.isBrokerAvailable()) {
+			messagingTemplate.convertAndSend(PRESENCE_DESTINATION,
+					new ClusterEvent(ClusterEvent.Type.SNAPSHOT_REQUEST, presenceRegistry.nodeId(), null, null, 0));
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${messaging.cluster.heartbeat-ms:5000}")
+	public void heartbeat() {
+		if (!enabled) {
+			return;
+		}
+		publish(ClusterEvent.Type.HEARTBEAT, null, null);
+		long cutoff = System.currentTimeMillis() - nodeTimeoutMs;
+		lastSeen.forEach((node, seen) -> {
+			if (seen < cutoff && lastSeen.remove(node, seen)) {
+				log.warn("Cluster node {} stopped heartbeating, dropping its presence", node);
+				expire(node);
+			}
+		});
+	}
+
+	void apply(ClusterEvent event) {
+		if (!enabled || presenceRegistry.nodeId().equals(event.node)) {
+			return;
+		}
+		Long previous = lastSeen.put(event.node, System.currentTimeMillis());
+		if ((previous == null && event.type != ClusterEvent.Type.SNAPSHOT)
+				|| event.type == ClusterEvent.Type.SNAPSHOT_REQUEST) {
+			// New to us, or (re)starting: its state before this point is unknown or stale
+			requestSnapshot(event.node);
+		}
+		switch (event.type) {
+			case JOIN -> {
+				remoteRooms.computeIfAbsent(event.roomId, id -> new ConcurrentHashMap<>())
+						.put(event.user.oderId, new RemoteMember(event.node, event.user));
+				remoteVersions.computeIfAbsent(event.roomId, id -> new ConcurrentHashMap<>()).put(event.node, event.version);
+			}
+			case LEAVE -> {
+				remoteRooms.computeIfPresent(event.roomId, (id, members) -> {
+					members.computeIfPresent(event.user.oderId,
+							(userId, member) -> member.node().equals(event.node) ? null : member);
+					return members.isEmpty() ? null : members;
+				});
+				remoteVersions.computeIfAbsent(event.roomId, id -> new ConcurrentHashMap<>()).put(event.node, event.version);
+			}
+			case SNAPSHOT_REQUEST -> sendSnapshot(event.node);
+			case SNAPSHOT -> applySnapshot(event);
+			default -> {
+			}
+		}
+	}
+
+	private void requestSnapshot(String node) {
+		messagingTemplate.convertAndSend(NODE_DESTINATION_PREFIX + node,
+				new ClusterEvent(ClusterEvent.Type.SNAPSHOT_REQUEST, presenceRegistry.nodeId(), null, null, 0));
+	}
+
+	private void sendSnapshot(String node) {
+		ClusterEvent snapshot = new ClusterEvent(ClusterEvent.Type.SNAPSHOT, presenceRegistry.nodeId(), null, null,
+				presenceRegistry.clock());
+		snapshot.members = new HashMap<>();
+		snapshot.versions = new HashMap<>();
+		for (String roomId : presenceRegistry.roomIds()) {
+			List<UserInfo> members = new ArrayList<>(presenceRegistry.members(roomId));
+			if (!members.isEmpty()) {
+				snapshot.members.put(roomId, members);
+				snapshot.versions.put(roomId, presenceRegistry.version(roomId));
+			}
+		}
+		messagingTemplate.convertAndSend(NODE_DESTINATION_PREFIX + node, snapshot);
+	}
+
+	void applySnapshot(ClusterEvent snapshot) {
+		Map<String, List<UserInfo>> members = snapshot.members == null ? Map.of() : snapshot.members;
+		Map<String, Long> versions = snapshot.versions == null ? Map.of() : snapshot.versions;
+		// Rooms the sender no longer has anyone in
+		remoteRooms.forEach((roomId, known) -> {
+			if (!members.containsKey(roomId) && !seenNewer(roomId, snapshot.node, snapshot.version)) {
+				known.values().removeIf(member -> dropped(roomId, member, snapshot.node, Set.of()));
+			}
+		});
+		members.forEach((roomId, users) -> {
+			long version = versions.getOrDefault(roomId, snapshot.version);
+			if (seenNewer(roomId, snapshot.node, version)) {
+				return;
+			}
+			Set<String> present = new HashSet<>();
+			users.forEach(user -> present.add(user.oderId));
+			Map<String, RemoteMember> known = remoteRooms.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>());
+			known.values().removeIf(member -> dropped(roomId, member, snapshot.node, present));
+			users.forEach(user -> known.put(user.oderId, new RemoteMember(snapshot.node, user)));
+			remoteVersions.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>()).put(snapshot.node, version);
+		});
+	}
+
+	private boolean seenNewer(String roomId, String node, long version) {
+		Map<String, Long> known = remoteVersions.get(roomId);
+		Long seen = known == null ? null : known.get(node);
+		return seen != null && seen > version;
+	}
+
+	private boolean dropped(String roomId, RemoteMember member, String node, Set<String> present) {
+		if (!member.node().equals(node) || present.contains(member.user().oderId)) {
+			return false;
+		}
+		rosterBroadcaster.left(roomId, member.user().oderId);
+		return true;
+	}
+
+	private void expire(String node) {
+		remoteRooms.forEach((roomId, members) -> {
+			members.values().removeIf(member -> {
+				if (!member.node().equals(node)) {
+					return false;
+				}
+				rosterBroadcaster.left(roomId, member.user().oderId);
+				return true;
+			});
+			Map<String, Long> versions = remoteVersions.get(roomId);
+			if (versions != null) {
+				versions.remove(node);
+			}
+		});
+	}
+
+	private void publish(ClusterEvent.Type type, String roomId, UserInfo user) {
+		if (!enabled) {
+			return;
+		}
+		long version = roomId == null ? 0 : presenceRegistry.version(roomId);
+		messagingTemplate.convertAndSend(PRESENCE_DESTINATION,
+				new ClusterEvent(type, presenceRegistry.nodeId(), roomId, user, version));
+	}
+
+	private record RemoteMember(String node, UserInfo user) {
+	}
+}
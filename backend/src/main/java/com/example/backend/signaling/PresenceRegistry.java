@@ -0,0 +1,181 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Who is connected to which signaling room. Rooms are keyed by id and members by user id, so join and leave are
+ * single hash operations; a second index by STOMP session lets a dropped socket be cleaned up without scanning.
+ * Each room is stamped with a version from a registry-wide clock (so versions stay monotonic even when an empty
+ * room is dropped and recreated) and caches its serialized roster against it, so a burst of joiners shares one
+ * Jackson pass instead of re-serializing the member set per joiner.
+ */
+@Component
+public class PresenceRegistry {
+
+	private static final byte[] EMPTY_ROSTER = {'[', ']'};
+
+	private final ObjectMapper objectMapper;
+	private final String nodeId;
+	private final Map<String, RoomPresence> rooms = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> roomsBySession = new ConcurrentHashMap<>();
+	private final AtomicLong clock = new AtomicLong();
+
+	public PresenceRegistry(ObjectMapper objectMapper, @Value("${messaging.node-id:}") String nodeId) {
+		this.objectMapper = objectMapper;
+		this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+	}
+
+	/**
+	 * Identifies this backend node; versions handed out by this registry are only comparable within one node.
+	 */
+	public String nodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Adds or replaces the user in the room and returns the entry it replaced, if the user was already present
+	 * (e.g. a rejoin from a new socket). The session index is written inside the room's critical section and
+	 * before the member becomes visible, so a concurrent {@link #disconnect} that sees the member also finds it.
+	 */
+	public UserInfo join(String roomId, UserInfo user) {
+		UserInfo[] previous = new UserInfo[1];
+		rooms.compute(roomId, (id, presence) -> {
+			RoomPresence target = presence == null ? new RoomPresence() : presence;
+			if (user.sessionId != null) {
+				roomsBySession.computeIfAbsent(user.sessionId, session -> new ConcurrentHashMap<>())
+						.put(roomId, user.oderId);
+			}
+			previous[0] = target.members.put(user.oderId, user);
+			if (previous[0] != null && previous[0].sessionId != null
+					&& !previous[0].sessionId.equals(user.sessionId)) {
+				untrack(previous[0].sessionId, roomId);
+			}
+			target.version = clock.incrementAndGet();
+			return target;
+		});
+		return previous[0];
+	}
+
+	public UserInfo leave(String roomId, String userId) {
+		UserInfo[] removed = new UserInfo[1];
+		rooms.computeIfPresent(roomId, (id, presence) -> {
+			removed[0] = presence.members.remove(userId);
+			if (removed[0] != null) {
+				presence.version = clock.incrementAndGet();
+				if (removed[0].sessionId != null) {
+					untrack(removed[0].sessionId, roomId);
+				}
+			}
+			return presence.members.isEmpty() ? null : presence;
+		});
+		return removed[0];
+	}
+
+	/**
+	 * Removes every room membership held by the session and returns what was removed, keyed by room id.
+	 */
+	public Map<String, UserInfo> disconnect(String sessionId) {
+		Map<String, String> joined = roomsBySession.remove(sessionId);
+		if (joined == null) {
+			return Map.of();
+		}
+		Map<String, UserInfo> removed = new ConcurrentHashMap<>();
+		joined.forEach((roomId, userId) -> rooms.computeIfPresent(roomId, (id, presence) -> {
+			UserInfo user = presence.members.get(userId);
+			// A newer socket may have taken over this user id; only drop the entry this session owns.
+			if (user != null && sessionId.equals(user.sessionId)) {
+				presence.members.remove(userId);
+				presence.version = clock.incrementAndGet();
+				removed.put(roomId, user);
+			}
+			return presence.members.isEmpty() ? null : presence;
+		}));
+		return removed;
+	}
+
+	public UserInfo find(String roomId, String userId) {
+		RoomPresence presence = rooms.get(roomId);
+		return presence == null ? null : presence.members.get(userId);
+	}
+
+	public Collection<UserInfo> members(String roomId) {
+		RoomPresence presence = rooms.get(roomId);
+		return presence == null ? List.of() : new ArrayList<>(presence.members.values());
+	}
+
+	/**
+	 * Whether the room has at least one member on this node.
+	 */
+	public boolean isOccupied(String roomId) {
+		return rooms.containsKey(roomId);
+	}
+
+	/**
+	 * Ids of the rooms with at least one member on this node.
+	 */
+	public Set<String> roomIds() {
+		return Set.copyOf(rooms.keySet());
+	}
+
+	/**
+	 * The registry clock: every version handed out so far is at most this.
+	 */
+	public long clock() {
+		return clock.get();
+	}
+
+	public long version(String roomId) {
+		RoomPresence presence = rooms.get(roomId);
+		return presence == null ? clock.get() : presence.version;
+	}
+
+	/**
+	 * JSON array of the room's members, re-serialized only when membership changed since the last call.
+	 */
+	public Roster roster(String roomId) {
+		RoomPresence presence = rooms.get(roomId);
+		if (presence == null) {
+			return new Roster(clock.get(), EMPTY_ROSTER);
+		}
+		Roster cached = presence.roster;
+		long version = presence.version;
+		if (cached != null && cached.version() == version) {
+			return cached;
+		}
+		try {
+			Roster fresh = new Roster(version, objectMapper.writeValueAsBytes(presence.members.values()));
+			presence.roster = fresh;
+			return fresh;
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to serialize roster for room " + roomId, e);
+		}
+	}
+
+	private void untrack(String sessionId, String roomId) {
+		roomsBySession.computeIfPresent(sessionId, (id, joined) -> {
+			joined.remove(roomId);
+			return joined.isEmpty() ? null : joined;
+		});
+	}
+
+	public record Roster(long version, byte[] json) {
+	}
+
+	private static final class RoomPresence {
+		private final Map<String, UserInfo> members = new ConcurrentHashMap<>();
+		private volatile long version;
+		private volatile Roster roster;
+	}
+}
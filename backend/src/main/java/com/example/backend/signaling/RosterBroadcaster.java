@@ -0,0 +1,111 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces roster changes per room and publishes at most one {@link RosterDelta} per room per window to
+ * {@code /topic/room/{roomId}/roster}, so a join storm of n listeners costs O(n) frames instead of O(n²).
+ *
+ * <p>Each delta carries the final state of every user touched in the window, so applying it is idempotent. Its
+ * {@code version} is the room version read when its last change was enqueued, not when it is flushed, so a delta
+ * never claims a version newer than the changes it carries. A client holding roster version {@code v} ignores a
+ * delta with {@code version <= v} (a snapshot already covers it), applies one with {@code baseVersion <= v} and
+ * then moves to {@code version}; if {@code baseVersion > v} it has missed a frame and resyncs via
+ * {@code /app/room/{roomId}/roster}, which answers with a snapshot on {@code /user/queue/room-users}.
+ *
+ * <p>With the broker relay several nodes publish deltas for the same room. Versions are per node, so clients keep
+ * one version per {@code node} value; the snapshot reports the local node's version plus the remote versions it
+ * has heard about (see {@link ClusterPresence}).
+ */
+@Component
+public class RosterBroadcaster {
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final PresenceRegistry presenceRegistry;
+	private final Map<String, PendingDelta> pending = new ConcurrentHashMap<>();
+	private final Map<String, Long> lastVersions = new ConcurrentHashMap<>();
+
+	public RosterBroadcaster(SimpMessagingTemplate messagingTemplate, PresenceRegistry presenceRegistry) {
+		this.messagingTemplate = messagingTemplate;
+		this.presenceRegistry = presenceRegistry;
+	}
+
+	public void joined(String roomId, UserInfo user) {
+		pending.compute(roomId, (id, delta) -> {
+			PendingDelta target = delta == null ? new PendingDelta() : delta;
+			target.joined.put(user.oderId, user);
+			target.left.remove(user.oderId);
+			target.version = Math.max(target.version, presenceRegistry.version(roomId));
+			return target;
+		});
+	}
+
+	public void left(String roomId, String userId) {
+		pending.compute(roomId, (id, delta) -> {
+			PendingDelta target = delta == null ? new PendingDelta() : delta;
+			target.joined.remove(userId);
+			target.left.add(userId);
+			target.version = Math.max(target.version, presenceRegistry.version(roomId));
+			return target;
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${signaling.roster.coalesce-ms:50}")
+	public void flush() {
+		for (String roomId : pending.keySet()) {
+			flush(roomId);
+		}
+	}
+
+	void flush(String roomId) {
+		PendingDelta delta = pending.remove(roomId);
+		if (delta == null) {
+			return;
+		}
+		long version = delta.version;
+		Long baseVersion = presenceRegistry.members(roomId).isEmpty()
+				? lastVersions.remove(roomId)
+				: lastVersions.put(roomId, version);
+		messagingTemplate.convertAndSend("/topic/room/" + roomId + "/roster", new RosterDelta(roomId,
+				presenceRegistry.nodeId(), baseVersion == null ? 0 : baseVersion, version,
+				new ArrayList<>(delta.joined.values()), new ArrayList<>(delta.left)));
+	}
+
+	public static class RosterDelta {
+		public String roomId;
+		public String node;
+		public long baseVersion;
+		public long version;
+		public List<UserInfo> joined;
+		public List<String> left;
+
+		public RosterDelta() {}
+
+		public RosterDelta(String roomId, String node, long baseVersion, long version, List<UserInfo> joined,
+				List<String> left) {
+			this.roomId = roomId;
+			this.node = node;
+			this.baseVersion = baseVersion;
+			this.version = version;
+			this.joined = joined;
+			this.left = left;
+		}
+	}
+
+	// Only mutated inside pending.compute, which serializes access per room.
+	private static final class PendingDelta {
+		private final Map<String, UserInfo> joined = new LinkedHashMap<>();
+		private final Set<String> left = new HashSet<>();
+		private long version;
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.backend.signaling;
+
+import java.util.Map;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Headers for {@code convertAndSendToUser(sessionId, ...)} on anonymous sockets: the user destination resolver
+ * only treats the "user" as a session id when the message carries that same session id.
+ */
+public final class SessionHeaders {
+
+	private SessionHeaders() {
+	}
+
+	public static MessageHeaders json(String sessionId) {
+		return json(sessionId, Map.of());
+	}
+
+	public static MessageHeaders json(String sessionId, Map<String, String> nativeHeaders) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		nativeHeaders.forEach(accessor::setNativeHeader);
+		accessor.setLeaveMutable(true);
+		return accessor.getMessageHeaders();
+	}
+}
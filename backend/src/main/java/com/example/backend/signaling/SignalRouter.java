@@ -0,0 +1,130 @@
+package com.example.backend.signaling;
+
+import com.example.backend.api.SignalingController.SignalMessage;
+import com.example.backend.api.SignalingController.UserInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Point-to-point delivery of WebRTC signals. The target user is resolved to its STOMP session through
+ * {@link PresenceRegistry} and the frame goes to {@code /user/queue/signal}, so the broker does a session lookup
+ * instead of matching the destination against every room subscription. Every signal from one sender to one target
+ * goes through that pair's queue: ICE candidates wait there for up to {@code signaling.ice-batch-ms}, and an SDP
+ * signal is appended behind them and sends the queue at once. Sends for a pair happen under the pair's lock, so
+ * signals reach the target in the order they arrived whichever thread sends them. A target connected to another
+ * node is reached through that node's cluster destination (see {@link ClusterPresence}); one that is not connected
+ * anywhere gets the signal on the per-user room topic. Both destinations carry a {@link SignalBatch}.
+ */
+@Component
+public class SignalRouter {
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final PresenceRegistry presenceRegistry;
+	private final ClusterPresence clusterPresence;
+	private final Map<Route, Outbox> outboxes = new ConcurrentHashMap<>();
+
+	public SignalRouter(SimpMessagingTemplate messagingTemplate, PresenceRegistry presenceRegistry,
+			ClusterPresence clusterPresence) {
+		this.messagingTemplate = messagingTemplate;
+		this.presenceRegistry = presenceRegistry;
+		this.clusterPresence = clusterPresence;
+	}
+
+	public void route(String roomId, SignalMessage message) {
+		if (presenceRegistry.find(roomId, message.targetUserId) == null) {
+			String node = clusterPresence.nodeOf(roomId, message.targetUserId);
+			if (node != null) {
+				clusterPresence.forwardSignal(node, roomId, message);
+				return;
+			}
+		}
+		deliverLocal(roomId, message);
+	}
+
+	/**
+	 * Delivers to a session connected to this node, without forwarding to other nodes.
+	 */
+	public void deliverLocal(String roomId, SignalMessage message) {
+		UserInfo target = presenceRegistry.find(roomId, message.targetUserId);
+		if (target == null || target.sessionId == null) {
+			// Not connected here; fall back to the per-user room topic.
+			messagingTemplate.convertAndSend("/topic/room/" + roomId + "/signal/" + message.targetUserId,
+					new SignalBatch(roomId, message.from, List.of(message.signal)));
+			return;
+		}
+		Route route = new Route(roomId, target.sessionId, message.from);
+		boolean candidate = isCandidate(message.signal);
+		while (true) {
+			Outbox outbox = outboxes.computeIfAbsent(route, key -> new Outbox());
+			synchronized (outbox) {
+				if (outbox.closed) {
+					// flush() retired it between our lookup and the lock; take the replacement
+					continue;
+				}
+				outbox.signals.add(message.signal);
+				if (!candidate) {
+					send(route, outbox);
+				}
+				return;
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${signaling.ice-batch-ms:5}")
+	public void flush() {
+		outboxes.forEach((route, outbox) -> {
+			synchronized (outbox) {
+				if (outbox.signals.isEmpty()) {
+					// Idle for a whole window; drop it so finished calls do not accumulate
+					outbox.closed = true;
+					outboxes.remove(route, outbox);
+				} else {
+					send(route, outbox);
+				}
+			}
+		});
+	}
+
+	// Caller holds the outbox lock
+	private void send(Route route, Outbox outbox) {
+		List<Object> signals = outbox.signals;
+		outbox.signals = new ArrayList<>();
+		messagingTemplate.convertAndSendToUser(route.sessionId(), "/queue/signal",
+				new SignalBatch(route.roomId(), route.from(), signals), SessionHeaders.json(route.sessionId()));
+	}
+
+	private static boolean isCandidate(Object signal) {
+		if (signal instanceof Map<?, ?> map) {
+			return map.containsKey("candidate") || "candidate".equals(map.get("type"));
+		}
+		return false;
+	}
+
+	public static class SignalBatch {
+		public String roomId;
+		public UserInfo from;
+		public List<Object> signals;
+
+		public SignalBatch() {}
+
+		public SignalBatch(String roomId, UserInfo from, List<Object> signals) {
+			this.roomId = roomId;
+			this.from = from;
+			this.signals = signals;
+		}
+	}
+
+	// UserInfo equality is by user id, so one sender maps to one queue per target session.
+	private record Route(String roomId, String sessionId, UserInfo from) {
+	}
+
+	private static final class Outbox {
+		private List<Object> signals = new ArrayList<>();
+		private boolean closed;
+	}
+}
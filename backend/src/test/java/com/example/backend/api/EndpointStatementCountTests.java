@@ -0,0 +1,227 @@
+package com.example.backend.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.QueueItem;
+import com.example.backend.domain.QueueStatus;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.PlaybackStateRepository;
+import com.example.backend.repository.QueueItemRepository;
+import com.example.backend.repository.RoomMemberRepository;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.repository.TrackRepository;
+import com.example.backend.service.RoomDirectory;
+import com.example.backend.service.TrackCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Statements per request for the REST endpoints, counted with Hibernate statistics. Associations are LAZY and
+ * open-in-view is off, so an endpoint that touches more than it serializes either fails or shows up here as an extra
+ * statement. Rooms have several members and queue items so a per-row load would be visible.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class EndpointStatementCountTests {
+
+	private static final int ROWS = 5;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private QueueItemRepository queueItemRepository;
+
+	@Autowired
+	private RoomDirectory roomDirectory;
+
+	@Autowired
+	private PlaybackStateRepository playbackStateRepository;
+
+	@Autowired
+	private TrackCache trackCache;
+
+	@LocalServerPort
+	private int port;
+
+	private Statistics statistics;
+	private AppUser host;
+	private Room room;
+	private Track track;
+	private QueueItem queueItem;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		host = user("host");
+		room = roomRepository.save(new Room("Counted", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+		roomMemberRepository.save(new RoomMember(room, host, RoomRole.HOST, false, "host device"));
+		for (int i = 0; i < ROWS; i++) {
+			AppUser member = user("member" + i);
+			roomMemberRepository.save(new RoomMember(room, member, RoomRole.PERFORMER, false, "device"));
+			track = trackRepository.save(new Track(TrackSourceType.UPLOAD, "Counted " + i, "artist " + i, 180,
+					"https://example.com", null));
+			queueItem = queueItemRepository.save(new QueueItem(room, track, member, QueueStatus.PENDING, i + 1));
+		}
+		// Rows were written behind the directory's back
+		roomDirectory.rebuild();
+	}
+
+	@Test
+	void roomDetailIsOneStatement() throws Exception {
+		JsonNode detail = get("/rooms/" + room.getId(), 1);
+
+		assertThat(detail.get("hostNickname").asText()).startsWith("host");
+		assertThat(detail.get("members")).hasSize(ROWS + 1);
+	}
+
+	@Test
+	void membersAreServedWithoutStatements() throws Exception {
+		assertThat(get("/rooms/" + room.getId() + "/members", 0)).hasSize(ROWS + 1);
+	}
+
+	@Test
+	void memberFallbackIsOneStatement() {
+		statistics.clear();
+
+		assertThat(roomMemberRepository.findResponsesByRoomId(room.getId())).hasSize(ROWS + 1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void queueIsTwoStatementsOnceTracksAreCached() throws Exception {
+		// Cold: the queue version, the queue rows, then every track in one IN query
+		JsonNode queue = get("/rooms/" + room.getId() + "/queue", 3);
+		assertThat(queue).hasSize(ROWS);
+		assertThat(queue.get(0).get("trackTitle").asText()).isEqualTo("Counted 0");
+
+		assertThat(get("/rooms/" + room.getId() + "/queue", 2)).hasSize(ROWS);
+	}
+
+	@Test
+	void lobbyIsServedWithoutStatements() throws Exception {
+		assertThat(get("/rooms?size=10", 0)).isNotEmpty();
+	}
+
+	@Test
+	void currentUserIsOneStatement() throws Exception {
+		assertThat(get("/users/me?userId=" + host.getId(), 1).get("nickname").asText()).isEqualTo("host");
+	}
+
+	@Test
+	void addingToTheQueueLoadsOnlyRoomAndRequester() throws Exception {
+		trackCache.get(track.getId());
+
+		// Room, requester, then in one transaction: queue version bump and read, tail rank, insert. The track comes
+		// from the cache and is stored as a reference. The id is pooled, so at most one add in fifty also reserves
+		// the next id_block range (its select and update)
+		JsonNode added = send("POST", "/rooms/" + room.getId() + "/queue",
+				Map.of("trackId", track.getId(), "requestedBy", host.getId()), 6, 8);
+
+		assertThat(added.get("trackTitle").asText()).isEqualTo(track.getTitle());
+	}
+
+	@Test
+	void updatingAQueueItemTouchesOnlyThatRow() throws Exception {
+		trackCache.get(track.getId());
+
+		// Queue version bump and read, then the item's select and update
+		JsonNode updated = send("PATCH", "/rooms/" + room.getId() + "/queue/" + queueItem.getId(),
+				Map.of("status", "PLAYING"), 4);
+
+		assertThat(updated.get("status").asText()).isEqualTo("PLAYING");
+		assertThat(updated.get("trackTitle").asText()).isEqualTo(track.getTitle());
+	}
+
+	@Test
+	void playbackIsServedFromMemory() throws Exception {
+		trackCache.get(track.getId());
+
+		send("PATCH", "/rooms/" + room.getId() + "/playback",
+				Map.of("trackId", track.getId(), "positionMs", 1000, "playing", true), 0);
+
+		assertThat(get("/rooms/" + room.getId() + "/playback", 0).get("trackId").asLong()).isEqualTo(track.getId());
+	}
+
+	@Test
+	void playbackFallbackIsOneStatement() {
+		statistics.clear();
+
+		assertThat(playbackStateRepository.findResponse(room.getId())).isEmpty();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	private JsonNode get(String path, long expectedStatements) throws Exception {
+		return exchange(HttpRequest.newBuilder(uri(path)).GET().build(), expectedStatements);
+	}
+
+	private JsonNode send(String method, String path, Map<String, ?> body, long expectedStatements) throws Exception {
+		return send(method, path, body, expectedStatements, expectedStatements);
+	}
+
+	private JsonNode send(String method, String path, Map<String, ?> body, long minStatements, long maxStatements)
+			throws Exception {
+		return exchange(HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+				.build(), minStatements, maxStatements);
+	}
+
+	private JsonNode exchange(HttpRequest request, long expectedStatements) throws Exception {
+		return exchange(request, expectedStatements, expectedStatements);
+	}
+
+	private JsonNode exchange(HttpRequest request, long minStatements, long maxStatements) throws Exception {
+		statistics.clear();
+		HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(statistics.getPrepareStatementCount()).isBetween(minStatements, maxStatements);
+		return objectMapper.readTree(response.body());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + port + "/api" + path);
+	}
+
+	private AppUser user(String nickname) {
+		return appUserRepository.save(new AppUser(nickname + "-" + System.nanoTime() + "@example.com", "secret",
+				nickname, "local"));
+	}
+}
@@ -0,0 +1,50 @@
+package com.example.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+class ClusterDestinationGuardTests {
+
+	private final ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+	private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+
+	ClusterDestinationGuardTests() {
+		channel.addInterceptor(new ClusterDestinationGuard());
+		channel.subscribe(delivered::add);
+	}
+
+	@Test
+	void clientFramesToClusterDestinationsAreRejected() {
+		assertThatThrownBy(() -> channel.send(frame(SimpMessageType.MESSAGE, "/topic/cluster.presence")))
+				.isInstanceOf(MessageDeliveryException.class);
+		assertThatThrownBy(() -> channel.send(frame(SimpMessageType.SUBSCRIBE, "/topic/cluster.node.node-2")))
+				.isInstanceOf(MessageDeliveryException.class);
+
+		assertThat(delivered).isEmpty();
+	}
+
+	@Test
+	void roomTopicsAndAppDestinationsPass() {
+		channel.send(frame(SimpMessageType.SUBSCRIBE, "/topic/room/7/roster"));
+		channel.send(frame(SimpMessageType.MESSAGE, "/app/room/7/chat"));
+
+		assertThat(delivered).hasSize(2);
+	}
+
+	private static Message<byte[]> frame(SimpMessageType type, String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+		accessor.setSessionId("s1");
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
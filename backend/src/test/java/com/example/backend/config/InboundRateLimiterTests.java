@@ -0,0 +1,115 @@
+package com.example.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import com.example.backend.service.RoomEmptiedEvent;
+import com.example.backend.signaling.PresenceRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+
+class InboundRateLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PresenceRegistry presenceRegistry = new PresenceRegistry(new ObjectMapper(), "node-1");
+	private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+	private final SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> {
+		sent.add(message);
+		return true;
+	});
+	private final InboundRateLimiter limiter = new InboundRateLimiter(meterRegistry, presenceRegistry,
+			messagingTemplate, true,
+			new long[] {1, 3}, new long[] {1, 5},
+			new long[] {1, 3}, new long[] {1, 100},
+			new long[] {1, 1}, new long[] {1, 2});
+
+	@Test
+	void sessionBurstIsEnforcedPerKind() {
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.preSend(frame("s1", "/app/room/1/chat"), null)).isNotNull();
+		}
+		assertThat(limiter.preSend(frame("s1", "/app/room/1/chat"), null)).isNull();
+		// Signals have their own budget.
+		assertThat(limiter.preSend(frame("s1", "/app/room/1/signal"), null)).isNotNull();
+		assertThat(meterRegistry.get("websocket.inbound.throttled").tags("kind", "chat", "scope", "session")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void roomBudgetIsSharedAcrossSessions() {
+		assertThat(limiter.preSend(frame("s0", "/app/room/7/join"), null)).isNotNull();
+		assertThat(limiter.preSend(frame("s0", "/app/room/8/join"), null)).isNotNull();
+		int passed = 0;
+		for (int i = 0; i < 10; i++) {
+			if (limiter.preSend(frame("s" + i, "/app/room/7/chat"), null) != null) {
+				passed++;
+			}
+		}
+		assertThat(passed).isEqualTo(5);
+		assertThat(limiter.preSend(frame("s1", "/app/room/8/chat"), null)).isNotNull();
+	}
+
+	@Test
+	void roomThrottleRefundsTheSessionToken() {
+		limiter.preSend(frame("s0", "/app/room/7/join"), null);
+		for (int i = 0; i < 5; i++) {
+			limiter.preSend(frame("s" + i, "/app/room/7/chat"), null);
+		}
+		assertThat(limiter.preSend(frame("s9", "/app/room/7/chat"), null)).isNull();
+
+		// s9's one attempt was refused by the room, so its own burst is still whole.
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.preSend(frame("s9", "/app/room/9/chat"), null)).isNotNull();
+		}
+	}
+
+	@Test
+	void throttledJoinIsAnsweredWithAnError() {
+		assertThat(limiter.preSend(frame("s1", "/app/room/1/join"), null)).isNotNull();
+		assertThat(limiter.preSend(frame("s1", "/app/room/1/roster"), null)).isNull();
+
+		assertThat(sent).hasSize(1);
+		assertThat(SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()))
+				.isEqualTo("/user/s1/queue/errors");
+	}
+
+	@Test
+	void emptiedRoomsDropTheirBudget() {
+		limiter.preSend(frame("s1", "/app/room/7/join"), null);
+		limiter.preSend(frame("s2", "/app/room/7/join"), null);
+		assertThat(limiter.preSend(frame("s3", "/app/room/7/join"), null)).isNull();
+
+		limiter.onRoomEmptied(new RoomEmptiedEvent(7L));
+		assertThat(limiter.preSend(frame("s3", "/app/room/7/join"), null)).isNotNull();
+
+		presenceRegistry.join("8", new UserInfo("alice", "Alice", "s4"));
+		limiter.preSend(frame("s4", "/app/room/8/join"), null);
+		limiter.preSend(frame("s5", "/app/room/8/join"), null);
+		limiter.sweep();
+		// Room 7 has nobody here and starts over; room 8 is occupied and keeps its spent budget.
+		assertThat(limiter.preSend(frame("s6", "/app/room/7/join"), null)).isNotNull();
+		assertThat(limiter.preSend(frame("s7", "/app/room/8/join"), null)).isNull();
+	}
+
+	@Test
+	void otherDestinationsAreNotLimited() {
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.preSend(frame("s1", "/app/room/1/leave"), null)).isNotNull();
+		}
+	}
+
+	private static Message<byte[]> frame(String sessionId, String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.janus.FakeJanusServer;
+import com.example.backend.janus.JanusProxyClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "server.tomcat.threads.max=4")
+@ActiveProfiles("test")
+class JanusProxyControllerTests {
+
+	private static final FakeJanusServer janus = FakeJanusServer.start(1_000);
+
+	@LocalServerPort
+	private int port;
+
+	private JanusProxyClient proxy;
+
+	@DynamicPropertySource
+	static void janusProperties(DynamicPropertyRegistry registry) {
+		registry.add("janus.base-url", janus::baseUrl);
+	}
+
+	@AfterAll
+	static void stopJanus() {
+		janus.close();
+	}
+
+	@BeforeEach
+	void createClient() {
+		proxy = new JanusProxyClient(port);
+	}
+
+	@Test
+	void relaysStatusAndBody() throws Exception {
+		long sessionId = proxy.createSession();
+
+		HttpResponse<String> response = proxy.send("/" + sessionId, Map.of("janus", "keepalive", "transaction", "k1"));
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+				type -> assertThat(type).startsWith("application/json"));
+		assertThat(proxy.json(response).get("janus").asText()).isEqualTo("ack");
+	}
+
+	@Test
+	void longPollsDoNotHoldServletThreads() throws Exception {
+		long sessionId = proxy.createSession();
+		int polls = 20;
+
+		long started = System.nanoTime();
+		List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+		for (int i = 0; i < polls; i++) {
+			pending.add(proxy.getAsync("/" + sessionId + "?maxev=1"));
+		}
+		// Four Tomcat threads, twenty polls parked upstream at the same time.
+		for (int attempt = 0; attempt < 50 && janus.activeLongPolls() < polls; attempt++) {
+			Thread.sleep(50);
+		}
+		assertThat(janus.activeLongPolls()).isEqualTo(polls);
+
+		CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5_000);
+		for (CompletableFuture<HttpResponse<String>> poll : pending) {
+			assertThat(proxy.json(poll.get()).get(0).get("janus").asText()).isEqualTo("keepalive");
+		}
+	}
+}
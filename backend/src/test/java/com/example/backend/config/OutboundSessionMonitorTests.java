@@ -0,0 +1,131 @@
+package com.example.backend.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * The monitor on a real executor channel with 4 threads: one session whose consumer is stalled, one healthy one.
+ */
+class OutboundSessionMonitorTests {
+
+	private static final int MAX_QUEUED = 16;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final OutboundSessionMonitor monitor = new OutboundSessionMonitor(meterRegistry, MAX_QUEUED);
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+	private final ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+	private final CountDownLatch unstall = new CountDownLatch(1);
+	private final List<Integer> slowReceived = new CopyOnWriteArrayList<>();
+	private final List<Integer> fastReceived = new CopyOnWriteArrayList<>();
+	private final List<String> closed = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void stopExecutor() {
+		unstall.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void stalledSessionIsClosedAndOthersKeepFlowing() throws Exception {
+		monitor.opened(socket("slow"));
+		monitor.opened(socket("fast"));
+		channel.addInterceptor(monitor);
+		channel.subscribe(message -> {
+			String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+			if ("slow".equals(sessionId)) {
+				try {
+					unstall.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				slowReceived.add((Integer) message.getPayload());
+			} else {
+				fastReceived.add((Integer) message.getPayload());
+			}
+		});
+
+		for (int i = 0; i < 100; i++) {
+			channel.send(frame("slow", i));
+		}
+		for (int i = 0; i < 50; i++) {
+			channel.send(frame("fast", i));
+		}
+
+		awaitSize(fastReceived, 50);
+		assertThat(fastReceived).containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+		assertThat(closed).containsExactly("slow");
+		// Only the frame already on the executor is kept
+		assertThat(monitor.sessions().get("slow")).containsEntry("queued", 1L).containsEntry("dropped", 99L);
+		assertThat(meterRegistry.get("websocket.outbound.dropped").counter().count()).isEqualTo(99);
+		assertThat(meterRegistry.get("websocket.outbound.overflow.closed").counter().count()).isEqualTo(1);
+
+		unstall.countDown();
+		awaitSize(slowReceived, 1);
+		assertThat(slowReceived).containsExactly(0);
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (monitor.sessions().get("slow").get("queued") > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(monitor.sessions().get("slow")).containsEntry("queued", 0L);
+	}
+
+	@Test
+	void framesForUnknownSessionsPassWithoutTracking() {
+		channel.addInterceptor(monitor);
+		channel.subscribe(message -> fastReceived.add((Integer) message.getPayload()));
+		monitor.opened(socket("gone"));
+		monitor.onDisconnect(new SessionDisconnectEvent(this,
+				MessageBuilder.createMessage(new byte[0], SimpMessageHeaderAccessor.create().getMessageHeaders()),
+				"gone", CloseStatus.NORMAL));
+
+		assertThat(channel.send(frame("gone", 1))).isTrue();
+		assertThat(monitor.sessions()).doesNotContainKey("gone");
+	}
+
+	private static void awaitSize(List<Integer> received, int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (received.size() < size && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(received).hasSize(size);
+	}
+
+	// Only the calls the monitor makes are answered
+	private WebSocketSession socket(String id) {
+		return (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "getId" -> id;
+					case "close" -> {
+						assertThat(args[0]).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+						closed.add(id);
+						yield null;
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static Message<Integer> frame(String sessionId, int seq) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(seq, accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,209 @@
+package com.example.backend.janus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process Janus REST API: create, attach, keepalive, destroy, plugin messages (answered with an ack and
+ * a queued event echoing the body), {@code /info}, and session long polls that wait {@code longPollMs} for events before
+ * answering with a keepalive.
+ */
+public class FakeJanusServer implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final long longPollMs;
+	private final AtomicLong ids = new AtomicLong(ThreadLocalRandom.current().nextLong(1, 1L << 40));
+	private final Map<Long, BlockingQueue<JsonNode>> sessions = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+	private final AtomicInteger activeLongPolls = new AtomicInteger();
+	private volatile boolean infoFailing;
+
+	public FakeJanusServer(long longPollMs) throws IOException {
+		this.longPollMs = longPollMs;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/janus", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Starts a server for a test class's static field.
+	 */
+	public static FakeJanusServer start(long longPollMs) {
+		try {
+			return new FakeJanusServer(longPollMs);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/janus";
+	}
+
+	/**
+	 * Number of requests seen of a kind: {@code create}, {@code attach}, {@code keepalive}, {@code destroy},
+	 * {@code message} or {@code poll}.
+	 */
+	public int count(String kind) {
+		AtomicInteger count = counts.get(kind);
+		return count == null ? 0 : count.get();
+	}
+
+	public int activeLongPolls() {
+		return activeLongPolls.get();
+	}
+
+	/**
+	 * Makes {@code /info} answer 503, so health checks see the server as down while it keeps serving sessions.
+	 */
+	public void setInfoFailing(boolean infoFailing) {
+		this.infoFailing = infoFailing;
+	}
+
+	public boolean hasSession(long sessionId) {
+		return sessions.containsKey(sessionId);
+	}
+
+	/**
+	 * Queues an event for the session's next long poll, as if a plugin had pushed it.
+	 */
+	public void push(long sessionId, JsonNode event) {
+		BlockingQueue<JsonNode> events = sessions.get(sessionId);
+		if (events != null) {
+			events.add(event);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String[] path = exchange.getRequestURI().getPath().substring("/janus".length()).split("/");
+			if (path.length > 1 && "info".equals(path[1])) {
+				if (infoFailing) {
+					exchange.sendResponseHeaders(503, -1);
+				} else {
+					respond(exchange, objectMapper.createObjectNode().put("janus", "server_info"));
+				}
+				return;
+			}
+			Long sessionId = path.length > 1 ? Long.valueOf(path[1]) : null;
+			Long handleId = path.length > 2 ? Long.valueOf(path[2]) : null;
+			if ("GET".equals(exchange.getRequestMethod())) {
+				poll(exchange, sessionId, exchange.getRequestURI().getQuery() != null);
+				return;
+			}
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			String janus = request.path("janus").asText();
+			String transaction = request.path("transaction").asText();
+			counts.computeIfAbsent(janus, k -> new AtomicInteger()).incrementAndGet();
+			ObjectNode response = objectMapper.createObjectNode().put("transaction", transaction);
+			if (sessionId != null && !sessions.containsKey(sessionId)) {
+				response.put("janus", "error").putObject("error").put("code", 458).put("reason", "No such session");
+				respond(exchange, response);
+				return;
+			}
+			switch (janus) {
+				case "create" -> {
+					long id = ids.incrementAndGet();
+					sessions.put(id, new LinkedBlockingQueue<>());
+					response.put("janus", "success").putObject("data").put("id", id);
+				}
+				case "attach" -> response.put("janus", "success").put("session_id", sessionId)
+						.putObject("data").put("id", ids.incrementAndGet());
+				case "destroy" -> {
+					sessions.remove(sessionId);
+					response.put("janus", "success").put("session_id", sessionId);
+				}
+				case "message" -> {
+					response.put("janus", "ack").put("session_id", sessionId);
+					ObjectNode event = objectMapper.createObjectNode()
+							.put("janus", "event")
+							.put("session_id", sessionId)
+							.put("sender", handleId)
+							.put("transaction", transaction);
+					event.putObject("plugindata").put("plugin", "janus.plugin.videoroom")
+							.set("data", request.path("body"));
+					push(sessionId, event);
+				}
+				default -> response.put("janus", "ack").put("session_id", sessionId);
+			}
+			respond(exchange, response);
+		}
+	}
+
+	private void poll(HttpExchange exchange, Long sessionId, boolean batched) throws IOException {
+		counts.computeIfAbsent("poll", k -> new AtomicInteger()).incrementAndGet();
+		BlockingQueue<JsonNode> events = sessions.get(sessionId);
+		if (events == null) {
+			ObjectNode error = objectMapper.createObjectNode().put("janus", "error");
+			error.putObject("error").put("code", 458).put("reason", "No such session");
+			respond(exchange, error);
+			return;
+		}
+		activeLongPolls.incrementAndGet();
+		JsonNode event;
+		try {
+			event = events.poll(longPollMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} finally {
+			activeLongPolls.decrementAndGet();
+		}
+		if (event == null) {
+			event = objectMapper.createObjectNode().put("janus", "keepalive");
+		}
+		if (batched) {
+			ArrayNode array = objectMapper.createArrayNode().add(event);
+			JsonNode next;
+			while ((next = events.poll()) != null) {
+				array.add(next);
+			}
+			respond(exchange, array);
+		} else {
+			respond(exchange, event);
+		}
+	}
+
+	private void respond(HttpExchange exchange, JsonNode body) throws IOException {
+		byte[] bytes = objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	public static String json(Map<String, ?> body) {
+		try {
+			return new ObjectMapper().writeValueAsString(body);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
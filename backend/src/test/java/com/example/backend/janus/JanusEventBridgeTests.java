@@ -0,0 +1,175 @@
+package com.example.backend.janus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.lang.reflect.Type;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class JanusEventBridgeTests {
+
+	private static final FakeJanusServer janus = FakeJanusServer.start(500);
+
+	@Autowired
+	private JanusEventBridge bridge;
+
+	@LocalServerPort
+	private int port;
+
+	// Keeps the proxy's HTTP session, which the socket has to present to bridge a session created through it
+	private JanusProxyClient proxy;
+
+	@DynamicPropertySource
+	static void janusProperties(DynamicPropertyRegistry registry) {
+		registry.add("janus.base-url", janus::baseUrl);
+	}
+
+	@AfterAll
+	static void stopJanus() {
+		janus.close();
+	}
+
+	@BeforeEach
+	void createClient() {
+		proxy = new JanusProxyClient(port);
+	}
+
+	@Test
+	void pluginEventsArePushedOverStomp() throws Exception {
+		long sessionId = proxy.createSession();
+		StompSession stomp = connect();
+		BlockingQueue<JsonNode> events = subscribe(stomp, "/user/queue/janus");
+
+		stomp.send("/app/janus/" + sessionId + "/events", Map.of());
+		awaitBridged(sessionId);
+		proxy.post("/" + sessionId + "/42", Map.of("janus", "message", "transaction", "t1",
+				"body", Map.of("request", "join")));
+
+		JsonNode batch = events.poll(5, TimeUnit.SECONDS);
+		assertThat(batch).isNotNull();
+		assertThat(batch.get(0).get("janus").asText()).isEqualTo("event");
+		assertThat(batch.get(0).get("plugindata").get("data").get("request").asText()).isEqualTo("join");
+		// One upstream poll at a time for the session, and keepalives never reach the client.
+		assertThat(janus.activeLongPolls()).isLessThanOrEqualTo(1);
+		Thread.sleep(1_200);
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	void bridgedSessionsCannotBeLongPolledThroughTheProxy() throws Exception {
+		long sessionId = proxy.createSession();
+		StompSession stomp = connect();
+
+		stomp.send("/app/janus/" + sessionId + "/events", Map.of());
+		awaitBridged(sessionId);
+
+		HttpResponse<String> poll = proxy.get("/" + sessionId + "?maxev=1");
+		assertThat(poll.statusCode()).isEqualTo(409);
+		assertThat(proxy.json(poll).get("janus").asText()).isEqualTo("error");
+		assertThat(janus.activeLongPolls()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void bridgeEndsWithTheStompSession() throws Exception {
+		long sessionId = proxy.createSession();
+		StompSession stomp = connect();
+
+		stomp.send("/app/janus/" + sessionId + "/events", Map.of());
+		awaitBridged(sessionId);
+		stomp.disconnect();
+
+		for (int attempt = 0; attempt < 50 && bridge.isBridged(sessionId); attempt++) {
+			Thread.sleep(100);
+		}
+		assertThat(bridge.isBridged(sessionId)).isFalse();
+	}
+
+	@Test
+	void bridgeEndsWhenJanusForgetsTheSession() throws Exception {
+		long sessionId = proxy.createSession();
+		StompSession stomp = connect();
+
+		stomp.send("/app/janus/" + sessionId + "/events", Map.of());
+		awaitBridged(sessionId);
+		proxy.post("/" + sessionId, Map.of("janus", "destroy", "transaction", "d1"));
+
+		for (int attempt = 0; attempt < 50 && bridge.isBridged(sessionId); attempt++) {
+			Thread.sleep(100);
+		}
+		assertThat(bridge.isBridged(sessionId)).isFalse();
+	}
+
+	@Test
+	void sessionCreatedByAnotherClientIsNotBridged() throws Exception {
+		long sessionId = proxy.createSession();
+		StompSession stranger = connect(new WebSocketHttpHeaders());
+
+		stranger.send("/app/janus/" + sessionId + "/events", Map.of());
+		Thread.sleep(500);
+		assertThat(bridge.isBridged(sessionId)).isFalse();
+
+		connect().send("/app/janus/" + sessionId + "/events", Map.of());
+		awaitBridged(sessionId);
+	}
+
+	private void awaitBridged(long sessionId) throws InterruptedException {
+		for (int attempt = 0; attempt < 50 && !bridge.isBridged(sessionId); attempt++) {
+			Thread.sleep(100);
+		}
+		assertThat(bridge.isBridged(sessionId)).isTrue();
+	}
+
+	private StompSession connect() throws Exception {
+		WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+		headers.add(HttpHeaders.COOKIE, proxy.httpSession().toString());
+		return connect(headers);
+	}
+
+	private StompSession connect(WebSocketHttpHeaders headers) throws Exception {
+		WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+		client.setMessageConverter(new MappingJackson2MessageConverter());
+		return client.connectAsync("ws://127.0.0.1:" + port + "/api/ws", headers, new StompSessionHandlerAdapter() {
+		}).get(10, TimeUnit.SECONDS);
+	}
+
+	private static BlockingQueue<JsonNode> subscribe(StompSession session, String destination) throws Exception {
+		BlockingQueue<JsonNode> frames = new LinkedBlockingQueue<>();
+		session.subscribe(destination, new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return JsonNode.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				frames.add((JsonNode) payload);
+			}
+		});
+		Thread.sleep(200);
+		return frames;
+	}
+}
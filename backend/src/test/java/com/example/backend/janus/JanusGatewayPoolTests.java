@@ -0,0 +1,143 @@
+package com.example.backend.janus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "janus.health.interval-ms=600000")
+@ActiveProfiles("test")
+class JanusGatewayPoolTests {
+
+	private static final List<FakeJanusServer> janus = List.of(FakeJanusServer.start(500),
+			FakeJanusServer.start(500), FakeJanusServer.start(500));
+
+	@Autowired
+	private JanusGatewayPool pool;
+
+	@LocalServerPort
+	private int port;
+
+	private JanusProxyClient proxy;
+
+	@DynamicPropertySource
+	static void janusProperties(DynamicPropertyRegistry registry) {
+		registry.add("janus.gateways", () -> String.join(",", janus.stream().map(FakeJanusServer::baseUrl).toList()));
+	}
+
+	@AfterAll
+	static void stopJanus() {
+		janus.forEach(FakeJanusServer::close);
+	}
+
+	@BeforeEach
+	void createClient() {
+		proxy = new JanusProxyClient(port);
+	}
+
+	@Test
+	void roomSessionsAndTheirHandlesShareOneGateway() throws Exception {
+		long first = proxy.createSession("/rooms/101");
+		long second = proxy.createSession("/rooms/101");
+		FakeJanusServer home = owner(first);
+
+		assertThat(owner(second)).isSameAs(home);
+		// Attach and publish go to the session's gateway; any other would answer "No such session".
+		long handle = proxy.post("/rooms/101/" + second, Map.of("janus", "attach", "transaction", "a",
+				"plugin", "janus.plugin.videoroom")).get("data").get("id").asLong();
+		JsonNode ack = proxy.post("/rooms/101/" + second + "/" + handle, Map.of("janus", "message",
+				"transaction", "m", "body", Map.of("request", "join", "room", 101, "ptype", "publisher")));
+		assertThat(ack.get("janus").asText()).isEqualTo("ack");
+
+		JanusGateway gateway = pool.forSession(second);
+		assertThat(gateway.baseUrl()).isEqualTo(home.baseUrl());
+		assertThat(gateway.handles()).isGreaterThanOrEqualTo(1);
+		assertThat(gateway.publishers()).isGreaterThanOrEqualTo(1);
+
+		proxy.post("/rooms/101/" + first, Map.of("janus", "destroy", "transaction", "d1"));
+		proxy.post("/rooms/101/" + second, Map.of("janus", "destroy", "transaction", "d2"));
+		assertThat(pool.isKnown(second)).isFalse();
+	}
+
+	@Test
+	void newRoomsGoToTheLeastLoadedGateway() throws Exception {
+		long busy = proxy.createSession("/rooms/201");
+		proxy.createSession("/rooms/201");
+		FakeJanusServer loaded = owner(busy);
+
+		long fresh = proxy.createSession("/rooms/202");
+
+		assertThat(owner(fresh)).isNotSameAs(loaded);
+	}
+
+	@Test
+	void unhealthyGatewaysAreSkipped() throws Exception {
+		FakeJanusServer down = janus.get(2);
+		down.setInfoFailing(true);
+		try {
+			awaitHealth(down, false);
+
+			for (int room = 300; room < 306; room++) {
+				assertThat(owner(proxy.createSession("/rooms/" + room))).isNotSameAs(down);
+			}
+		} finally {
+			down.setInfoFailing(false);
+			awaitHealth(down, true);
+		}
+	}
+
+	@Test
+	void unknownSessionsAreNotSentToAGuessedGateway() throws Exception {
+		int attaches = janus.stream().mapToInt(server -> server.count("attach")).sum();
+
+		HttpResponse<String> response = proxy.send("/12345/1", Map.of("janus", "attach", "transaction", "a",
+				"plugin", "janus.plugin.videoroom"));
+
+		assertThat(response.statusCode()).isEqualTo(404);
+		assertThat(proxy.json(response).get("error").get("code").asInt()).isEqualTo(458);
+		assertThat(janus.stream().mapToInt(server -> server.count("attach")).sum()).isEqualTo(attaches);
+	}
+
+	@Test
+	void roomHintRoutesSessionsThisNodeHasNotSeen() throws Exception {
+		long forgotten = proxy.createSession("/rooms/401");
+		proxy.createSession("/rooms/401");
+		// As after a restart: the route is gone, the room is still pinned by its other session
+		pool.forget(forgotten);
+
+		assertThat(pool.forSession(forgotten)).isNull();
+		HttpResponse<String> poll = proxy.get("/rooms/401/" + forgotten + "?maxev=1");
+		assertThat(poll.statusCode()).isEqualTo(200);
+		assertThat(proxy.json(poll).get(0).get("janus").asText()).isEqualTo("keepalive");
+	}
+
+	private void awaitHealth(FakeJanusServer server, boolean healthy) throws InterruptedException {
+		pool.checkHealth();
+		for (int attempt = 0; attempt < 50 && healthy(server) != healthy; attempt++) {
+			Thread.sleep(100);
+		}
+		assertThat(healthy(server)).isEqualTo(healthy);
+	}
+
+	private boolean healthy(FakeJanusServer server) {
+		return pool.gateways().stream()
+				.filter(gateway -> gateway.baseUrl().equals(server.baseUrl()))
+				.findFirst().orElseThrow().isHealthy();
+	}
+
+	private FakeJanusServer owner(long sessionId) {
+		return janus.stream().filter(server -> server.hasSession(sessionId)).findFirst().orElseThrow();
+	}
+}
@@ -0,0 +1,145 @@
+package com.example.backend.janus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"janus.keepalive.interval-ms=600000",
+		"janus.keepalive.idle-timeout-ms=60000"})
+@ActiveProfiles("test")
+class JanusKeepaliveTests {
+
+	// Past janus.keepalive.idle-timeout-ms
+	private static final Duration IDLE = Duration.ofSeconds(61);
+
+	private static final FakeJanusServer janus = FakeJanusServer.start(500);
+
+	@Autowired
+	private JanusKeepalive keepalive;
+
+	@Autowired
+	private JanusGatewayPool pool;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@LocalServerPort
+	private int port;
+
+	private JanusProxyClient proxy;
+
+	@DynamicPropertySource
+	static void janusProperties(DynamicPropertyRegistry registry) {
+		registry.add("janus.gateways", janus::baseUrl);
+	}
+
+	@AfterAll
+	static void stopJanus() {
+		janus.close();
+	}
+
+	@BeforeEach
+	void createClient() {
+		proxy = new JanusProxyClient(port);
+	}
+
+	@AfterEach
+	void resetClock() {
+		keepalive.useClock(Clock.systemUTC());
+	}
+
+	@Test
+	void clientKeepalivesAreAnsweredLocallyAndSentUpstreamOncePerTick() throws Exception {
+		// Starts the tick window here, so the create below is newer than the last tick
+		keepalive.tick();
+		long sessionId = proxy.createSession();
+		int upstreamBefore = janus.count("keepalive");
+		double absorbedBefore = meterRegistry.counter("janus.keepalive.absorbed").count();
+
+		for (int i = 0; i < 5; i++) {
+			JsonNode ack = proxy.post("/" + sessionId, Map.of("janus", "keepalive", "transaction", "k" + i));
+			assertThat(ack.get("janus").asText()).isEqualTo("ack");
+			assertThat(ack.get("transaction").asText()).isEqualTo("k" + i);
+		}
+		assertThat(janus.count("keepalive")).isEqualTo(upstreamBefore);
+		assertThat(meterRegistry.counter("janus.keepalive.absorbed").count()).isEqualTo(absorbedBefore + 5);
+
+		// The create itself reset the Janus session timeout, so the first tick skips the session.
+		double timerBefore = timerKeepalives();
+		tickAt(Duration.ofSeconds(1));
+		assertThat(timerKeepalives()).isEqualTo(timerBefore);
+		tickAt(Duration.ofSeconds(2));
+		assertThat(timerKeepalives()).isEqualTo(timerBefore + 1);
+		awaitUpstreamKeepalives(upstreamBefore + 1);
+
+		// Proxied traffic already reset the Janus session timeout, so the next tick skips the session.
+		proxy.post("/" + sessionId, Map.of("janus", "attach", "transaction", "a", "plugin", "janus.plugin.videoroom"));
+		tickAt(Duration.ofSeconds(3));
+		assertThat(timerKeepalives()).isEqualTo(timerBefore + 1);
+		assertThat(janus.count("keepalive")).isEqualTo(upstreamBefore + 1);
+	}
+
+	@Test
+	void keepalivesForUnknownSessionsAreForwarded() throws Exception {
+		JsonNode error = proxy.post("/42", Map.of("janus", "keepalive", "transaction", "k"));
+
+		assertThat(error.get("error").get("code").asInt()).isEqualTo(458);
+	}
+
+	@Test
+	void sessionsAreTrackedFromCreate() throws Exception {
+		long sessionId = proxy.createSession();
+
+		// No client request after the create, yet the session is still reaped once idle
+		tickAt(IDLE);
+
+		assertThat(pool.isKnown(sessionId)).isFalse();
+	}
+
+	@Test
+	void idleSessionsAreReaped() throws Exception {
+		long sessionId = proxy.createSession();
+		proxy.post("/" + sessionId, Map.of("janus", "keepalive", "transaction", "k"));
+
+		tickAt(IDLE);
+
+		assertThat(pool.isKnown(sessionId)).isFalse();
+		for (int attempt = 0; attempt < 50 && janus.hasSession(sessionId); attempt++) {
+			Thread.sleep(50);
+		}
+		assertThat(janus.hasSession(sessionId)).isFalse();
+	}
+
+	// Runs a tick as if that much time had passed since now
+	private void tickAt(Duration ahead) {
+		keepalive.useClock(Clock.offset(Clock.systemUTC(), ahead));
+		keepalive.tick();
+	}
+
+	// Counted before the keepalive is sent, so it is exact right after a tick
+	private double timerKeepalives() {
+		return meterRegistry.counter("janus.keepalive.forwarded", "source", "timer").count();
+	}
+
+	private void awaitUpstreamKeepalives(int expected) throws InterruptedException {
+		for (int attempt = 0; attempt < 50 && janus.count("keepalive") < expected; attempt++) {
+			Thread.sleep(50);
+		}
+		assertThat(janus.count("keepalive")).isEqualTo(expected);
+	}
+}
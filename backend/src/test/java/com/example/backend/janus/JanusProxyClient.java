@@ -0,0 +1,77 @@
+package com.example.backend.janus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP client for {@code /api/janus} on a test server, shared by the Janus proxy tests. Keeps cookies, so every
+ * request of one client shares the proxy's HTTP session.
+ */
+public class JanusProxyClient {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CookieManager cookies = new CookieManager();
+	private final HttpClient http = HttpClient.newBuilder().cookieHandler(cookies).build();
+	private final int port;
+
+	public JanusProxyClient(int port) {
+		this.port = port;
+	}
+
+	public long createSession() throws Exception {
+		return createSession("");
+	}
+
+	/**
+	 * Creates a session under {@code prefix}, e.g. {@code /rooms/101}, and returns its id.
+	 */
+	public long createSession(String prefix) throws Exception {
+		return post(prefix, Map.of("janus", "create", "transaction", "c")).get("data").get("id").asLong();
+	}
+
+	public JsonNode post(String path, Map<String, ?> body) throws Exception {
+		return json(send(path, body));
+	}
+
+	public HttpResponse<String> send(String path, Map<String, ?> body) throws Exception {
+		return http.send(HttpRequest.newBuilder(uri(path))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(FakeJanusServer.json(body)))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	public HttpResponse<String> get(String path) throws Exception {
+		return http.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	public CompletableFuture<HttpResponse<String>> getAsync(String path) {
+		return http.sendAsync(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	public JsonNode json(HttpResponse<String> response) throws IOException {
+		return objectMapper.readTree(response.body());
+	}
+
+	/**
+	 * The proxy's session cookie, or {@code null} before the proxy has created one.
+	 */
+	public HttpCookie httpSession() {
+		return cookies.getCookieStore().getCookies().stream()
+				.filter(cookie -> cookie.getName().equals("JSESSIONID"))
+				.findFirst().orElse(null);
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + port + "/api/janus" + path);
+	}
+}
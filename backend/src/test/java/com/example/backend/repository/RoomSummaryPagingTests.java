@@ -0,0 +1,84 @@
+package com.example.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.RoomSummaryResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RoomSummaryPagingTests {
+
+	private static final int PAGE_SIZE = 3;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void pagesWalkEveryRoomOnceEvenWhenCreatedAtTies() {
+		AppUser host = appUserRepository.save(new AppUser("paging-" + System.nanoTime() + "@example.com", "secret",
+				"pager", "local"));
+		List<Long> created = new ArrayList<>();
+		for (int i = 0; i < 2 * PAGE_SIZE + 1; i++) {
+			Room room = roomRepository.save(new Room("Paged " + i, RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+			roomMemberRepository.save(new RoomMember(room, host, RoomRole.HOST, false, "device"));
+			created.add(room.getId());
+		}
+		// Same second for every room, so only the id can break ties
+		jdbcTemplate.update("update room set created_at = ? where host_id = ?",
+				Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 12, 0)), host.getId());
+
+		List<RoomSummaryResponse> walked = new ArrayList<>();
+		List<RoomSummaryResponse> page = roomRepository.findSummaries(null, null, PageRequest.of(0, PAGE_SIZE));
+		while (!page.isEmpty()) {
+			assertThat(page).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+			walked.addAll(page);
+			page = roomRepository.findSummariesBefore(null, null, page.get(page.size() - 1).getId(),
+					PageRequest.of(0, PAGE_SIZE));
+		}
+
+		List<Long> ids = walked.stream().map(RoomSummaryResponse::getId).toList();
+		assertThat(ids).doesNotHaveDuplicates().isSortedAccordingTo((a, b) -> Long.compare(b, a)).containsAll(created);
+		assertThat(walked).filteredOn(room -> created.contains(room.getId()))
+				.allSatisfy(room -> assertThat(room.getMemberCount()).isEqualTo(1));
+	}
+
+	@Test
+	void laterPagesKeepTheFilters() {
+		AppUser host = appUserRepository.save(new AppUser("paging-" + System.nanoTime() + "@example.com", "secret",
+				"pager", "local"));
+		Room privateRoom = roomRepository.save(new Room("Hidden", RoomMode.KARAOKE, RoomVisibility.PRIVATE, null, host));
+		Room publicRoom = roomRepository.save(new Room("Shown", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+
+		List<RoomSummaryResponse> page = roomRepository.findSummariesBefore(RoomMode.KARAOKE, RoomVisibility.PRIVATE,
+				publicRoom.getId() + 1, PageRequest.of(0, 50));
+
+		assertThat(page).extracting(RoomSummaryResponse::getId).contains(privateRoom.getId())
+				.doesNotContain(publicRoom.getId());
+		assertThat(page).allSatisfy(room -> assertThat(room.getVisibility()).isEqualTo(RoomVisibility.PRIVATE));
+	}
+}
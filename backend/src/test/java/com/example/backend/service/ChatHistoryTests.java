@@ -0,0 +1,99 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.ChatMessageResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.ChatMessageRepository;
+import com.example.backend.repository.RoomMemberRepository;
+import com.example.backend.repository.RoomRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChatHistoryTests {
+
+	private static final int PAGE = 20;
+
+	@Autowired
+	private ChatHistory chatHistory;
+
+	@Autowired
+	private RoomDirectory roomDirectory;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Test
+	void cursorWalksTheWholeTableOnce() {
+		Room room = roomWithMember(45);
+		chatHistory.flush();
+
+		List<ChatMessageResponse> first = chatHistory.page(room.getId(), null, null, PAGE);
+
+		assertThat(first).extracting(ChatMessageResponse::getId)
+				.containsExactlyElementsOf(tablePage(room, PAGE));
+		List<Long> walked = walk(room, first);
+		assertThat(walked).containsExactlyElementsOf(tablePage(room, 100)).hasSize(45);
+	}
+
+	@Test
+	void flushedMessagesArePagedNewestFirst() {
+		Room room = roomWithMember(10);
+
+		chatHistory.flush();
+
+		assertThat(chatHistory.page(room.getId(), null, null, PAGE)).extracting(ChatMessageResponse::getContent)
+				.hasSize(10).startsWith("message 9");
+	}
+
+	// Follows the (createdAt, id) cursor of each page to the end, starting from the given first page
+	private List<Long> walk(Room room, List<ChatMessageResponse> first) {
+		List<Long> ids = new ArrayList<>();
+		List<ChatMessageResponse> page = first;
+		while (!page.isEmpty()) {
+			page.forEach(message -> ids.add(message.getId()));
+			ChatMessageResponse last = page.get(page.size() - 1);
+			page = chatHistory.page(room.getId(), last.getCreatedAt(), last.getId(), PAGE);
+		}
+		return ids;
+	}
+
+	private List<Long> tablePage(Room room, int size) {
+		return chatMessageRepository.findFirstPage(room.getId(), PageRequest.of(0, size)).stream()
+				.map(ChatMessageResponse::getId).toList();
+	}
+
+	private Room roomWithMember(int messages) {
+		AppUser user = appUserRepository.save(new AppUser("chat-" + System.nanoTime() + "@example.com", "secret",
+				"chatter", "local"));
+		Room room = roomRepository.save(new Room("Chat", RoomMode.TRANSLATION, RoomVisibility.PUBLIC, null, user));
+		roomMemberRepository.save(new RoomMember(room, user, RoomRole.HOST, false, "device"));
+		roomDirectory.rebuild();
+		for (int i = 0; i < messages; i++) {
+			chatHistory.append(room.getId().toString(), user.getId().toString(), "message " + i);
+		}
+		return room;
+	}
+}
@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.ChatMessage;
+import com.example.backend.domain.ChatMessageType;
+import com.example.backend.domain.IdBlock;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.ChatMessageRepository;
+import com.example.backend.repository.RoomMemberRepository;
+import com.example.backend.repository.RoomRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 5,000 chat messages per path: one insert per round trip (what {@code IDENTITY} ids forced, since Hibernate has to
+ * read each key back before the next insert) versus {@link ChatHistory}'s JDBC batches with ids from
+ * {@link IdBlocks}, plus {@code saveAll} through JPA, which now batches {@code hibernate.jdbc.batch_size} rows per
+ * statement.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ChatInsertBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ChatInsertBenchmarkTests.class);
+	private static final int MESSAGES = 5_000;
+	private static final int WARM_UP = 500;
+
+	@Autowired
+	private ChatHistory chatHistory;
+
+	@Autowired
+	private IdBlocks idBlocks;
+
+	@Autowired
+	private RoomDirectory roomDirectory;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void batchedInsertsBeatOneRowPerRoundTrip() {
+		AppUser user = appUserRepository.save(new AppUser("bench-" + System.nanoTime() + "@example.com", "secret",
+				"bench", "local"));
+		Room room = roomRepository.save(new Room("Chat bench", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, user));
+		roomMemberRepository.save(new RoomMember(room, user, RoomRole.HOST, false, "device"));
+		roomDirectory.rebuild();
+		rowByRow(room, user, WARM_UP);
+		batched(room, user, WARM_UP);
+
+		long rowNanos = rowByRow(room, user, MESSAGES);
+		long batchNanos = batched(room, user, MESSAGES);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		long jpaNanos = saveAll(room, user, MESSAGES);
+		long jpaStatements = statistics.getPrepareStatementCount();
+
+		log.info("{} chat messages: row by row={}/s, ChatHistory batches={}/s, JPA saveAll={}/s in {} statements",
+				MESSAGES, perSecond(rowNanos), perSecond(batchNanos), perSecond(jpaNanos), jpaStatements);
+		assertThat(jdbcTemplate.queryForObject("select count(*) from chat_message where room_id = ?", Long.class,
+				room.getId())).isEqualTo(2L * WARM_UP + 3L * MESSAGES);
+		assertThat(jpaStatements).isLessThan(MESSAGES / 10);
+	}
+
+	private long rowByRow(Room room, AppUser user, int count) {
+		long started = System.nanoTime();
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < count; i++) {
+				jdbcTemplate.update("insert into chat_message (id, room_id, user_id, type, content, created_at) "
+								+ "values (?, ?, ?, ?, ?, ?)", idBlocks.next(IdBlock.CHAT_MESSAGE), room.getId(),
+						user.getId(), ChatMessageType.TEXT.name(), "row " + i, Timestamp.valueOf(LocalDateTime.now()));
+			}
+		});
+		return System.nanoTime() - started;
+	}
+
+	private long batched(Room room, AppUser user, int count) {
+		long started = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			chatHistory.append(room.getId().toString(), user.getId().toString(), "batched " + i);
+		}
+		chatHistory.flush();
+		return System.nanoTime() - started;
+	}
+
+	private long saveAll(Room room, AppUser user, int count) {
+		List<ChatMessage> messages = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			messages.add(new ChatMessage(room, user, ChatMessageType.TEXT, "saved " + i));
+		}
+		long started = System.nanoTime();
+		transactionTemplate.executeWithoutResult(status -> chatMessageRepository.saveAll(messages));
+		return System.nanoTime() - started;
+	}
+
+	private static long perSecond(long nanos) {
+		return MESSAGES * 1_000_000_000L / Math.max(nanos, 1);
+	}
+}
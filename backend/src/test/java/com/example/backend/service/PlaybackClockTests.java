@@ -0,0 +1,85 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.PlaybackResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+class PlaybackClockTests {
+
+	private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+	private final PlaybackClock clock = new PlaybackClock(new SimpMessagingTemplate((message, timeout) -> {
+		sent.add(message);
+		return true;
+	}), 750);
+	private final List<PlaybackResponse> persisted = new CopyOnWriteArrayList<>();
+	private final AtomicInteger titleLoads = new AtomicInteger();
+
+	@Test
+	void onlyTransitionsArePersistedAndBroadcast() {
+		update(1L, 0, true);
+		update(1L, 100, true);
+		update(1L, 100, false);
+		update(1L, 60_000, false);
+
+		assertThat(persisted).extracting(PlaybackResponse::isPlaying).containsExactly(true, false, false);
+		assertThat(persisted).extracting(PlaybackResponse::getPositionMs).endsWith(60_000L);
+		assertThat(sent).hasSize(3);
+		assertThat(titleLoads).hasValue(1);
+	}
+
+	@Test
+	void concurrentTrackChangesAlwaysCarryTheirTitleAndPersistInOrder() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<PlaybackResponse>> results = new ArrayList<>();
+			for (int i = 0; i < 2000; i++) {
+				long trackId = i % 5;
+				results.add(executor.submit(() -> update(trackId, 0, true)));
+			}
+			for (Future<PlaybackResponse> result : results) {
+				PlaybackResponse state = result.get();
+				assertThat(state.getTrackTitle()).isEqualTo(title(state.getTrackId()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(persisted)
+				.allSatisfy(state -> assertThat(state.getTrackTitle()).isEqualTo(title(state.getTrackId())));
+		// The buffer keeps whatever was handed to it last, which must be the clock's own state
+		assertThat(persisted.get(persisted.size() - 1).getTrackId()).isEqualTo(clock.current(1L).getTrackId());
+	}
+
+	@Test
+	void emptiedRoomStopsTicking() {
+		update(1L, 0, true);
+		sent.clear();
+
+		clock.onRoomEmptied(new RoomEmptiedEvent(1L));
+		clock.tick();
+
+		assertThat(sent).isEmpty();
+		assertThat(clock.current(1L)).isNull();
+	}
+
+	private PlaybackResponse update(Long trackId, long positionMs, boolean playing) {
+		return clock.update(1L, trackId, positionMs, playing, id -> {
+			titleLoads.incrementAndGet();
+			return title(id);
+		}, persisted::add);
+	}
+
+	private static String title(Long trackId) {
+		return "Track " + trackId;
+	}
+}
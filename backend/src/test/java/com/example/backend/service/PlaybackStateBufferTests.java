@@ -0,0 +1,103 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.PlaybackResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.PlaybackStateRepository;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.repository.TrackRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlaybackStateBufferTests {
+
+	@Autowired
+	private PlaybackStateBuffer playbackStateBuffer;
+
+	@Autowired
+	private PlaybackStateRepository playbackStateRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void flushUpsertsAndEmptiedRoomsAreReadBackFromTheTable() {
+		Room room = room();
+		Track track = track();
+		playbackStateBuffer.put(state(room, track, 1000, true));
+		playbackStateBuffer.flush();
+		PlaybackResponse last = state(room, track, 5000, false);
+		playbackStateBuffer.put(last);
+		playbackStateBuffer.onRoomEmptied(new RoomEmptiedEvent(room.getId()));
+		playbackStateBuffer.flush();
+
+		assertThat(playbackStateRepository.findResponse(room.getId())).hasValueSatisfying(stored -> {
+			assertThat(stored.getTrackTitle()).isEqualTo("Buffered");
+			assertThat(stored.getPositionMs()).isEqualTo(5000);
+			assertThat(stored.isPlaying()).isFalse();
+		});
+		// Forgotten after the flush, so this comes back from the table
+		PlaybackResponse readBack = playbackStateBuffer.get(room.getId());
+		assertThat(readBack).isNotSameAs(last);
+		assertThat(readBack.getPositionMs()).isEqualTo(5000);
+		assertThat(readBack.getTrackTitle()).isEqualTo("Buffered");
+	}
+
+	@Test
+	void rejectedRowIsDroppedAndTheRestOfTheBatchIsWritten() {
+		Room good = room();
+		Room orphaned = room();
+		Track track = track();
+		double failed = meterRegistry.counter("playback.buffer.failed").count();
+		playbackStateBuffer.put(state(good, track, 2000, true));
+		playbackStateBuffer.put(new PlaybackResponse(orphaned.getId(), -1L, "Deleted", 0, true,
+				LocalDateTime.now()));
+
+		playbackStateBuffer.flush();
+		playbackStateBuffer.flush();
+
+		assertThat(playbackStateRepository.findResponse(good.getId())).map(PlaybackResponse::getPositionMs)
+				.hasValue(2000L);
+		assertThat(playbackStateRepository.findResponse(orphaned.getId())).isEmpty();
+		assertThat(meterRegistry.counter("playback.buffer.failed").count()).isEqualTo(failed + 1);
+		assertThat(meterRegistry.get("playback.buffer.pending").gauge().value()).isZero();
+	}
+
+	private PlaybackResponse state(Room room, Track track, long positionMs, boolean playing) {
+		return new PlaybackResponse(room.getId(), track.getId(), track.getTitle(), positionMs, playing,
+				LocalDateTime.now());
+	}
+
+	private Room room() {
+		AppUser host = appUserRepository.save(new AppUser("playback-" + System.nanoTime() + "@example.com", "secret",
+				"host", "local"));
+		return roomRepository.save(new Room("Playback", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+	}
+
+	private Track track() {
+		return trackRepository.save(new Track(TrackSourceType.UPLOAD, "Buffered", "someone", 200,
+				"https://example.com", null));
+	}
+}
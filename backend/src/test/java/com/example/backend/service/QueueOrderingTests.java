@@ -0,0 +1,482 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.repository.TrackRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class QueueOrderingTests {
+
+	private static final int SINGERS = 16;
+	private static final int SONGS_EACH = 10;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private TrackCache trackCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private QueueOrdering queueOrdering;
+
+	@LocalServerPort
+	private int port;
+
+	private final ThreadPoolTaskScheduler receiptScheduler = new ThreadPoolTaskScheduler();
+
+	private AppUser host;
+	private Room room;
+	private Track track;
+
+	@BeforeEach
+	void setUp() {
+		receiptScheduler.initialize();
+		host = user("host");
+		room = roomRepository.save(new Room("Ordered", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+		track = trackRepository.save(new Track(TrackSourceType.UPLOAD, "Ordered", "artist", 180,
+				"https://example.com", null));
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		receiptScheduler.shutdown();
+	}
+
+	@Test
+	void parallelAddsNeverShareOrLoseAPosition() throws Exception {
+		List<AppUser> singers = new ArrayList<>();
+		for (int i = 0; i < SINGERS; i++) {
+			singers.add(user("singer" + i));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(SINGERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<Long>>> added = new ArrayList<>();
+		try {
+			for (AppUser singer : singers) {
+				added.add(executor.submit(() -> {
+					start.await();
+					List<Long> ids = new ArrayList<>();
+					for (int i = 0; i < SONGS_EACH; i++) {
+						ids.add(add(singer).get("id").asLong());
+					}
+					return ids;
+				}));
+			}
+			start.countDown();
+			Set<Long> expected = new HashSet<>();
+			Map<Long, List<Long>> bySinger = new HashMap<>();
+			for (int i = 0; i < SINGERS; i++) {
+				List<Long> ids = added.get(i).get();
+				expected.addAll(ids);
+				bySinger.put(singers.get(i).getId(), ids);
+			}
+
+			JsonNode queue = queue();
+			assertThat(queue).hasSize(SINGERS * SONGS_EACH);
+			assertStrictlyIncreasingRanks(queue);
+			Set<Long> listed = new HashSet<>();
+			Map<Long, List<Long>> listedBySinger = new HashMap<>();
+			for (JsonNode item : queue) {
+				listed.add(item.get("id").asLong());
+				listedBySinger.computeIfAbsent(item.get("requestedBy").asLong(), id -> new ArrayList<>())
+						.add(item.get("id").asLong());
+			}
+			assertThat(listed).isEqualTo(expected);
+			// Each singer's songs stay in the order they were added
+			assertThat(listedBySinger).isEqualTo(bySinger);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void movesLandBetweenTheirNeighbours() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(add(host).get("id").asLong());
+		}
+
+		move(ids.get(4), Map.of("afterItemId", ids.get(0)));
+		move(ids.get(1), Map.of("beforeItemId", ids.get(0)));
+		move(ids.get(2), Map.of("afterItemId", ids.get(3)));
+
+		assertThat(order()).containsExactly(ids.get(1), ids.get(0), ids.get(4), ids.get(3), ids.get(2));
+		assertStrictlyIncreasingRanks(queue());
+	}
+
+	@Test
+	void exhaustedGapsAreRebalanced() throws Exception {
+		Long first = add(host).get("id").asLong();
+		Long second = add(host).get("id").asLong();
+		double rebalancedBefore = meterRegistry.counter("queue.rebalanced").count();
+
+		// Alternating the front halves the space below the first rank every time
+		for (int i = 0; i < 40; i++) {
+			move(i % 2 == 0 ? second : first, Map.of("beforeItemId", i % 2 == 0 ? first : second));
+		}
+
+		assertThat(meterRegistry.counter("queue.rebalanced").count()).isGreaterThan(rebalancedBefore);
+		assertThat(order()).containsExactly(first, second);
+		assertStrictlyIncreasingRanks(queue());
+	}
+
+	@Test
+	void duplicateRanksFromOlderVersionsAreRenumberedAtStartup() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ids.add(add(host).get("id").asLong());
+		}
+		// As an older version could leave them: every row on the same rank, without the unique key
+		jdbcTemplate.execute("alter table queue_item drop constraint uk_queue_item_room_sort");
+		jdbcTemplate.update("update queue_item set sort_order = ? where room_id = ?", QueueOrdering.GAP, room.getId());
+
+		queueOrdering.renumberDuplicateRanks();
+
+		assertThat(order()).containsExactlyElementsOf(ids);
+		assertStrictlyIncreasingRanks(queue());
+		assertThatThrownBy(() -> jdbcTemplate.update("update queue_item set sort_order = ? where room_id = ?",
+				QueueOrdering.GAP, room.getId())).isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	@Test
+	void parallelMovesNeverShareARank() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			ids.add(add(host).get("id").asLong());
+		}
+		Long anchor = ids.get(0);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> moves = new ArrayList<>();
+		try {
+			for (Long id : ids.subList(1, ids.size())) {
+				moves.add(executor.submit(() -> {
+					start.await();
+					return patch(id, Map.of("afterItemId", anchor)).statusCode();
+				}));
+			}
+			start.countDown();
+			for (Future<Integer> move : moves) {
+				assertThat(move.get()).isEqualTo(200);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		JsonNode queue = queue();
+		assertThat(queue).hasSize(ids.size());
+		assertThat(queue.get(0).get("id").asLong()).isEqualTo(anchor);
+		assertStrictlyIncreasingRanks(queue);
+	}
+
+	@Test
+	void everyChangeIsPublishedAsTheNextVersion() throws Exception {
+		Long first = add(host).get("id").asLong();
+		long version = version();
+		BlockingQueue<JsonNode> diffs = subscribe("/topic/room/" + room.getId() + "/queue");
+
+		Long second = add(host).get("id").asLong();
+		move(second, Map.of("beforeItemId", first));
+		assertThat(patch(first, Map.of("status", "PLAYING")).statusCode()).isEqualTo(200);
+
+		JsonNode inserted = next(diffs);
+		assertThat(inserted.get("version").asLong()).isEqualTo(version + 1);
+		assertThat(inserted.get("op").asText()).isEqualTo("INSERT");
+		assertThat(inserted.get("items").get(0).get("id").asLong()).isEqualTo(second);
+		JsonNode moved = next(diffs);
+		assertThat(moved.get("version").asLong()).isEqualTo(version + 2);
+		assertThat(moved.get("op").asText()).isEqualTo("MOVE");
+		assertThat(moved.get("items").get(0).get("sortOrder").asInt())
+				.isLessThan(inserted.get("items").get(0).get("sortOrder").asInt());
+		JsonNode status = next(diffs);
+		assertThat(status.get("version").asLong()).isEqualTo(version + 3);
+		assertThat(status.get("op").asText()).isEqualTo("STATUS");
+		assertThat(status.get("items").get(0).get("status").asText()).isEqualTo("PLAYING");
+		assertThat(status.get("items").get(0).get("trackTitle").asText()).isEqualTo("Ordered");
+	}
+
+	@Test
+	void rebalancesArePublishedWithTheNewRanks() throws Exception {
+		Long first = add(host).get("id").asLong();
+		Long second = add(host).get("id").asLong();
+		BlockingQueue<JsonNode> diffs = subscribe("/topic/room/" + room.getId() + "/queue");
+
+		JsonNode rerank = null;
+		for (int i = 0; i < 40 && rerank == null; i++) {
+			move(i % 2 == 0 ? second : first, Map.of("beforeItemId", i % 2 == 0 ? first : second));
+			for (JsonNode diff = diffs.poll(); diff != null; diff = diffs.poll()) {
+				if ("RERANK".equals(diff.get("op").asText())) {
+					rerank = diff;
+				}
+			}
+		}
+
+		assertThat(rerank).isNotNull();
+		assertThat(rerank.get("ranks").size()).isEqualTo(2);
+	}
+
+	@Test
+	void setlistImportIsAppendedInOrderAsOneVersion() throws Exception {
+		Long existing = add(host).get("id").asLong();
+		long version = version();
+		List<Map<String, Object>> setlist = new ArrayList<>();
+		List<Long> trackIds = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Track song = trackRepository.save(new Track(TrackSourceType.UPLOAD, "Setlist " + i, "artist", 180,
+					"https://example.com", null));
+			trackIds.add(song.getId());
+			setlist.add(Map.of("trackId", song.getId(), "requestedBy", host.getId()));
+		}
+		BlockingQueue<JsonNode> diffs = subscribe("/topic/room/" + room.getId() + "/queue");
+
+		HttpResponse<String> response = send("POST", uri("/batch"), Map.of("items", setlist));
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		JsonNode added = objectMapper.readTree(response.body());
+		assertThat(added.get("version").asLong()).isEqualTo(version + 1);
+		assertThat(added.get("items").findValuesAsText("trackTitle")).startsWith("Setlist 0", "Setlist 1");
+		assertThat(version()).isEqualTo(version + 1);
+		List<Long> expected = new ArrayList<>(List.of(existing));
+		added.get("items").forEach(item -> expected.add(item.get("id").asLong()));
+		assertThat(order()).isEqualTo(expected);
+		assertStrictlyIncreasingRanks(queue());
+		JsonNode diff = next(diffs);
+		assertThat(diff.get("op").asText()).isEqualTo("INSERT");
+		assertThat(diff.get("version").asLong()).isEqualTo(version + 1);
+		assertThat(diff.get("items")).hasSize(30);
+		assertThat(diff.get("items").get(29).get("trackId").asLong()).isEqualTo(trackIds.get(29));
+	}
+
+	@Test
+	void batchWithAnUnknownTrackWritesNothing() throws Exception {
+		add(host);
+		long version = version();
+
+		HttpResponse<String> response = send("POST", uri("/batch"), Map.of("items", List.of(
+				Map.of("trackId", track.getId(), "requestedBy", host.getId()),
+				Map.of("trackId", -1L, "requestedBy", host.getId()))));
+
+		assertThat(response.statusCode()).isEqualTo(404);
+		assertThat(queue()).hasSize(1);
+		assertThat(version()).isEqualTo(version);
+	}
+
+	@Test
+	void cachedTrackDeletedBehindTheCacheIsNotFound() throws Exception {
+		Track gone = trackRepository.save(new Track(TrackSourceType.UPLOAD, "Gone", "artist", 180,
+				"https://example.com", null));
+		assertThat(trackCache.get(gone.getId())).isPresent();
+		// Bypasses the entity listener, so the cache still holds the track
+		jdbcTemplate.update("delete from track where id = ?", gone.getId());
+
+		HttpResponse<String> response = send("POST", uri(""),
+				Map.of("trackId", gone.getId(), "requestedBy", host.getId()));
+
+		assertThat(response.statusCode()).isEqualTo(404);
+		assertThat(queue()).isEmpty();
+		assertThat(trackCache.get(gone.getId())).isEmpty();
+	}
+
+	@Test
+	void batchWithACachedButDeletedTrackIsNotFound() throws Exception {
+		Track gone = trackRepository.save(new Track(TrackSourceType.UPLOAD, "Gone too", "artist", 180,
+				"https://example.com", null));
+		assertThat(trackCache.get(gone.getId())).isPresent();
+		jdbcTemplate.update("delete from track where id = ?", gone.getId());
+
+		HttpResponse<String> response = send("POST", uri("/batch"), Map.of("items", List.of(
+				Map.of("trackId", track.getId(), "requestedBy", host.getId()),
+				Map.of("trackId", gone.getId(), "requestedBy", host.getId()))));
+
+		assertThat(response.statusCode()).isEqualTo(404);
+		assertThat(queue()).isEmpty();
+	}
+
+	@Test
+	void reorderSwapsOnlyTheListedItems() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			ids.add(add(host).get("id").asLong());
+		}
+		long version = version();
+
+		HttpResponse<String> response = send("PATCH", uri("/order"), Map.of("itemIds", List.of(ids.get(3), ids.get(1))));
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(objectMapper.readTree(response.body()).get("version").asLong()).isEqualTo(version + 1);
+		assertThat(order()).containsExactly(ids.get(0), ids.get(3), ids.get(2), ids.get(1));
+		assertStrictlyIncreasingRanks(queue());
+	}
+
+	@Test
+	void statusesChangeTogether() throws Exception {
+		Long first = add(host).get("id").asLong();
+		Long second = add(host).get("id").asLong();
+		Long third = add(host).get("id").asLong();
+		long version = version();
+
+		HttpResponse<String> response = send("PATCH", uri("/status"), Map.of("items", List.of(
+				Map.of("id", first, "status", "DONE"),
+				Map.of("id", second, "status", "PLAYING"))));
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(objectMapper.readTree(response.body()).get("version").asLong()).isEqualTo(version + 1);
+		assertThat(queue().findValuesAsText("status")).containsExactly("DONE", "PLAYING", "PENDING");
+		assertThat(order()).containsExactly(first, second, third);
+	}
+
+	private long version() throws Exception {
+		HttpResponse<String> listing = http.send(HttpRequest.newBuilder(uri("")).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+		return Long.parseLong(listing.headers().firstValue("X-Queue-Version").orElseThrow());
+	}
+
+	private BlockingQueue<JsonNode> subscribe(String destination) throws Exception {
+		WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+		client.setMessageConverter(new MappingJackson2MessageConverter());
+		// Receipts are timed on the client's scheduler
+		client.setTaskScheduler(receiptScheduler);
+		StompSession session = client.connectAsync("ws://127.0.0.1:" + port + "/api/ws",
+				new StompSessionHandlerAdapter() {
+				}).get(10, TimeUnit.SECONDS);
+		session.setAutoReceipt(true);
+		BlockingQueue<JsonNode> frames = new LinkedBlockingQueue<>();
+		CountDownLatch subscribed = new CountDownLatch(1);
+		session.subscribe(destination, new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return JsonNode.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				frames.add((JsonNode) payload);
+			}
+		}).addReceiptTask(subscribed::countDown);
+		// The broker has registered the subscription once it acknowledges the SUBSCRIBE
+		assertThat(subscribed.await(10, TimeUnit.SECONDS)).isTrue();
+		return frames;
+	}
+
+	private static JsonNode next(BlockingQueue<JsonNode> frames) throws InterruptedException {
+		JsonNode frame = frames.poll(10, TimeUnit.SECONDS);
+		assertThat(frame).isNotNull();
+		return frame;
+	}
+
+	private void assertStrictlyIncreasingRanks(JsonNode queue) {
+		for (int i = 1; i < queue.size(); i++) {
+			assertThat(queue.get(i).get("sortOrder").asInt()).isGreaterThan(queue.get(i - 1).get("sortOrder").asInt());
+		}
+	}
+
+	private List<Long> order() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (JsonNode item : queue()) {
+			ids.add(item.get("id").asLong());
+		}
+		return ids;
+	}
+
+	private JsonNode queue() throws Exception {
+		HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri("")).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).isEqualTo(200);
+		return objectMapper.readTree(response.body());
+	}
+
+	private JsonNode add(AppUser singer) throws Exception {
+		HttpResponse<String> response = send("POST", uri(""),
+				Map.of("trackId", track.getId(), "requestedBy", singer.getId()));
+		assertThat(response.statusCode()).isEqualTo(200);
+		return objectMapper.readTree(response.body());
+	}
+
+	private void move(Long queueItemId, Map<String, ?> body) throws Exception {
+		assertThat(patch(queueItemId, body).statusCode()).isEqualTo(200);
+	}
+
+	private HttpResponse<String> patch(Long queueItemId, Map<String, ?> body) throws Exception {
+		return send("PATCH", uri("/" + queueItemId), body);
+	}
+
+	private HttpResponse<String> send(String method, URI uri, Map<String, ?> body) throws Exception {
+		return http.send(HttpRequest.newBuilder(uri)
+						.header("Content-Type", "application/json")
+						.method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + port + "/api/rooms/" + room.getId() + "/queue" + path);
+	}
+
+	private AppUser user(String nickname) {
+		return appUserRepository.save(new AppUser(nickname + "-" + System.nanoTime() + "@example.com", "secret",
+				nickname, "local"));
+	}
+}
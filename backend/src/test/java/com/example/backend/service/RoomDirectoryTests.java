@@ -0,0 +1,129 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.RoomMemberResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMember;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomRole;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.RoomMemberRepository;
+import com.example.backend.repository.RoomRepository;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RoomDirectoryTests {
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Test
+	void changesDuringARebuildSurviveTheSwap() throws Exception {
+		AppUser host = user("host");
+		AppUser newcomer = user("newcomer");
+		Room room = roomRepository.save(new Room("Rebuilt", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+		roomMemberRepository.save(new RoomMember(room, host, RoomRole.HOST, false, "device"));
+		Room late = roomRepository.save(new Room("Late", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, newcomer));
+
+		AtomicBoolean armed = new AtomicBoolean();
+		CountDownLatch loaded = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RoomDirectory directory = new RoomDirectory(roomRepository, pausedAfterMemberLoad(armed, loaded, release),
+				event -> {});
+		directory.rebuild();
+		directory.markOnline(room.getId().toString(), host.getId().toString());
+
+		armed.set(true);
+		CompletableFuture<Void> rebuild = CompletableFuture.runAsync(directory::rebuild);
+		assertThat(loaded.await(10, TimeUnit.SECONDS)).isTrue();
+		// The rebuild has already read room_member; none of these are in what it read
+		directory.addMember(room.getId(), new RoomMemberResponse(null, newcomer.getId(), "newcomer", RoomRole.LISTENER,
+				false, "device", LocalDateTime.now()));
+		directory.removeMember(room.getId(), host.getId());
+		directory.register(late, "newcomer");
+		release.countDown();
+		rebuild.get(10, TimeUnit.SECONDS);
+
+		assertThat(directory.member(room.getId(), newcomer.getId())).isNotNull();
+		assertThat(directory.member(room.getId(), host.getId())).isNull();
+		assertThat(directory.mode(late.getId())).isEqualTo(RoomMode.KARAOKE);
+		assertThat(directory.list(null, null, null, 1000))
+				.filteredOn(summary -> summary.getId().equals(room.getId()))
+				.singleElement()
+				.satisfies(summary -> assertThat(summary.getOnlineCount()).isEqualTo(1));
+	}
+
+	@Test
+	void laterRebuildsStopJournaling() {
+		AppUser host = user("host");
+		Room room = roomRepository.save(new Room("Quiet", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+		roomMemberRepository.save(new RoomMember(room, host, RoomRole.HOST, false, "device"));
+		RoomDirectory directory = new RoomDirectory(roomRepository, roomMemberRepository, event -> {});
+		directory.rebuild();
+
+		directory.removeMember(room.getId(), host.getId());
+		directory.rebuild();
+
+		// Outside a rebuild the database wins again
+		assertThat(directory.member(room.getId(), host.getId())).isNotNull();
+	}
+
+	@Test
+	void removingTheLastMemberPublishesRoomEmptied() {
+		AppUser host = user("host");
+		AppUser guest = user("guest");
+		Room room = roomRepository.save(new Room("Emptied", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, host));
+		roomMemberRepository.save(new RoomMember(room, host, RoomRole.HOST, false, "device"));
+		roomMemberRepository.save(new RoomMember(room, guest, RoomRole.PERFORMER, false, "device"));
+		List<Object> events = new CopyOnWriteArrayList<>();
+		RoomDirectory directory = new RoomDirectory(roomRepository, roomMemberRepository, events::add);
+		directory.rebuild();
+
+		directory.removeMember(room.getId(), guest.getId());
+		assertThat(events).isEmpty();
+		directory.removeMember(room.getId(), host.getId());
+		directory.removeMember(room.getId(), host.getId());
+
+		assertThat(events).containsExactly(new RoomEmptiedEvent(room.getId()));
+	}
+
+	// Holds the first member load made while armed until release, after it has read the table
+	private RoomMemberRepository pausedAfterMemberLoad(AtomicBoolean armed, CountDownLatch loaded,
+			CountDownLatch release) {
+		return (RoomMemberRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {RoomMemberRepository.class}, (proxy, method, args) -> {
+					Object result = method.invoke(roomMemberRepository, args);
+					if (method.getName().equals("findAllWithRoomAndUser") && armed.compareAndSet(true, false)) {
+						loaded.countDown();
+						release.await(10, TimeUnit.SECONDS);
+					}
+					return result;
+				});
+	}
+
+	private AppUser user(String nickname) {
+		return appUserRepository.save(new AppUser(nickname + "-" + System.nanoTime() + "@example.com", "secret",
+				nickname, "local"));
+	}
+}
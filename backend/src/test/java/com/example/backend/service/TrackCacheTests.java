@@ -0,0 +1,102 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.TrackRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackCacheTests {
+
+	@Autowired
+	private TrackCache trackCache;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void repeatedReadsAreServedFromTheCache() {
+		Track track = save("Cached Song");
+		double hits = hits();
+		double misses = misses();
+
+		assertThat(trackCache.get(track.getId())).map(TrackResponse::getTitle).hasValue("Cached Song");
+		assertThat(trackCache.get(track.getId())).map(TrackResponse::getTitle).hasValue("Cached Song");
+
+		assertThat(misses()).isEqualTo(misses + 1);
+		assertThat(hits()).isEqualTo(hits + 1);
+		assertThat(trackCache.hitRatio()).isGreaterThan(0);
+	}
+
+	@Test
+	void batchReadsOnlyLoadMisses() {
+		Track cached = save("Batch One");
+		Track second = save("Batch Two");
+		Track third = save("Batch Three");
+		trackCache.get(cached.getId());
+		double misses = misses();
+
+		Map<Long, TrackResponse> tracks = trackCache.getAll(List.of(cached.getId(), second.getId(), third.getId(),
+				second.getId(), -1L));
+
+		assertThat(tracks).containsOnlyKeys(cached.getId(), second.getId(), third.getId());
+		assertThat(misses()).isEqualTo(misses + 3);
+		assertThat(trackCache.getAll(List.of(second.getId(), third.getId()))).hasSize(2);
+		assertThat(misses()).isEqualTo(misses + 3);
+	}
+
+	@Test
+	void deletedTracksAreEvicted() {
+		Track track = save("Short Lived");
+		assertThat(trackCache.get(track.getId())).isPresent();
+
+		trackRepository.delete(track);
+
+		assertThat(trackCache.get(track.getId())).isEmpty();
+	}
+
+	@Test
+	void loadThatOverlappedAnEvictionIsNotCached() {
+		Track track = save("Racing Song");
+		TrackCache[] cache = new TrackCache[1];
+		// The row is read, then a write commits and evicts it before the load is stored
+		TrackRepository racing = (TrackRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {TrackRepository.class}, (proxy, method, args) -> {
+					Object result = method.invoke(trackRepository, args);
+					cache[0].invalidate(track.getId());
+					return result;
+				});
+		cache[0] = new TrackCache(racing, new SimpleMeterRegistry(), 100, 60_000);
+
+		assertThat(cache[0].get(track.getId())).map(TrackResponse::getTitle).hasValue("Racing Song");
+		assertThat(cache[0].getAll(List.of(track.getId()))).containsOnlyKeys(track.getId());
+		assertThat(cache[0].size()).isZero();
+	}
+
+	private double hits() {
+		return meterRegistry.counter("tracks.cache", "result", "hit").count();
+	}
+
+	private double misses() {
+		return meterRegistry.counter("tracks.cache", "result", "miss").count();
+	}
+
+	private Track save(String title) {
+		return trackRepository.save(new Track(TrackSourceType.UPLOAD, title, "someone", 200, "https://example.com", null));
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.Track;
+import com.example.backend.repository.TrackRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * 20,000 generated tracks: the old unbounded {@code LIKE '%q%'} query versus a ranked 20-track page from
+ * {@link TrackSearchIndex}. Every LIKE hit must also be an index hit; the timings are only logged, since wall-clock
+ * comparisons are too noisy to fail a build on.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackSearchBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(TrackSearchBenchmarkTests.class);
+	private static final int TRACKS = 20_000;
+	private static final int ROUNDS = 20;
+	private static final String[] WORDS = {"사랑", "이별", "바다", "밤하늘", "봄날", "기억", "너에게", "우리", "love",
+			"night", "summer", "dream", "blue", "light", "heart", "road"};
+	private static final String[] QUERIES = {"사랑", "밤하", "ㅂㄴ", "love", "ght", "dream blue", "가수17"};
+
+	@Autowired
+	private TrackSearchIndex trackSearchIndex;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private long firstInsertedId;
+
+	@AfterEach
+	void deleteTracks() {
+		if (firstInsertedId > 0) {
+			jdbcTemplate.update("delete from track where id >= ?", firstInsertedId);
+			trackSearchIndex.rebuild();
+		}
+	}
+
+	@Test
+	void indexFindsEveryLikeMatch() {
+		insertTracks();
+		trackSearchIndex.rebuild();
+
+		for (String query : QUERIES) {
+			List<Long> likeIds = like(query).stream().map(Track::getId).toList();
+			List<Long> indexIds = trackSearchIndex.search(query, 0, TRACKS).stream().map(TrackResponse::getId).toList();
+			assertThat(indexIds).containsAll(likeIds);
+		}
+
+		long likeNanos = time(query -> like(query).size());
+		long indexNanos = time(query -> trackSearchIndex.search(query, 0, 20).size());
+
+		log.info("{} tracks, {} queries x {} rounds: like={} ms, index={} ms", TRACKS, QUERIES.length, ROUNDS,
+				likeNanos / 1_000_000, indexNanos / 1_000_000);
+	}
+
+	private List<Track> like(String query) {
+		return trackRepository.findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(query, query,
+				Pageable.unpaged());
+	}
+
+	private long time(ToIntFunction<String> search) {
+		for (String query : QUERIES) {
+			search.applyAsInt(query);
+		}
+		long started = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (String query : QUERIES) {
+				search.applyAsInt(query);
+			}
+		}
+		return System.nanoTime() - started;
+	}
+
+	private void insertTracks() {
+		firstInsertedId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from track", Long.class);
+		Random random = new Random(42);
+		List<Object[]> rows = new ArrayList<>(TRACKS);
+		for (int i = 0; i < TRACKS; i++) {
+			StringBuilder title = new StringBuilder();
+			for (int words = 2 + random.nextInt(3); words > 0; words--) {
+				title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+			}
+			rows.add(new Object[] {"UPLOAD", title.toString().trim(), "가수" + random.nextInt(500), 180});
+		}
+		jdbcTemplate.batchUpdate("insert into track (source_type, title, artist, duration_seconds) values (?, ?, ?, ?)",
+				rows);
+	}
+}
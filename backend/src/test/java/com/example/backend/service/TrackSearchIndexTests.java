@@ -0,0 +1,96 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.TrackRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackSearchIndexTests {
+
+	@Autowired
+	private TrackSearchIndex trackSearchIndex;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void savedTracksAreRankedByWhereTheyMatch() {
+		Track artistMatch = save("Other Song", "Zyxwv Band");
+		Track contains = save("The Zyxwv", "someone");
+		Track exact = save("Zyxwv", "someone");
+		Track prefix = save("Zyxwv Remix", "someone");
+
+		assertThat(trackSearchIndex.search("zyxwv", 0, 10)).extracting(TrackResponse::getId)
+				.containsExactly(exact.getId(), prefix.getId(), contains.getId(), artistMatch.getId());
+		assertThat(trackSearchIndex.search("ZYX WV", 1, 2)).extracting(TrackResponse::getId)
+				.containsExactly(prefix.getId(), contains.getId());
+		assertThat(trackSearchIndex.search("zyxwv", Integer.MAX_VALUE - 1, 100)).isEmpty();
+	}
+
+	@Test
+	void hangulMatchesByInitialConsonants() {
+		Track track = save("퀘이사 별빛", "은하수 악단");
+
+		assertThat(trackSearchIndex.search("ㅋㅇㅅ", 0, 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSearchIndex.search("퀘이ㅅㅂ", 0, 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSearchIndex.search("ㅇㅎㅅ", 0, 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSearchIndex.search("퀘이사", 0, 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSearchIndex.search("ㅋㅇㄴ", 0, 10)).extracting(TrackResponse::getId)
+				.doesNotContain(track.getId());
+	}
+
+	@Test
+	void deletedTracksLeaveTheIndex() {
+		Track track = save("Qwvbnm Ballad", "Qwvbnm");
+		assertThat(trackSearchIndex.search("qwvbnm", 0, 10)).hasSize(1);
+
+		trackRepository.delete(track);
+
+		assertThat(trackSearchIndex.search("qwvbnm", 0, 10)).isEmpty();
+	}
+
+	@Test
+	void rebuildKeepsSavedTracks() {
+		Track track = save("Plokmij", "Plokmij");
+
+		trackSearchIndex.rebuild();
+
+		assertThat(trackSearchIndex.search("plokmi", 0, 10)).extracting(TrackResponse::getId)
+				.containsExactly(track.getId());
+	}
+
+	@Test
+	void tracksWrittenByAnotherNodeAreFoundAfterReconcile() {
+		// Straight to the table, as another node would, so no change listener sees it
+		jdbcTemplate.update("insert into track (source_type, title, artist, duration_seconds, url) "
+				+ "values (?, ?, ?, ?, ?)", TrackSourceType.UPLOAD.name(), "Vbgtyh Anthem", "elsewhere", 200,
+				"https://example.com");
+		assertThat(trackSearchIndex.search("vbgtyh", 0, 10)).isEmpty();
+
+		trackSearchIndex.reconcile();
+
+		assertThat(trackSearchIndex.search("vbgtyh", 0, 10)).extracting(TrackResponse::getTitle)
+				.containsExactly("Vbgtyh Anthem");
+
+		jdbcTemplate.update("delete from track where title = ?", "Vbgtyh Anthem");
+		trackSearchIndex.reconcile();
+
+		assertThat(trackSearchIndex.search("vbgtyh", 0, 10)).isEmpty();
+	}
+
+	private Track save(String title, String artist) {
+		return trackRepository.save(new Track(TrackSourceType.UPLOAD, title, artist, 200, "https://example.com", null));
+	}
+}
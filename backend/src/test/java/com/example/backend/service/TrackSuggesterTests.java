@@ -0,0 +1,127 @@
+package com.example.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.dto.TrackResponse;
+import com.example.backend.domain.AppUser;
+import com.example.backend.domain.QueueItem;
+import com.example.backend.domain.QueueStatus;
+import com.example.backend.domain.Room;
+import com.example.backend.domain.RoomMode;
+import com.example.backend.domain.RoomVisibility;
+import com.example.backend.domain.Track;
+import com.example.backend.domain.TrackSourceType;
+import com.example.backend.repository.AppUserRepository;
+import com.example.backend.repository.QueueItemRepository;
+import com.example.backend.repository.RoomRepository;
+import com.example.backend.repository.TrackRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackSuggesterTests {
+
+	@Autowired
+	private TrackSuggester trackSuggester;
+
+	@Autowired
+	private TrackRepository trackRepository;
+
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private QueueItemRepository queueItemRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void prefixesReturnTheMostQueuedTracksFirst() {
+		Track rare = save("Xqzt Morning", "someone");
+		Track liked = save("Xqzt Evening", "someone");
+		Track favourite = save("Moon Xqzt Light", "someone");
+		queue(liked, 1);
+		queue(favourite, 2);
+
+		trackSuggester.rebuild();
+
+		assertThat(trackSuggester.suggest("xqz", 10)).extracting(TrackResponse::getId)
+				.containsExactly(favourite.getId(), liked.getId(), rare.getId());
+		assertThat(trackSuggester.suggest("XQZT E", 10)).extracting(TrackResponse::getId)
+				.containsExactly(liked.getId());
+		assertThat(trackSuggester.suggest("xqz", 1)).extracting(TrackResponse::getId)
+				.containsExactly(favourite.getId());
+	}
+
+	@Test
+	void hangulPrefixesMatchByInitialConsonants() {
+		Track track = save("호박달 노래", "들꽃 악단");
+
+		trackSuggester.rebuild();
+
+		assertThat(trackSuggester.suggest("ㅎㅂ", 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSuggester.suggest("호ㅂㄷ", 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSuggester.suggest("ㄷㄲ", 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSuggester.suggest("노래", 10)).extracting(TrackResponse::getId).contains(track.getId());
+		assertThat(trackSuggester.suggest("ㅎㅂㄴ", 10)).extracting(TrackResponse::getId).doesNotContain(track.getId());
+	}
+
+	@Test
+	void repeatedPrefixesAreServedFromTheCache() {
+		save("Vbnrt Song", "someone");
+		trackSuggester.rebuild();
+		double hits = meterRegistry.counter("tracks.suggest.cache", "result", "hit").count();
+
+		trackSuggester.suggest("vbn", 10);
+		trackSuggester.suggest("vbn", 10);
+		trackSuggester.suggest("V B N", 10);
+
+		assertThat(meterRegistry.counter("tracks.suggest.cache", "result", "hit").count()).isEqualTo(hits + 2);
+	}
+
+	@Test
+	void queuingRaisesATrackWithoutARebuild() {
+		Track alpha = save("Plokij Alpha", "someone");
+		Track beta = save("Plokij Beta", "someone");
+		trackSuggester.rebuild();
+		assertThat(trackSuggester.suggest("plok", 10)).extracting(TrackResponse::getId)
+				.containsExactly(beta.getId(), alpha.getId());
+
+		trackSuggester.queued(alpha.getId());
+
+		// The cached answer for the prefix was evicted along with the update
+		assertThat(trackSuggester.suggest("plok", 10)).extracting(TrackResponse::getId)
+				.containsExactly(alpha.getId(), beta.getId());
+	}
+
+	@Test
+	void refreshPicksUpNewTracks() {
+		trackSuggester.rebuild();
+		Track track = save("Jhgfds Anthem", "someone");
+
+		trackSuggester.refresh();
+
+		assertThat(trackSuggester.suggest("jhgf", 10)).extracting(TrackResponse::getId).containsExactly(track.getId());
+	}
+
+	private Track save(String title, String artist) {
+		return trackRepository.save(new Track(TrackSourceType.UPLOAD, title, artist, 200, "https://example.com", null));
+	}
+
+	private void queue(Track track, int times) {
+		AppUser user = appUserRepository.save(new AppUser("suggest-" + System.nanoTime() + "@example.com", "pw",
+				"suggester", "local"));
+		Room room = roomRepository.save(new Room("Suggest", RoomMode.KARAOKE, RoomVisibility.PUBLIC, null, user));
+		for (int i = 0; i < times; i++) {
+			queueItemRepository.save(new QueueItem(room, track, user, QueueStatus.PENDING, i + 1));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.ChatMessagePayload;
+import com.example.backend.api.SignalingController.UserInfo;
+import com.example.backend.service.RoomEmptiedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+class ChatSequencerTests {
+
+	private final PresenceRegistry presenceRegistry = new PresenceRegistry(new ObjectMapper(), "node-1");
+	private final ChatSequencer sequencer = sequencer("simple");
+
+	@Test
+	void sequencesArePerRoom() {
+		sequencer.publish("1", message("a"));
+		sequencer.publish("1", message("b"));
+		ChatMessagePayload other = message("c");
+		sequencer.publish("2", other);
+
+		assertThat(other.seq).isEqualTo(1);
+		assertThat(sequencer.replay("1", 0).latestSeq).isEqualTo(2);
+	}
+
+	@Test
+	void replayReturnsOnlyMissedFrames() {
+		for (int i = 1; i <= 3; i++) {
+			sequencer.publish("1", message("m" + i));
+		}
+
+		ChatSequencer.ChatReplay replay = sequencer.replay("1", 1);
+
+		assertThat(replay.complete).isTrue();
+		assertThat(replay.messages).extracting(m -> m.content).containsExactly("m2", "m3");
+		assertThat(sequencer.replay("1", 3).messages).isEmpty();
+	}
+
+	@Test
+	void replayPastTheRingIsMarkedIncomplete() {
+		for (int i = 1; i <= 6; i++) {
+			sequencer.publish("1", message("m" + i));
+		}
+
+		ChatSequencer.ChatReplay replay = sequencer.replay("1", 1);
+
+		assertThat(replay.complete).isFalse();
+		assertThat(replay.messages).extracting(m -> m.seq).containsExactly(3L, 4L, 5L, 6L);
+	}
+
+	@Test
+	void sequenceFromBeforeRestartIsIncomplete() {
+		sequencer.publish("1", message("m1"));
+
+		assertThat(sequencer.replay("1", 42).complete).isFalse();
+		assertThat(sequencer.replay("9", 42).complete).isFalse();
+	}
+
+	@Test
+	void relayReplayIsNeverComplete() {
+		ChatSequencer relay = sequencer("relay");
+		relay.publish("1", message("m1"));
+
+		ChatSequencer.ChatReplay replay = relay.replay("1", 0);
+
+		assertThat(replay.complete).isFalse();
+		assertThat(replay.messages).extracting(m -> m.content).containsExactly("m1");
+		assertThat(relay.replay("9", 0).complete).isFalse();
+	}
+
+	@Test
+	void ringsOfEmptiedRoomsAreDropped() {
+		presenceRegistry.join("2", new UserInfo("alice", "Alice", "s-alice"));
+		sequencer.publish("1", message("m1"));
+		sequencer.publish("2", message("m2"));
+		sequencer.publish("3", message("m3"));
+
+		sequencer.onRoomEmptied(new RoomEmptiedEvent(1L));
+		assertThat(sequencer.replay("1", 0).latestSeq).isZero();
+		assertThat(sequencer.replay("3", 0).latestSeq).isEqualTo(1);
+
+		sequencer.sweep();
+		assertThat(sequencer.replay("3", 0).latestSeq).isZero();
+		assertThat(sequencer.replay("2", 0).latestSeq).isEqualTo(1);
+	}
+
+	private ChatSequencer sequencer(String brokerMode) {
+		return new ChatSequencer(new SimpMessagingTemplate(new ExecutorSubscribableChannel()), presenceRegistry,
+				brokerMode, 4);
+	}
+
+	private static ChatMessagePayload message(String content) {
+		ChatMessagePayload message = new ChatMessagePayload();
+		message.roomId = "1";
+		message.content = content;
+		return message;
+	}
+}
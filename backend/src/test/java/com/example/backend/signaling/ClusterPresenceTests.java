@@ -0,0 +1,99 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * Snapshot exchange between nodes, driven by hand instead of through a broker.
+ */
+class ClusterPresenceTests {
+
+	private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+	private final SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> {
+		sent.add(message);
+		return true;
+	});
+	private final PresenceRegistry presenceRegistry = new PresenceRegistry(new ObjectMapper(), "node-1");
+	private final ClusterPresence clusterPresence = new ClusterPresence(messagingTemplate, presenceRegistry,
+			new RosterBroadcaster(messagingTemplate, presenceRegistry), new ObjectMapper(), "relay", 15000);
+
+	@Test
+	void firstEventFromANodeAsksItForASnapshot() {
+		clusterPresence.apply(new ClusterEvent(ClusterEvent.Type.HEARTBEAT, "node-2", null, null, 0));
+		clusterPresence.apply(new ClusterEvent(ClusterEvent.Type.HEARTBEAT, "node-2", null, null, 0));
+
+		assertThat(sent).hasSize(1);
+		assertThat(destination(0)).isEqualTo(ClusterPresence.NODE_DESTINATION_PREFIX + "node-2");
+		assertThat(event(0).type).isEqualTo(ClusterEvent.Type.SNAPSHOT_REQUEST);
+		assertThat(event(0).node).isEqualTo("node-1");
+	}
+
+	@Test
+	void snapshotRequestIsAnsweredWithLocalMembers() {
+		presenceRegistry.join("7", new UserInfo("alice", "Alice", "s-alice"));
+
+		clusterPresence.apply(new ClusterEvent(ClusterEvent.Type.SNAPSHOT_REQUEST, "node-2", null, null, 0));
+
+		ClusterEvent snapshot = sent.stream().map(message -> (ClusterEvent) message.getPayload())
+				.filter(event -> event.type == ClusterEvent.Type.SNAPSHOT).findFirst().orElseThrow();
+		assertThat(snapshot.members.get("7")).extracting(user -> user.oderId).containsExactly("alice");
+		assertThat(snapshot.versions.get("7")).isEqualTo(presenceRegistry.version("7"));
+	}
+
+	@Test
+	void snapshotFillsInMembersThatJoinedBeforeThisNodeStarted() {
+		clusterPresence.apply(snapshot(10, Map.of("7", List.of(new UserInfo("bob", "Bob", "s-bob")))));
+
+		assertThat(clusterPresence.nodeOf("7", "bob")).isEqualTo("node-2");
+		assertThat(clusterPresence.remoteVersions("7")).isEqualTo("node-2=10");
+	}
+
+	@Test
+	void laterSnapshotDropsMembersItNoLongerHas() {
+		clusterPresence.apply(snapshot(10, Map.of("7", List.of(new UserInfo("bob", "Bob", "s-bob")),
+				"8", List.of(new UserInfo("carol", "Carol", "s-carol")))));
+
+		clusterPresence.apply(snapshot(20, Map.of("7", List.of(new UserInfo("dave", "Dave", "s-dave")))));
+
+		assertThat(clusterPresence.nodeOf("7", "bob")).isNull();
+		assertThat(clusterPresence.nodeOf("7", "dave")).isEqualTo("node-2");
+		assertThat(clusterPresence.nodeOf("8", "carol")).isNull();
+	}
+
+	@Test
+	void staleSnapshotDoesNotUndoANewerEvent() {
+		clusterPresence.apply(snapshot(10, Map.of("7", List.of(new UserInfo("bob", "Bob", "s-bob")))));
+		clusterPresence.apply(new ClusterEvent(ClusterEvent.Type.LEAVE, "node-2", "7",
+				new UserInfo("bob", "Bob", "s-bob"), 12));
+
+		// Taken before the leave but delivered after it
+		clusterPresence.apply(snapshot(11, Map.of("7", List.of(new UserInfo("bob", "Bob", "s-bob")))));
+
+		assertThat(clusterPresence.nodeOf("7", "bob")).isNull();
+	}
+
+	private static ClusterEvent snapshot(long version, Map<String, List<UserInfo>> members) {
+		ClusterEvent snapshot = new ClusterEvent(ClusterEvent.Type.SNAPSHOT, "node-2", null, null, version);
+		snapshot.members = members;
+		snapshot.versions = members.keySet().stream().collect(Collectors.toMap(roomId -> roomId, roomId -> version));
+		return snapshot;
+	}
+
+	private ClusterEvent event(int index) {
+		return (ClusterEvent) sent.get(index).getPayload();
+	}
+
+	private String destination(int index) {
+		return SimpMessageHeaderAccessor.getDestination(sent.get(index).getHeaders());
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class PresenceRegistryTests {
+
+	private final PresenceRegistry registry = new PresenceRegistry(new ObjectMapper(), "node-1");
+
+	@Test
+	void rejoinReplacesInsteadOfDuplicating() {
+		registry.join("1", new UserInfo("u1", "Alice", "s1"));
+		registry.join("1", new UserInfo("u1", "Alice", "s2"));
+
+		assertThat(registry.members("1")).hasSize(1);
+		assertThat(registry.find("1", "u1").sessionId).isEqualTo("s2");
+	}
+
+	@Test
+	void rosterIsCachedUntilMembershipChanges() {
+		registry.join("1", new UserInfo("u1", "Alice", "s1"));
+		PresenceRegistry.Roster first = registry.roster("1");
+
+		assertThat(registry.roster("1")).isSameAs(first);
+
+		registry.join("1", new UserInfo("u2", "Bob", "s2"));
+		assertThat(registry.roster("1").version()).isGreaterThan(first.version());
+	}
+
+	@Test
+	void disconnectOnlyRemovesEntriesOwnedBySession() {
+		registry.join("1", new UserInfo("u1", "Alice", "s1"));
+		registry.join("2", new UserInfo("u1", "Alice", "s1"));
+		registry.join("2", new UserInfo("u1", "Alice", "s2"));
+
+		assertThat(registry.disconnect("s1")).containsOnlyKeys("1");
+		assertThat(registry.members("1")).isEmpty();
+		assertThat(registry.find("2", "u1").sessionId).isEqualTo("s2");
+	}
+
+	@Test
+	void disconnectRacingAJoinLeavesNoGhost() {
+		for (int i = 0; i < 2000; i++) {
+			String sessionId = "race-" + i;
+			CompletableFuture<Void> join = CompletableFuture.runAsync(
+					() -> registry.join("1", new UserInfo("u1", "Alice", sessionId)));
+			// Disconnect as soon as the member is visible, possibly before join has returned
+			while (registry.find("1", "u1") == null || !sessionId.equals(registry.find("1", "u1").sessionId)) {
+				Thread.onSpinWait();
+			}
+			registry.disconnect(sessionId);
+			join.join();
+
+			assertThat(registry.members("1")).isEmpty();
+		}
+	}
+}
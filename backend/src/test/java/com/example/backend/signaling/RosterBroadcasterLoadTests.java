@@ -0,0 +1,113 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * Join storm of 500 listeners arriving over one second: counts frames the broker has to deliver to room
+ * subscribers with the old per-event broadcast versus 50 ms coalesced roster deltas.
+ */
+class RosterBroadcasterLoadTests {
+
+	private static final int JOINERS = 500;
+	private static final int WINDOWS = 20;
+
+	private final AtomicLong subscribers = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final MessageChannel broker = (message, timeout) -> {
+		delivered.addAndGet(subscribers.get());
+		return true;
+	};
+	private final SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(broker);
+	private final PresenceRegistry presenceRegistry = new PresenceRegistry(new ObjectMapper(), "node-1");
+
+	@Test
+	void coalescedDeltasCutFanOutForJoinStorm() {
+		long perEvent = perEventBroadcast();
+		long coalesced = coalescedDeltas();
+
+		assertThat(perEvent).isEqualTo((long) JOINERS * (JOINERS - 1) / 2);
+		assertThat(coalesced).isLessThanOrEqualTo((long) JOINERS * WINDOWS);
+		assertThat(coalesced * 10).isLessThan(perEvent);
+	}
+
+	@Test
+	void deltasChainVersionsAndCarryFinalState() {
+		RosterBroadcaster.RosterDelta[] sent = new RosterBroadcaster.RosterDelta[1];
+		RosterBroadcaster broadcaster = new RosterBroadcaster(new SimpMessagingTemplate((message, timeout) -> {
+			sent[0] = (RosterBroadcaster.RosterDelta) message.getPayload();
+			return true;
+		}), presenceRegistry);
+
+		join(broadcaster, "u1");
+		broadcaster.flush("1");
+		RosterBroadcaster.RosterDelta first = sent[0];
+
+		join(broadcaster, "u2");
+		presenceRegistry.leave("1", "u2");
+		broadcaster.left("1", "u2");
+		broadcaster.flush("1");
+
+		assertThat(first.joined).extracting(user -> user.oderId).containsExactly("u1");
+		assertThat(sent[0].baseVersion).isEqualTo(first.version);
+		assertThat(sent[0].version).isGreaterThan(first.version);
+		assertThat(sent[0].joined).isEmpty();
+		assertThat(sent[0].left).containsExactly("u2");
+	}
+
+	@Test
+	void deltaVersionIsCapturedWhenTheChangeIsEnqueued() {
+		RosterBroadcaster.RosterDelta[] sent = new RosterBroadcaster.RosterDelta[1];
+		RosterBroadcaster broadcaster = new RosterBroadcaster(new SimpMessagingTemplate((message, timeout) -> {
+			sent[0] = (RosterBroadcaster.RosterDelta) message.getPayload();
+			return true;
+		}), presenceRegistry);
+
+		join(broadcaster, "early");
+		long enqueued = presenceRegistry.version("1");
+		// Registered but not yet handed to the broadcaster when the flush runs; a snapshot may already cover it
+		presenceRegistry.join("1", new UserInfo("racing", "racing", "s-racing"));
+		broadcaster.flush("1");
+
+		assertThat(sent[0].version).isEqualTo(enqueued).isLessThan(presenceRegistry.version("1"));
+		assertThat(sent[0].joined).extracting(user -> user.oderId).containsExactly("early");
+	}
+
+	// Old SignalingController.joinRoom: one user-joined broadcast per join to everyone already subscribed.
+	private long perEventBroadcast() {
+		delivered.set(0);
+		subscribers.set(0);
+		for (int i = 0; i < JOINERS; i++) {
+			messagingTemplate.convertAndSend("/topic/room/1/user-joined", new UserInfo("u" + i, "user" + i, "s" + i));
+			subscribers.incrementAndGet();
+		}
+		return delivered.get();
+	}
+
+	private long coalescedDeltas() {
+		delivered.set(0);
+		subscribers.set(0);
+		RosterBroadcaster broadcaster = new RosterBroadcaster(messagingTemplate, presenceRegistry);
+		for (int i = 0; i < JOINERS; i++) {
+			join(broadcaster, "u" + i);
+			subscribers.incrementAndGet();
+			if ((i + 1) % (JOINERS / WINDOWS) == 0) {
+				broadcaster.flush();
+			}
+		}
+		broadcaster.flush();
+		return delivered.get();
+	}
+
+	private void join(RosterBroadcaster broadcaster, String userId) {
+		UserInfo user = new UserInfo(userId, userId, "s-" + userId);
+		presenceRegistry.join("1", user);
+		broadcaster.joined("1", user);
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.api.SignalingController.SignalMessage;
+import com.example.backend.api.SignalingController.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+class SignalRouterTests {
+
+	private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+	private final SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> {
+		sent.add(message);
+		return true;
+	});
+	private final PresenceRegistry presenceRegistry = new PresenceRegistry(new ObjectMapper(), "node-1");
+	private final RosterBroadcaster rosterBroadcaster = new RosterBroadcaster(messagingTemplate, presenceRegistry);
+	private final SignalRouter router = new SignalRouter(messagingTemplate, presenceRegistry,
+			new ClusterPresence(messagingTemplate, presenceRegistry, rosterBroadcaster, new ObjectMapper(), "simple",
+					15000));
+	private final UserInfo caller = new UserInfo("caller", "caller", "s-caller");
+
+	@Test
+	void candidatesWaitForTheFlushAndGoOutAsOneBatch() {
+		presenceRegistry.join("1", new UserInfo("callee", "callee", "s-callee"));
+
+		router.route("1", signal("callee", candidate("c1")));
+		router.route("1", signal("callee", candidate("c2")));
+		assertThat(sent).isEmpty();
+
+		router.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(batch(0).signals).containsExactly(candidate("c1"), candidate("c2"));
+		assertThat(SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders())).endsWith("/queue/signal");
+	}
+
+	@Test
+	void sdpGoesOutBehindTheCandidatesQueuedBeforeIt() {
+		presenceRegistry.join("1", new UserInfo("callee", "callee", "s-callee"));
+		Map<String, Object> offer = Map.of("type", "offer", "sdp", "v=0");
+
+		router.route("1", signal("callee", candidate("c1")));
+		router.route("1", signal("callee", offer));
+		router.route("1", signal("callee", candidate("c2")));
+		router.flush();
+
+		assertThat(sent).hasSize(2);
+		assertThat(batch(0).signals).containsExactly(candidate("c1"), offer);
+		assertThat(batch(1).signals).containsExactly(candidate("c2"));
+	}
+
+	@Test
+	void idleQueuesAreDroppedAndRecreated() {
+		presenceRegistry.join("1", new UserInfo("callee", "callee", "s-callee"));
+
+		router.route("1", signal("callee", candidate("c1")));
+		router.flush();
+		router.flush();
+		router.route("1", signal("callee", candidate("c2")));
+		router.flush();
+
+		assertThat(sent).hasSize(2);
+		assertThat(batch(1).signals).containsExactly(candidate("c2"));
+	}
+
+	@Test
+	void fallbackTopicCarriesTheSameBatchShape() {
+		Map<String, Object> answer = Map.of("type", "answer", "sdp", "v=0");
+
+		router.route("1", signal("nobody", answer));
+
+		assertThat(sent).hasSize(1);
+		assertThat(SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()))
+				.isEqualTo("/topic/room/1/signal/nobody");
+		assertThat(batch(0).from).isEqualTo(caller);
+		assertThat(batch(0).signals).containsExactly(answer);
+	}
+
+	private SignalMessage signal(String target, Object signal) {
+		SignalMessage message = new SignalMessage();
+		message.targetUserId = target;
+		message.from = caller;
+		message.signal = signal;
+		return message;
+	}
+
+	private static Map<String, Object> candidate(String value) {
+		return Map.of("candidate", value, "sdpMid", "0");
+	}
+
+	private SignalRouter.SignalBatch batch(int index) {
+		return (SignalRouter.SignalBatch) sent.get(index).getPayload();
+	}
+}
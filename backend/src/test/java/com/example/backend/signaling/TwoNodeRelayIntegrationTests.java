@@ -0,0 +1,160 @@
+package com.example.backend.signaling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.backend.BackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+/**
+ * Two backend nodes on one machine relaying through an embedded Artemis STOMP broker. One participant of the
+ * room is connected to each node.
+ */
+class TwoNodeRelayIntegrationTests {
+
+	private static EmbeddedActiveMQ broker;
+	private static ConfigurableApplicationContext node1;
+	private static ConfigurableApplicationContext node2;
+
+	@BeforeAll
+	static void startCluster() throws Exception {
+		int stompPort = freePort();
+		broker = new EmbeddedActiveMQ();
+		broker.setConfiguration(new ConfigurationImpl()
+				.setPersistenceEnabled(false)
+				.setSecurityEnabled(false)
+				.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort
+						+ "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/"));
+		broker.start();
+		node1 = startNode("node-1", stompPort);
+		node2 = startNode("node-2", stompPort);
+	}
+
+	@AfterAll
+	static void stopCluster() throws Exception {
+		if (node1 != null) {
+			node1.close();
+		}
+		if (node2 != null) {
+			node2.close();
+		}
+		if (broker != null) {
+			broker.stop();
+		}
+	}
+
+	@Test
+	void presenceAndSignalsSpanNodes() throws Exception {
+		StompSession alice = connect(node1);
+		StompSession bob = connect(node2);
+		BlockingQueue<JsonNode> aliceRoster = subscribe(alice, "/topic/room/1/roster");
+		BlockingQueue<JsonNode> aliceSignals = subscribe(alice, "/user/queue/signal");
+		BlockingQueue<JsonNode> bobSnapshots = subscribe(bob, "/user/queue/room-users");
+
+		alice.send("/app/room/1/join", Map.of("roomId", "1", "oderId", "alice", "odername", "Alice"));
+		awaitDelta(aliceRoster, "alice");
+
+		bob.send("/app/room/1/join", Map.of("roomId", "1", "oderId", "bob", "odername", "Bob"));
+		// Bob's join is published by node-2 and relayed to Alice on node-1.
+		JsonNode delta = awaitDelta(aliceRoster, "bob");
+		assertThat(delta.get("node").asText()).isEqualTo("node-2");
+
+		// Node-2's snapshot includes Alice once node-1's gossip has arrived.
+		boolean aliceVisible = false;
+		for (int attempt = 0; attempt < 20 && !aliceVisible; attempt++) {
+			bob.send("/app/room/1/roster", Map.of());
+			JsonNode snapshot = bobSnapshots.poll(5, TimeUnit.SECONDS);
+			aliceVisible = snapshot != null && snapshot.findValuesAsText("oderId").contains("alice");
+		}
+		assertThat(aliceVisible).isTrue();
+
+		bob.send("/app/room/1/signal", Map.of(
+				"targetUserId", "alice",
+				"signal", Map.of("type", "offer", "sdp", "v=0"),
+				"from", Map.of("oderId", "bob", "odername", "Bob")));
+		JsonNode batch = aliceSignals.poll(10, TimeUnit.SECONDS);
+		assertThat(batch).isNotNull();
+		assertThat(batch.get("from").get("oderId").asText()).isEqualTo("bob");
+		assertThat(batch.get("signals").get(0).get("type").asText()).isEqualTo("offer");
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId, int stompPort) {
+		return new SpringApplicationBuilder(BackendApplication.class)
+				.profiles("test")
+				.properties(
+						"server.port=0",
+						"messaging.broker.mode=relay",
+						"messaging.broker.relay-host=127.0.0.1",
+						"messaging.broker.relay-port=" + stompPort,
+						"messaging.node-id=" + nodeId,
+						"spring.datasource.url=jdbc:h2:mem:" + nodeId + ";MODE=MySQL;DB_CLOSE_DELAY=-1")
+				.run();
+	}
+
+	private static StompSession connect(ConfigurableApplicationContext node) throws Exception {
+		int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+		WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+		client.setMessageConverter(new MappingJackson2MessageConverter());
+		return client.connectAsync("ws://127.0.0.1:" + port + "/api/ws", new StompSessionHandlerAdapter() {
+		}).get(10, TimeUnit.SECONDS);
+	}
+
+	private static BlockingQueue<JsonNode> subscribe(StompSession session, String destination) throws Exception {
+		BlockingQueue<JsonNode> frames = new LinkedBlockingQueue<>();
+		session.subscribe(destination, new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return JsonNode.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				frames.add((JsonNode) payload);
+			}
+		});
+		// Give the broker a moment to register the subscription before anything is published to it.
+		Thread.sleep(200);
+		return frames;
+	}
+
+	private static JsonNode awaitDelta(BlockingQueue<JsonNode> frames, String userId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (System.currentTimeMillis() < deadline) {
+			JsonNode delta = frames.poll(500, TimeUnit.MILLISECONDS);
+			if (delta != null) {
+				List<String> joined = delta.get("joined").findValuesAsText("oderId");
+				if (joined.contains(userId)) {
+					return delta;
+				}
+			}
+		}
+		throw new AssertionError("No roster delta with " + userId);
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}